@@ -0,0 +1,65 @@
+package network.parthenon.amcdb.discord;
+
+import network.parthenon.amcdb.messaging.component.SplittableInternalMessageComponent;
+import network.parthenon.amcdb.util.MessageCorpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for converting between Discord markdown and InternalMessageComponents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarkdownBenchmark {
+
+    @Param({"SHORT_CHAT", "LONG_MARKDOWN", "LOG_LINES", "MENTION_HEAVY"})
+    public MessageCorpus corpus;
+
+    private String[] messages;
+
+    /**
+     * Components parsed from each message, used as input for rendering benchmarks.
+     */
+    private List<List<SplittableInternalMessageComponent>> components;
+
+    private DiscordFormatter formatter;
+
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        messages = corpus.getMessages().toArray(String[]::new);
+        components = corpus.getMessages().stream().map(MarkdownParser::toComponents).toList();
+        // toDiscordRawContent() uses neither the service nor the config
+        formatter = new DiscordFormatter(null, null);
+    }
+
+    @Benchmark
+    public List<SplittableInternalMessageComponent> parseMarkdown() {
+        return MarkdownParser.toComponents(messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public String escapeMarkdown() {
+        return MarkdownBuilder.escapeMarkdown(messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<String> toDiscordRawContent() {
+        return formatter.toDiscordRawContent(
+                components.get(nextIndex()).stream(),
+                DiscordService.DISCORD_MESSAGE_CHAR_LIMIT);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) % messages.length;
+        return index;
+    }
+}
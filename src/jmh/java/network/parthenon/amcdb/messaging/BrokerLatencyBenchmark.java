@@ -0,0 +1,100 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.BroadcastMessage;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import network.parthenon.amcdb.util.MessageCorpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from publishing a message until a handler receives it,
+ * for each broker mode.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BrokerLatencyBenchmark {
+
+    /**
+     * Number of console lines published in one call by {@link #publishBurst()}.
+     */
+    private static final int BURST_SIZE = 100;
+
+    /**
+     * Broker mode, as for the amcdb.broker.mode property.
+     */
+    @Param({"single", "lanes", "ringBuffer"})
+    public String mode;
+
+    private MessageBroker broker;
+
+    private final InternalMessage chatMessage = new BroadcastMessage("BENCHMARK", "anyone want to go to the end?");
+
+    private final InternalMessage[] burst = new InternalMessage[BURST_SIZE];
+
+    private long published = 0;
+
+    private volatile long handled = 0;
+
+    @Setup
+    public void setup() {
+        broker = switch(mode) {
+            case "lanes" -> new LaneMessageBroker();
+            case "ringBuffer" -> new RingBufferMessageBroker();
+            default -> new BackgroundMessageBroker();
+        };
+        broker.subscribe(new MessageHandler() {
+            @Override
+            public void handleMessage(InternalMessage message) {
+                // only the dispatcher thread writes this field
+                handled = handled + 1;
+            }
+
+            @Override
+            public String getOwnSourceId() {
+                return null;
+            }
+        });
+
+        for(int i = 0; i < BURST_SIZE; i++) {
+            String line = MessageCorpus.LOG_LINES.getMessages().get(i % MessageCorpus.LOG_LINES.getMessages().size());
+            burst[i] = new ConsoleMessage("BENCHMARK", line);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.shutdown();
+    }
+
+    /**
+     * Time for a single chat message to reach the handler.
+     */
+    @Benchmark
+    public void publishToHandle() {
+        broker.publish(chatMessage);
+        awaitHandled(++published);
+    }
+
+    /**
+     * Time per console line for a burst of lines to reach the handler.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void publishBurst() {
+        broker.publish(burst);
+        published += BURST_SIZE;
+        awaitHandled(published);
+    }
+
+    private void awaitHandled(long count) {
+        while(handled < count) {
+            Thread.onSpinWait();
+        }
+    }
+}
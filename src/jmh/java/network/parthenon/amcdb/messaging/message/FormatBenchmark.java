@@ -0,0 +1,63 @@
+package network.parthenon.amcdb.messaging.message;
+
+import network.parthenon.amcdb.messaging.component.EntityReference;
+import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
+import network.parthenon.amcdb.messaging.component.TextComponent;
+import network.parthenon.amcdb.util.MessageCorpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for formatting messages to components, as done for every
+ * message sent to Discord or Minecraft.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    private static final String FORMAT = "<%username%> %message%";
+
+    /**
+     * Length to truncate to; short enough that the longer corpora are truncated.
+     */
+    private static final int TRUNC_LENGTH = 100;
+
+    private static final TextComponent ELLIPSIS = new TextComponent("...");
+
+    @Param({"SHORT_CHAT", "LONG_MARKDOWN", "LOG_LINES", "MENTION_HEAVY"})
+    public MessageCorpus corpus;
+
+    private ChatMessage[] messages;
+
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        EntityReference author = new EntityReference("123456789012345678", "Steve", "steve");
+        messages = corpus.getMessages().stream()
+                .map(text -> new ChatMessage("BENCHMARK", author, text))
+                .toArray(ChatMessage[]::new);
+    }
+
+    @Benchmark
+    public List<InternalMessageComponent> formatToComponents() {
+        return messages[nextIndex()].formatToComponents(FORMAT);
+    }
+
+    @Benchmark
+    public List<InternalMessageComponent> formatToComponentsTruncated() {
+        return messages[nextIndex()].formatToComponents(FORMAT, TRUNC_LENGTH, ELLIPSIS);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) % messages.length;
+        return index;
+    }
+}
@@ -0,0 +1,65 @@
+package network.parthenon.amcdb.util;
+
+import java.util.List;
+
+/**
+ * Realistic message content for benchmarks. Each corpus cycles through a fixed set
+ * of messages so that the JIT cannot specialize for a single input.
+ */
+public enum MessageCorpus {
+    /**
+     * Short chat messages, as typed by players and Discord users.
+     */
+    SHORT_CHAT(List.of(
+            "hi",
+            "anyone want to go to the end?",
+            "brb",
+            "lol",
+            "where's the nether portal again",
+            "gg",
+            "can someone tp me to spawn",
+            "nice build!"
+    )),
+    /**
+     * Longer messages with nested Discord markdown, code and links.
+     */
+    LONG_MARKDOWN(List.of(
+            "**Server maintenance** tonight at _10pm UTC_. Please __log off__ before then! ~~Backups~~ **Snapshots** will be taken, see https://example.com/maintenance for details.",
+            "Here's the farm design: `hopper -> chest` then ***don't*** forget the __*water stream*__. It's ~~slow~~ fast enough. ||spoiler: it's a witch farm||",
+            "```\n/fill ~ ~ ~ ~10 ~10 ~10 minecraft:air\n```\nthen run that **twice** and _check_ the chunk borders (F3+G) before building",
+            "> quoted text from earlier\n**bold** *italic* __underline__ ~~strike~~ `code` and some plain text to round it out, plus an escaped \\*asterisk\\*"
+    )),
+    /**
+     * Server console log lines.
+     */
+    LOG_LINES(List.of(
+            "[12:34:56] [Server thread/INFO] (Minecraft) Steve joined the game",
+            "[12:34:57] [Server thread/INFO] (Minecraft) Steve[/127.0.0.1:54321] logged in with entity id 123 at (12.5, 64.0, -30.5)",
+            "[12:35:01] [Server thread/WARN] (Minecraft) Can't keep up! Is the server overloaded? Running 2043ms or 40 ticks behind",
+            "[12:35:10] [Worker-Main-3/INFO] (Minecraft) Preparing spawn area: 83%",
+            "[12:35:12] [Server thread/INFO] (Minecraft) <Alex> has anyone seen my_dog_named_*fluffy*?",
+            "[12:36:00] [Server thread/ERROR] (Minecraft) Encountered an unexpected exception: java.lang.IllegalStateException: Duplicate entity UUID"
+    )),
+    /**
+     * Messages dense with user, role, channel, emoji and timestamp mentions.
+     */
+    MENTION_HEAVY(List.of(
+            "<@123456789012345678> <@234567890123456789> can you check <#345678901234567890>?",
+            "<@&456789012345678901> meeting at <t:1700000000:R> in <#345678901234567890> <:pog:567890123456789012>",
+            "thanks <@123456789012345678>! <a:dance:678901234567890123> <:heart:789012345678901234> <@!890123456789012345>",
+            "<@123456789012345678> <@123456789012345678> <@123456789012345678> <@&456789012345678901> <#345678901234567890> <t:1700000000:F>"
+    ));
+
+    private final List<String> messages;
+
+    MessageCorpus(List<String> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Gets the messages in this corpus.
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,52 @@
+package network.parthenon.amcdb.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for placeholder substitution in format strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaceholderFormatterBenchmark {
+
+    /**
+     * Chat message format, webhook format, and a placeholder-heavy topic format.
+     */
+    @Param({
+            "<%username%> %message%",
+            "%message%",
+            "%playersOnline%/%maxPlayers% players online | %mspt% ms/tick | %tps% TPS | %freeMemory%/%totalMemory% free | up since %lastRestart%"
+    })
+    public String format;
+
+    private final Map<String, String> replacements = Map.of(
+            "%username%", "Steve",
+            "%message%", "anyone want to go to the end?",
+            "%playersOnline%", "7",
+            "%maxPlayers%", "20",
+            "%mspt%", "23.4",
+            "%tps%", "20.0",
+            "%freeMemory%", "1.2 GB",
+            "%totalMemory%", "4.0 GB",
+            "%lastRestart%", "2 hours ago");
+
+    @Benchmark
+    public List<String> formatToObjects() {
+        return PlaceholderFormatter.formatToObjects(format,
+                p -> List.of(replacements.getOrDefault(p, p)),
+                List::of);
+    }
+
+    @Benchmark
+    public String formatPlaceholders() {
+        return PlaceholderFormatter.formatPlaceholders(format, replacements);
+    }
+}
@@ -7,8 +7,12 @@ import network.parthenon.amcdb.config.AMCDBConfig;
 import network.parthenon.amcdb.config.AMCDBPropertiesConfig;
 import network.parthenon.amcdb.discord.DiscordService;
 import network.parthenon.amcdb.messaging.BackgroundMessageBroker;
+import network.parthenon.amcdb.messaging.LaneMessageBroker;
+import network.parthenon.amcdb.messaging.LaneMetricsReporter;
 import network.parthenon.amcdb.messaging.MessageBroker;
+import network.parthenon.amcdb.messaging.RingBufferMessageBroker;
 import network.parthenon.amcdb.minecraft.MinecraftService;
+import network.parthenon.amcdb.util.ThreadSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,12 +33,27 @@ public class AMCDB implements ModInitializer {
 	// That way, it's clear which mod wrote info, warnings, and errors.
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
+	/**
+	 * Interval (in ms) at which lane metrics are logged in "lanes" broker mode.
+	 */
+	private static final long LANE_METRICS_INTERVAL = 60 * 1000;
+
+	/**
+	 * Time (in ms) to wait for a lane metrics report in progress when shutting down.
+	 */
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
 	private MinecraftService minecraftService;
 
 	private DiscordService discordService;
 
 	private MessageBroker broker;
 
+	/**
+	 * Logs lane metrics in "lanes" mode; null otherwise.
+	 */
+	private LaneMetricsReporter laneMetricsReporter;
+
 	private AMCDBConfig config;
 
 	/**
@@ -50,7 +69,20 @@ public class AMCDB implements ModInitializer {
 				new AMCDBPropertiesConfig(FabricLoader.getInstance().getConfigDir().resolve("amcdb.properties"));
 		this.config = propertiesConfig;
 
-		broker = new BackgroundMessageBroker();
+		// must be configured before any services start their threads
+		if(ThreadSupport.setUseVirtualThreads(config.getVirtualThreadsEnabled())) {
+			LOGGER.info("Using virtual threads for background work.");
+		}
+
+		broker = switch(config.getBrokerMode()) {
+			case "lanes" -> new LaneMessageBroker(config.getBrokerCapacity());
+			case "ringBuffer" -> new RingBufferMessageBroker(RingBufferMessageBroker.capacityFor(config.getBrokerCapacity()));
+			default -> new BackgroundMessageBroker(config.getBrokerCapacity());
+		};
+		if(broker instanceof LaneMessageBroker laneBroker) {
+			laneMetricsReporter = new LaneMetricsReporter(laneBroker);
+			laneMetricsReporter.start(LANE_METRICS_INTERVAL);
+		}
 		minecraftService = new MinecraftService(broker, propertiesConfig);
 		discordService = new DiscordService(broker, propertiesConfig);
 
@@ -88,5 +120,9 @@ public class AMCDB implements ModInitializer {
 	private void doShutdown() {
 		minecraftService.shutdown();
 		discordService.shutdown();
+		if(laneMetricsReporter != null) {
+			laneMetricsReporter.stop(SHUTDOWN_TIMEOUT);
+		}
+		broker.shutdown();
 	}
 }
@@ -6,4 +6,10 @@ public interface AMCDBConfig {
 
     OptionalLong getShutdownDelay();
 
+    String getBrokerMode();
+
+    int getBrokerCapacity();
+
+    boolean getVirtualThreadsEnabled();
+
 }
@@ -13,6 +13,11 @@ import java.util.regex.Pattern;
 
 public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, MinecraftConfig {
 
+    /**
+     * Log level names accepted by console filter properties, from least to most severe.
+     */
+    private static final List<String> LOG_LEVELS = List.of("TRACE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL");
+
     /**
      * Pattern to locate environment variables for substitution.
      */
@@ -35,18 +40,34 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
 
     private final OptionalLong shutdownDelay;
 
+    private final String brokerMode;
+
+    private final int brokerCapacity;
+
+    private final boolean virtualThreadsEnabled;
+
     private final String discordBotToken;
 
     private final OptionalLong discordChatChannel;
 
     private final Optional<String> discordChatTopicFormat;
 
-    private final Optional<String> discordChatWebhookUrl;
+    private final Optional<String> discordChatNameFormat;
+
+    private final Optional<List<String>> discordChatWebhookUrls;
 
     private final OptionalLong discordConsoleChannel;
 
     private final Optional<String> discordConsoleTopicFormat;
 
+    private final Optional<String> discordConsoleNameFormat;
+
+    private final Optional<String> discordConsoleDashboardFormat;
+
+    private final Optional<String> discordConsoleDashboardFile;
+
+    private final Map<String, Long> discordConsoleStreamChannels;
+
     private final boolean discordConsoleExecutionEnabled;
 
     private final boolean discordUseServerNicknames;
@@ -80,6 +101,20 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
     private final long discordBatchingTimeLimit;
 
     private final long discordTopicUpdateInterval;
+
+    private final Optional<String> discordPresenceFormat;
+
+    private final long discordStartupBufferSize;
+
+    private final long discordWebhookCoalesceWindow;
+
+    private final Optional<String> discordOutboxDirectory;
+
+    private final long discordOutboxMaxSize;
+
+    private final long discordConsoleSpillThreshold;
+
+    private final boolean discordConsoleEditInPlace;
     
     private final boolean minecraftTextColorsEnabled;
 
@@ -95,6 +130,24 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
 
     private final String minecraftLogFile;
 
+    private final String minecraftConsoleSource;
+
+    private final Optional<String> minecraftLogCheckpointFile;
+
+    private final long minecraftLogCheckpointMaxReplay;
+
+    private final String minecraftConsoleMinLevel;
+
+    private final Map<String, String> minecraftConsoleLevels;
+
+    private final Optional<List<String>> minecraftConsoleInclude;
+
+    private final Optional<List<String>> minecraftConsoleExclude;
+
+    private final long minecraftConsoleRepeatWindow;
+
+    private final Map<String, String> minecraftExtraLogFiles;
+
     /**
      * Creates a new AMCDBPropertiesConfig instance for the specified file.
      * @param propsPath The properties file to load.
@@ -107,12 +160,20 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         // initialize all the config variables
         // do this now so that we can fail immediately if the config file is wrong
         shutdownDelay = getOptionalLong("amcdb.shutdown.delay");
+        brokerMode = getOptionalChoice("amcdb.broker.mode", List.of("single", "lanes", "ringBuffer"), "single");
+        brokerCapacity = getOptionalPositiveInt("amcdb.broker.capacity", 10000);
+        virtualThreadsEnabled = getOptionalBoolean("amcdb.threads.virtual", false);
         discordBotToken = getRequiredProperty("amcdb.discord.bot.token");
         discordChatChannel = getOptionalLong("amcdb.discord.channels.chat");
         discordChatTopicFormat = getOptionalProperty("amcdb.discord.channels.chat.topicFormat");
-        discordChatWebhookUrl = getOptionalProperty("amcdb.discord.channels.chat.webhookUrl");
+        discordChatNameFormat = getOptionalProperty("amcdb.discord.channels.chat.nameFormat");
+        discordChatWebhookUrls = getOptionalList("amcdb.discord.channels.chat.webhookUrl");
         discordConsoleChannel = getOptionalLong("amcdb.discord.channels.console");
         discordConsoleTopicFormat = getOptionalProperty("amcdb.discord.channels.console.topicFormat");
+        discordConsoleNameFormat = getOptionalProperty("amcdb.discord.channels.console.nameFormat");
+        discordConsoleDashboardFormat = getOptionalProperty("amcdb.discord.channels.console.dashboardFormat");
+        discordConsoleDashboardFile = getOptionalProperty("amcdb.discord.channels.console.dashboardFile");
+        discordConsoleStreamChannels = getOptionalLongMap("amcdb.discord.channels.console.streams");
         discordConsoleExecutionEnabled = getOptionalBoolean("amcdb.discord.channels.console.enableExecution", false);
         discordUseServerNicknames = getOptionalBoolean("amcdb.discord.useServerNicknames", true);
         discordBroadcastMessageFormat = getRequiredProperty("amcdb.discord.broadcastMessageFormat");
@@ -129,8 +190,24 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         discordAlertRoleIds = getOptionalLongList("amcdb.discord.alert.roleIds");
         discordAlertCooldown = getRequiredLong("amcdb.discord.alert.cooldown");
         discordTopicUpdateInterval = getRequiredLong("amcdb.discord.topicUpdateInterval");
+        discordPresenceFormat = getOptionalProperty("amcdb.discord.presenceFormat");
         discordBatchingTimeLimit = getRequiredLong("amcdb.discord.batching.timeLimit");
+        discordStartupBufferSize = getOptionalLong("amcdb.discord.startupBufferSize", 1000);
+        discordWebhookCoalesceWindow = getOptionalLong("amcdb.discord.webhook.coalesceWindow", 500);
+        discordOutboxDirectory = getOptionalProperty("amcdb.discord.outbox.dir");
+        discordOutboxMaxSize = getOptionalLong("amcdb.discord.outbox.maxSize", 16777216);
+        discordConsoleSpillThreshold = getOptionalLong("amcdb.discord.console.spillThreshold", 20000);
+        discordConsoleEditInPlace = getOptionalBoolean("amcdb.discord.channels.console.editInPlace", false);
         minecraftLogFile = getRequiredProperty("amcdb.minecraft.logFile");
+        minecraftConsoleSource = getOptionalChoice("amcdb.minecraft.consoleSource", List.of("file", "appender"), "file");
+        minecraftLogCheckpointFile = getOptionalProperty("amcdb.minecraft.logCheckpoint.file");
+        minecraftLogCheckpointMaxReplay = getOptionalLong("amcdb.minecraft.logCheckpoint.maxReplay", 262144);
+        minecraftConsoleMinLevel = getOptionalChoice("amcdb.minecraft.console.minLevel", LOG_LEVELS, "INFO");
+        minecraftConsoleLevels = getOptionalLevelMap("amcdb.minecraft.console.levels");
+        minecraftConsoleInclude = getOptionalList("amcdb.minecraft.console.include");
+        minecraftConsoleExclude = getOptionalList("amcdb.minecraft.console.exclude");
+        minecraftConsoleRepeatWindow = getOptionalLong("amcdb.minecraft.console.repeatWindow", 60);
+        minecraftExtraLogFiles = getOptionalMap("amcdb.minecraft.extraLogFiles");
         minecraftMessageFormat = getRequiredProperty("amcdb.minecraft.messageFormat");
         minecraftMessageFilterPattern = getOptionalRegex("amcdb.minecraft.messageFilter.pattern");
         minecraftMessageFilterExclude = getOptionalBoolean("amcdb.minecraft.messageFilter.exclude", true);
@@ -199,6 +276,10 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         return getOptionalLong(key).orElse(defaultValue);
     }
 
+    public int getOptionalPositiveInt(String key, int defaultValue) {
+        return getOptionalProperty(key, v -> parsePositiveInt(v, key)).orElse(defaultValue);
+    }
+
     public Optional<Boolean> getOptionalBoolean(String key) {
         return getOptionalProperty(key, v -> parseBoolean(v, key));
     }
@@ -219,6 +300,57 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         return getOptionalProperty(key, Pattern::compile);
     }
 
+    public String getOptionalChoice(String key, List<String> choices, String defaultValue) {
+        return getOptionalProperty(key, v -> parseChoice(v, choices, key)).orElse(defaultValue);
+    }
+
+    /**
+     * Gets a comma-separated list of name:LEVEL pairs, e.g. "Server thread:WARN,MyMod:ERROR".
+     * @return The pairs in the order listed, or an empty map if the property is not set.
+     */
+    public Map<String, String> getOptionalLevelMap(String key) {
+        return getOptionalProperty(key, v -> {
+            Map<String, String> levels = new LinkedHashMap<>();
+            for(String entry : v.split(",")) {
+                int separator = entry.lastIndexOf(':');
+                if(separator <= 0) {
+                    throw new RuntimeException("The property " + key + " must contain name:LEVEL pairs; found: '" + entry + "'");
+                }
+                levels.put(entry.substring(0, separator).trim(), parseChoice(entry.substring(separator + 1).trim(), LOG_LEVELS, key));
+            }
+            return levels;
+        }).orElse(Map.of());
+    }
+
+    /**
+     * Gets a comma-separated list of name:value pairs, e.g. "debug:logs/debug.log".
+     * Names end at the first colon, so values may contain colons.
+     * @return The pairs in the order listed, or an empty map if the property is not set.
+     */
+    public Map<String, String> getOptionalMap(String key) {
+        return getOptionalProperty(key, v -> {
+            Map<String, String> map = new LinkedHashMap<>();
+            for(String entry : v.split(",")) {
+                int separator = entry.indexOf(':');
+                if(separator <= 0) {
+                    throw new RuntimeException("The property " + key + " must contain name:value pairs; found: '" + entry + "'");
+                }
+                map.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            }
+            return map;
+        }).orElse(Map.of());
+    }
+
+    /**
+     * Gets a comma-separated list of name:number pairs, e.g. "debug:123456789".
+     * @return The pairs in the order listed, or an empty map if the property is not set.
+     */
+    public Map<String, Long> getOptionalLongMap(String key) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        getOptionalMap(key).forEach((name, value) -> map.put(name, parseLong(value, key)));
+        return map;
+    }
+
     public String getPropertyOrDefault(String key, String defaultValue) {
         return properties.getProperty(key, defaultValue);
     }
@@ -238,6 +370,16 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         throw new RuntimeException("The property " + propKey + " can only contain 'true' or 'false'; found: '" + value + "'");
     }
 
+    private String parseChoice(String value, List<String> choices, String propKey) {
+        for(String choice : choices) {
+            if(value.equalsIgnoreCase(choice)) {
+                return choice;
+            }
+        }
+
+        throw new RuntimeException("The property " + propKey + " can only contain one of " + String.join(", ", choices) + "; found: '" + value + "'");
+    }
+
     private long parseLong(String value, String propKey) {
         try {
             return Long.parseLong(value, 10);
@@ -246,6 +388,14 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         }
     }
 
+    private int parsePositiveInt(String value, String propKey) {
+        long number = parseLong(value, propKey);
+        if(number < 1 || number > Integer.MAX_VALUE) {
+            throw new RuntimeException("The property " + propKey + " must be between 1 and " + Integer.MAX_VALUE + "; found: '" + value + "'");
+        }
+        return (int) number;
+    }
+
     private <T> T getRequiredProperty(String key, Function<String, T> parser) {
         String value = getInterpolatedProperty(key);
         if(value == null) {
@@ -303,6 +453,21 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         return shutdownDelay;
     }
 
+    @Override
+    public String getBrokerMode() {
+        return brokerMode;
+    }
+
+    @Override
+    public int getBrokerCapacity() {
+        return brokerCapacity;
+    }
+
+    @Override
+    public boolean getVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
     @Override
     public String getDiscordBotToken() {
         return discordBotToken;
@@ -319,7 +484,12 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
     }
 
     @Override
-    public Optional<String> getDiscordChatWebhookUrl() { return discordChatWebhookUrl; }
+    public Optional<String> getDiscordChatNameFormat() {
+        return discordChatNameFormat;
+    }
+
+    @Override
+    public Optional<List<String>> getDiscordChatWebhookUrls() { return discordChatWebhookUrls; }
 
     @Override
     public OptionalLong getDiscordConsoleChannel() {
@@ -331,6 +501,24 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         return discordConsoleTopicFormat;
     }
 
+    @Override
+    public Optional<String> getDiscordConsoleNameFormat() {
+        return discordConsoleNameFormat;
+    }
+
+    @Override
+    public Optional<String> getDiscordConsoleDashboardFormat() {
+        return discordConsoleDashboardFormat;
+    }
+
+    @Override
+    public Optional<String> getDiscordConsoleDashboardFile() {
+        return discordConsoleDashboardFile;
+    }
+
+    @Override
+    public Map<String, Long> getDiscordConsoleStreamChannels() { return discordConsoleStreamChannels; }
+
     @Override
     public boolean getDiscordConsoleExecutionEnabled() {
         return discordConsoleExecutionEnabled;
@@ -394,6 +582,41 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
         return discordTopicUpdateInterval;
     }
 
+    @Override
+    public Optional<String> getDiscordPresenceFormat() {
+        return discordPresenceFormat;
+    }
+
+    @Override
+    public long getDiscordStartupBufferSize() {
+        return discordStartupBufferSize;
+    }
+
+    @Override
+    public long getDiscordWebhookCoalesceWindow() {
+        return discordWebhookCoalesceWindow;
+    }
+
+    @Override
+    public Optional<String> getDiscordOutboxDirectory() {
+        return discordOutboxDirectory;
+    }
+
+    @Override
+    public long getDiscordOutboxMaxSize() {
+        return discordOutboxMaxSize;
+    }
+
+    @Override
+    public long getDiscordConsoleSpillThreshold() {
+        return discordConsoleSpillThreshold;
+    }
+
+    @Override
+    public boolean getDiscordConsoleEditInPlace() {
+        return discordConsoleEditInPlace;
+    }
+
     @Override
     public boolean getMinecraftTextColorsEnabled() {
         return minecraftTextColorsEnabled;
@@ -420,4 +643,37 @@ public class AMCDBPropertiesConfig implements AMCDBConfig, DiscordConfig, Minecr
     public String getMinecraftLogFile() {
         return minecraftLogFile;
     }
+
+    @Override
+    public String getMinecraftConsoleSource() {
+        return minecraftConsoleSource;
+    }
+
+    @Override
+    public Optional<String> getMinecraftLogCheckpointFile() { return minecraftLogCheckpointFile; }
+
+    @Override
+    public long getMinecraftLogCheckpointMaxReplay() { return minecraftLogCheckpointMaxReplay; }
+
+    @Override
+    public String getMinecraftConsoleMinLevel() {
+        return minecraftConsoleMinLevel;
+    }
+
+    @Override
+    public Map<String, String> getMinecraftConsoleLevels() {
+        return minecraftConsoleLevels;
+    }
+
+    @Override
+    public Optional<List<String>> getMinecraftConsoleInclude() { return minecraftConsoleInclude; }
+
+    @Override
+    public Optional<List<String>> getMinecraftConsoleExclude() { return minecraftConsoleExclude; }
+
+    @Override
+    public long getMinecraftConsoleRepeatWindow() { return minecraftConsoleRepeatWindow; }
+
+    @Override
+    public Map<String, String> getMinecraftExtraLogFiles() { return minecraftExtraLogFiles; }
 }
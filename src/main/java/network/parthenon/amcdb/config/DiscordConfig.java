@@ -1,6 +1,7 @@
 package network.parthenon.amcdb.config;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.regex.Pattern;
@@ -13,12 +14,22 @@ public interface DiscordConfig {
 
     Optional<String> getDiscordChatTopicFormat();
 
-    Optional<String> getDiscordChatWebhookUrl();
+    Optional<String> getDiscordChatNameFormat();
+
+    Optional<List<String>> getDiscordChatWebhookUrls();
 
     OptionalLong getDiscordConsoleChannel();
 
     Optional<String> getDiscordConsoleTopicFormat();
 
+    Optional<String> getDiscordConsoleNameFormat();
+
+    Optional<String> getDiscordConsoleDashboardFormat();
+
+    Optional<String> getDiscordConsoleDashboardFile();
+
+    Map<String, Long> getDiscordConsoleStreamChannels();
+
     boolean getDiscordConsoleExecutionEnabled();
 
     boolean getDiscordUseServerNicknames();
@@ -53,4 +64,18 @@ public interface DiscordConfig {
 
     long getDiscordTopicUpdateInterval();
 
+    Optional<String> getDiscordPresenceFormat();
+
+    long getDiscordStartupBufferSize();
+
+    long getDiscordWebhookCoalesceWindow();
+
+    Optional<String> getDiscordOutboxDirectory();
+
+    long getDiscordOutboxMaxSize();
+
+    long getDiscordConsoleSpillThreshold();
+
+    boolean getDiscordConsoleEditInPlace();
+
 }
@@ -1,6 +1,7 @@
 package network.parthenon.amcdb.config;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -19,4 +20,22 @@ public interface MinecraftConfig {
     String getMinecraftAvatarApiUrl();
 
     String getMinecraftLogFile();
+
+    String getMinecraftConsoleSource();
+
+    Optional<String> getMinecraftLogCheckpointFile();
+
+    long getMinecraftLogCheckpointMaxReplay();
+
+    String getMinecraftConsoleMinLevel();
+
+    Map<String, String> getMinecraftConsoleLevels();
+
+    Optional<List<String>> getMinecraftConsoleInclude();
+
+    Optional<List<String>> getMinecraftConsoleExclude();
+
+    long getMinecraftConsoleRepeatWindow();
+
+    Map<String, String> getMinecraftExtraLogFiles();
 }
@@ -1,26 +1,134 @@
 package network.parthenon.amcdb.discord;
 
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.FileUpload;
 import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.messaging.MessagePriority;
 import network.parthenon.amcdb.util.IntervalRunnable;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Sends messages to a Discord channel in batches of up to {@link DiscordService#DISCORD_MESSAGE_CHAR_LIMIT} characters.
+ *
+ * Messages are sent as soon as they are enqueued while the channel's rate limit
+ * allows (see {@link RateLimitTracker}). Once the channel is nearly out of requests,
+ * messages are held until its bucket resets and then sent in as few batches as
+ * possible, so each request carries more when requests are scarce. Held messages
+ * are also checked at the interval passed to {@link #start(long)}.
+ *
+ * A {@link MessagePriority#LOW} sender hands JDA one batch at a time, and only
+ * while no higher priority messages are outstanding or once it has waited for the
+ * gate's maximum wait (see {@link SendPriorityGate}).
+ *
+ * If the sender has a {@link MessageJournal}, each message is journaled when it is
+ * enqueued and acknowledged once Discord confirms the batch containing it. Messages
+ * not confirmed before a restart, or not sent because the connection was lost, are
+ * read back from the journal and sent once the connection is available. A low
+ * priority sender resends only the most recent {@link #MAX_REPLAY_MESSAGES} and
+ * summarizes the rest.
+ *
+ * When more than the spill threshold of text is waiting (e.g. after an outage),
+ * it is sent as a single file attachment rather than as many messages, gzipped if
+ * it is large. Batching as messages resumes once the queue has drained.
+ *
+ * In edit-in-place mode, a low priority sender appends new lines to its last
+ * message by editing it, for as long as that message is the latest in the channel
+ * and has room, and only then starts a new message. Lines that arrive while an
+ * edit is in flight are combined into the next edit.
  */
 class BatchingSender extends IntervalRunnable {
 
+    /**
+     * Maximum number of messages a low priority sender resends from its journal.
+     */
+    static final int MAX_REPLAY_MESSAGES = 500;
+
+    /**
+     * Maximum number of characters sent in one attachment.
+     */
+    static final long MAX_ATTACHMENT_CHARS = 4_000_000;
+
+    /**
+     * Number of characters above which an attachment is gzipped.
+     */
+    static final long COMPRESS_ABOVE_CHARS = 1 << 20;
+
+    private static final DateTimeFormatter ATTACHMENT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
     /**
      * JDA TextChannel on which messages will be sent.
      */
     private TextChannel channel;
 
+    /**
+     * ID of {@link #channel}.
+     */
+    private final long channelId;
+
     /**
      * Queue of messages ready to be sent. Messages on this queue must be
      * less than {@link DiscordService#DISCORD_MESSAGE_CHAR_LIMIT} characters.
      */
-    private LinkedTransferQueue<String> messageQueue;
+    private LinkedTransferQueue<MessageJournal.Entry> messageQueue;
+
+    /**
+     * Journal holding messages until Discord confirms them, or null if messages
+     * are held only in memory.
+     */
+    private final MessageJournal journal;
+
+    /**
+     * Whether {@link #messageQueue} must be reloaded from the journal before sending.
+     */
+    private volatile boolean replayPending;
+
+    /**
+     * Whether a journal error has been logged, so that it is only logged once.
+     */
+    private volatile boolean journalFailed = false;
+
+    /**
+     * Number of batches handed to JDA that have not yet completed.
+     */
+    private final AtomicInteger batchesInFlight = new AtomicInteger();
+
+    /**
+     * Number of characters waiting above which they are sent as an attachment,
+     * or 0 to always send messages.
+     */
+    private final long spillThreshold;
+
+    /**
+     * Whether new lines are appended to the last message by editing it.
+     */
+    private final boolean editInPlace;
+
+    /**
+     * ID of the last message sent, to which lines may be appended; 0 if there is none.
+     */
+    private volatile long tailMessageId = 0;
+
+    /**
+     * Content of {@link #tailMessageId}.
+     */
+    private volatile String tailContent;
 
     /**
      * Whether to place messages on the JDA queue when the connection is unavailable.
@@ -33,17 +141,82 @@ class BatchingSender extends IntervalRunnable {
      */
     private boolean jdaDisconnected = false;
 
+    /**
+     * Priority of messages sent by this sender.
+     */
+    private final MessagePriority priority;
+
+    /**
+     * Gate shared with the other senders.
+     */
+    private final SendPriorityGate gate;
+
+    /**
+     * Whether a low-priority batch has been handed to JDA and has not yet completed.
+     */
+    private volatile boolean lowInFlight = false;
+
+    /**
+     * Time (epoch milliseconds) since which a low-priority batch has been waiting
+     * for higher priority traffic, or 0 if it is not waiting.
+     */
+    private long lowWaitingSince = 0;
+
+    /**
+     * Number of messages skipped while the connection was unavailable, which are
+     * reported when it is restored.
+     */
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * Rate limit budget shared with the other senders.
+     */
+    private final RateLimitTracker rateLimits;
+
+    /**
+     * Whether a batching round has been requested and has not yet started.
+     */
+    private final AtomicBoolean roundQueued = new AtomicBoolean();
+
+    /**
+     * Whether a batching round has been scheduled for when the rate limit resets.
+     */
+    private final AtomicBoolean resetScheduled = new AtomicBoolean();
+
     /**
      * Creates a BatchingSender for the specified channel.
      * @param channel JDA TextChannel on which messages will be sent.
      * @param queueIfUnavailable Whether to place messages on the JDA queue
      *                           when the connection is unavailable.
+     * @param priority           Priority of messages sent by this sender.
+     * @param gate               Gate shared with the other senders.
+     * @param rateLimits         Rate limit budget shared with the other senders.
+     * @param journal            Journal holding messages until they are sent, or null.
+     * @param spillThreshold     Number of characters waiting above which they are sent
+     *                           as an attachment, or 0 to always send messages.
+     * @param editInPlace        Whether to append lines to the last message by editing it.
+     *                           Only applies to low priority senders.
      */
-    public BatchingSender(TextChannel channel, boolean queueIfUnavailable) {
+    public BatchingSender(TextChannel channel, boolean queueIfUnavailable, MessagePriority priority, SendPriorityGate gate,
+                          RateLimitTracker rateLimits, MessageJournal journal, long spillThreshold, boolean editInPlace) {
         super("discord-%s-sender".formatted(channel.getName()));
         this.channel = channel;
+        this.channelId = channel.getIdLong();
+        this.rateLimits = rateLimits;
         this.queueIfUnavailable = queueIfUnavailable;
+        this.priority = priority;
+        this.gate = gate;
         messageQueue = new LinkedTransferQueue<>();
+        this.journal = journal;
+        this.spillThreshold = spillThreshold;
+        // low priority senders have one request in flight at a time, so there is never more than one edit
+        this.editInPlace = editInPlace && priority == MessagePriority.LOW;
+        // send whatever was left over from the last run
+        this.replayPending = journal != null;
+
+        if(priority == MessagePriority.LOW) {
+            gate.onHighIdle(this::resume);
+        }
     }
 
     /**
@@ -53,26 +226,80 @@ class BatchingSender extends IntervalRunnable {
      */
     @Override
     public void run() {
+        roundQueued.set(false);
+        if(replayPending && batchesInFlight.get() == 0 && channel.getJDA().getStatus().isInit()) {
+            replay();
+        }
         while(!messageQueue.isEmpty()) {
-            StringBuilder messageBuilder = new StringBuilder(DiscordService.DISCORD_MESSAGE_CHAR_LIMIT);
-
-            while(true) {
-                String message = messageQueue.peek();
-                if(message == null) {
-                    // reached end of queue
-                    break;
+            if(priority == MessagePriority.LOW) {
+                if(lowInFlight) {
+                    // resume() is called when the batch completes
+                    return;
                 }
-
-                boolean firstMessage = messageBuilder.length() == 0;
-                // check whether we can fit the next message into the batch
-                if(!firstMessage && messageBuilder.length() + message.length() + 1 > DiscordService.DISCORD_MESSAGE_CHAR_LIMIT) {
-                    break;
+                long now = System.currentTimeMillis();
+                if(lowWaitingSince == 0) {
+                    lowWaitingSince = now;
                 }
+                long waitMillis = gate.getLowWaitMillis(lowWaitingSince, now);
+                if(waitMillis > 0) {
+                    // yield to higher priority traffic; resume() is called when it completes
+                    resumeAfter(waitMillis);
+                    return;
+                }
+                lowWaitingSince = 0;
+            }
+
+            long holdMillis = rateLimits.getHoldMillis(channelId, System.currentTimeMillis());
+            if(holdMillis > 0) {
+                // keep batching until the bucket resets
+                resumeAfter(holdMillis);
+                return;
+            }
 
-                if(!firstMessage) {
-                    messageBuilder.append("\n");
+            RestAction<Message> request;
+            // full content of the resulting message, and the text appended if it is an edit
+            String content = null;
+            String appended = null;
+            int batchCount = 0;
+            long firstSequence = 0;
+            long lastSequence = 0;
+            if(spillThreshold > 0 && pendingChars(spillThreshold) > spillThreshold) {
+                // too much to send as messages; send it all in one upload instead
+                Attachment attachment = drainToAttachment();
+                request = channel.sendMessage(attachment.summary()).addFiles(attachment.upload());
+                batchCount = attachment.count();
+                firstSequence = attachment.firstSequence();
+                lastSequence = attachment.lastSequence();
+            }
+            else {
+                // append to the last message while it is still the latest in the channel and has room
+                boolean appendToTail = editInPlace && tailMessageId != 0
+                        && channel.getLatestMessageIdLong() == tailMessageId
+                        && tailContent.length() + messageQueue.peek().text().length() + 1 <= DiscordService.DISCORD_MESSAGE_CHAR_LIMIT;
+                int capacity = appendToTail ?
+                        DiscordService.DISCORD_MESSAGE_CHAR_LIMIT - tailContent.length() - 1 :
+                        DiscordService.DISCORD_MESSAGE_CHAR_LIMIT;
+                MessagePacker packer = new MessagePacker(capacity);
+
+                MessageJournal.Entry entry;
+                // take messages while they fit into the batch
+                while((entry = messageQueue.peek()) != null && packer.fits(entry.text())) {
+                    packer.append(messageQueue.poll().text());
+                    if(firstSequence == 0) {
+                        firstSequence = entry.sequence();
+                    }
+                    lastSequence = Math.max(lastSequence, entry.sequence());
+                    batchCount++;
+                }
+                if(appendToTail) {
+                    appended = packer.take();
+                    content = tailContent + "\n" + appended;
+                    request = channel.editMessageById(tailMessageId, content);
+                }
+                else {
+                    content = packer.take();
+                    request = channel.sendMessage(content);
                 }
-                messageBuilder.append(messageQueue.poll());
             }
 
             if(!channel.getJDA().getStatus().isInit()) {
@@ -82,28 +309,84 @@ class BatchingSender extends IntervalRunnable {
                     // if JDA says the connection is unavailable and we're configured to skip queueing, do so
                     // note that we don't evaluate jdaDisconnected here -- otherwise we will never retry!
                     // we only make a best effort to skip queueing messages if the connection is unavailable :/
+                    // (high priority senders always queue, so this is never a high priority batch)
+                    if(journal != null) {
+                        // the batch is still in the journal; send it once the connection returns
+                        replayPending = true;
+                    }
+                    else {
+                        skippedCount.addAndGet(batchCount);
+                        AMCDB.LOGGER.debug("Discord is unavailable; skipped %d message(s) for channel %d"
+                                .formatted(batchCount, channelId));
+                    }
                     return;
                 }
             }
-            channel.sendMessage(messageBuilder).queue((m) -> {
-                // connection was previously disconnected; post a message
-                if(jdaDisconnected) {
-                    this.enqueueMessage("Discord connection was lost and has been restored. Messages may have been skipped; check logs.");
-                }
-                // we have a successful post, mark the connection good
-                jdaDisconnected = false;
-            }, (e) -> {
-                if(!jdaDisconnected) {
-                    // only log a message if the connection hasn't already been marked broken
-                    // this stops redundant log messages from causing further JDA errors
-                    AMCDB.LOGGER.error("Failed to send message to Discord!", e);
-                }
-                // we've received an error, mark the connection bad
-                jdaDisconnected = true;
-            });
+            if(priority == MessagePriority.LOW) {
+                lowInFlight = true;
+            }
+            batchesInFlight.incrementAndGet();
+            send(request, content, appended, batchCount, firstSequence, lastSequence);
         }
     }
 
+    /**
+     * Hands a request to JDA and records its outcome.
+     * @param request      The request.
+     * @param content      Full content of the resulting message, or null if later
+     *                     messages should not be appended to it.
+     * @param appended     If the request edits the last message, the text it appends; otherwise null.
+     * @param count         Number of queued messages in the request.
+     * @param firstSequence Journal sequence number of the first journaled message in the request.
+     * @param lastSequence  Journal sequence number of the last journaled message in the request.
+     */
+    private void send(RestAction<Message> request, String content, String appended, int count,
+                      long firstSequence, long lastSequence) {
+        rateLimits.beginRequest(channelId);
+        request.queue((m) -> {
+            rateLimits.endRequest(channelId);
+            if(editInPlace) {
+                tailMessageId = content == null ? 0 : m.getIdLong();
+                tailContent = content;
+            }
+            acknowledge(firstSequence, lastSequence);
+            completeBatch(count);
+            // connection was previously disconnected; post a message
+            if(jdaDisconnected) {
+                long skipped = skippedCount.getAndSet(0);
+                this.enqueueMessage(skipped > 0 ?
+                        "Discord connection was lost and has been restored. %d message(s) were skipped; check logs.".formatted(skipped) :
+                        "Discord connection was lost and has been restored. Messages may have been skipped; check logs.");
+            }
+            // we have a successful post, mark the connection good
+            jdaDisconnected = false;
+        }, (e) -> {
+            rateLimits.endRequest(channelId);
+            if(appended != null && e instanceof ErrorResponseException) {
+                // the last message can no longer be edited (e.g. it was deleted); post the lines as a new message
+                tailMessageId = 0;
+                send(channel.sendMessage(appended), appended, null, count, firstSequence, lastSequence);
+                return;
+            }
+            if(e instanceof ErrorResponseException) {
+                // Discord rejected the batch; sending it again would fail the same way
+                acknowledge(firstSequence, lastSequence);
+            }
+            else if(journal != null) {
+                // the request did not reach Discord; send the batch again
+                replayPending = true;
+            }
+            completeBatch(count);
+            if(!jdaDisconnected) {
+                // only log a message if the connection hasn't already been marked broken
+                // this stops redundant log messages from causing further JDA errors
+                AMCDB.LOGGER.error("Failed to send message to Discord!", e);
+            }
+            // we've received an error, mark the connection bad
+            jdaDisconnected = true;
+        });
+    }
+
     /**
      * Enqueues the provided message to be sent with the next batch.
      * Splits messages over the maximum length as necessary.
@@ -111,6 +394,223 @@ class BatchingSender extends IntervalRunnable {
      * @param message The message to send.
      */
     public void enqueueMessage(String message) {
-        messageQueue.add(message);
+        if(priority == MessagePriority.HIGH) {
+            gate.beginHigh(1);
+        }
+        synchronized(messageQueue) {
+            messageQueue.add(new MessageJournal.Entry(appendToJournal(message), message));
+        }
+        // send right away if the rate limit allows; otherwise run() holds the message
+        resume();
+    }
+
+    /**
+     * Records that a batch handed to JDA has completed (successfully or not).
+     * @param count Number of messages in the batch.
+     */
+    private void completeBatch(int count) {
+        batchesInFlight.decrementAndGet();
+        if(priority == MessagePriority.HIGH) {
+            gate.endHigh(count);
+        }
+        else if(priority == MessagePriority.LOW) {
+            lowInFlight = false;
+            resume();
+        }
+    }
+
+    /**
+     * Counts the characters waiting to be sent, up to slightly more than the limit.
+     */
+    private long pendingChars(long limit) {
+        long chars = 0;
+        for(MessageJournal.Entry entry : messageQueue) {
+            chars += entry.text().length() + 1;
+            if(chars > limit) {
+                break;
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Removes waiting messages from the queue, up to {@link #MAX_ATTACHMENT_CHARS},
+     * and writes them to a log file attachment.
+     */
+    private Attachment drainToAttachment() {
+        boolean compress = pendingChars(COMPRESS_ABOVE_CHARS) > COMPRESS_ABOVE_CHARS;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int count = 0;
+        long lines = 0;
+        long chars = 0;
+        long firstSequence = 0;
+        long lastSequence = 0;
+        try(Writer writer = new OutputStreamWriter(compress ? new GZIPOutputStream(bytes) : bytes, StandardCharsets.UTF_8)) {
+            MessageJournal.Entry entry;
+            while((entry = messageQueue.peek()) != null
+                    && (count == 0 || chars + entry.text().length() + 1 <= MAX_ATTACHMENT_CHARS)) {
+                messageQueue.poll();
+                writer.write(entry.text());
+                writer.write('\n');
+                chars += entry.text().length() + 1;
+                lines += entry.text().chars().filter(c -> c == '\n').count() + 1;
+                if(firstSequence == 0) {
+                    firstSequence = entry.sequence();
+                }
+                lastSequence = Math.max(lastSequence, entry.sequence());
+                count++;
+            }
+        }
+        catch(IOException e) {
+            // writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+
+        String name = "%s-%s.log%s".formatted(channel.getName(), LocalDateTime.now().format(ATTACHMENT_TIMESTAMP), compress ? ".gz" : "");
+        return new Attachment(FileUpload.fromData(bytes.toByteArray(), name),
+                "%d lines of backlog attached.".formatted(lines), count, firstSequence, lastSequence);
+    }
+
+    /**
+     * Waiting messages written to a file.
+     * @param upload       The file.
+     * @param summary      Message sent with the file.
+     * @param count         Number of queued messages in the file.
+     * @param firstSequence Journal sequence number of the first journaled message in the file.
+     * @param lastSequence  Journal sequence number of the last journaled message in the file.
+     */
+    private record Attachment(FileUpload upload, String summary, int count, long firstSequence, long lastSequence) {
+    }
+
+    /**
+     * Appends a message to the journal, if there is one.
+     * @return The message's sequence number, or 0 if it was not journaled.
+     */
+    private long appendToJournal(String message) {
+        if(journal == null) {
+            return 0;
+        }
+        try {
+            return journal.append(message);
+        }
+        catch(IOException e) {
+            if(!journalFailed) {
+                // log once; each error would otherwise be journaled and fail again
+                journalFailed = true;
+                AMCDB.LOGGER.error("Failed to write to the Discord outbox for channel %d".formatted(channelId), e);
+            }
+            return 0;
+        }
+        catch(IllegalArgumentException e) {
+            // too long for the journal; it is only held in memory
+            AMCDB.LOGGER.debug("Not writing a %d character message to the Discord outbox for channel %d"
+                    .formatted(message.length(), channelId));
+            return 0;
+        }
+    }
+
+    /**
+     * Records that Discord has confirmed the messages in the specified range.
+     */
+    private void acknowledge(long firstSequence, long lastSequence) {
+        if(journal != null && lastSequence > 0) {
+            journal.ack(firstSequence, lastSequence);
+        }
+    }
+
+    /**
+     * Replaces the queue with the unacknowledged messages in the journal, keeping
+     * the queued messages that were not journaled in their places.
+     * Must only be called while no batches are in flight.
+     */
+    private void replay() {
+        // read under the queue's lock, so messages enqueued meanwhile are either read back or kept
+        synchronized(messageQueue) {
+            MessageJournal.Replay replay;
+            try {
+                replay = journal.readUnacked(priority == MessagePriority.LOW ? MAX_REPLAY_MESSAGES : Integer.MAX_VALUE);
+            }
+            catch(IOException e) {
+                AMCDB.LOGGER.error("Failed to read the Discord outbox for channel %d".formatted(channelId), e);
+                replayPending = false;
+                return;
+            }
+            if(replay.skipped() > 0) {
+                // older messages are summarized rather than sent
+                journal.ack(0, replay.entries().get(0).sequence() - 1);
+            }
+            long skipped = replay.skipped() + journal.takeDroppedCount();
+            int previousCount = messageQueue.size();
+
+            // messages that were not journaled are only in the queue; keep each ahead of
+            // the journaled message that followed it
+            ArrayDeque<MessageJournal.Entry> unjournaled = new ArrayDeque<>();
+            ArrayDeque<Long> followingSequences = new ArrayDeque<>();
+            int unanchored = 0;
+            for(MessageJournal.Entry entry : messageQueue) {
+                if(entry.sequence() == 0) {
+                    unjournaled.add(entry);
+                    unanchored++;
+                    continue;
+                }
+                for(; unanchored > 0; unanchored--) {
+                    followingSequences.add(entry.sequence());
+                }
+            }
+            for(; unanchored > 0; unanchored--) {
+                followingSequences.add(Long.MAX_VALUE);
+            }
+
+            messageQueue.clear();
+            if(skipped > 0) {
+                messageQueue.add(new MessageJournal.Entry(0,
+                        "%d earlier message(s) were not sent while Discord was unavailable.".formatted(skipped)));
+            }
+            for(MessageJournal.Entry entry : replay.entries()) {
+                while(!followingSequences.isEmpty() && followingSequences.peek() <= entry.sequence()) {
+                    followingSequences.poll();
+                    messageQueue.add(unjournaled.poll());
+                }
+                messageQueue.add(entry);
+            }
+            messageQueue.addAll(unjournaled);
+            if(priority == MessagePriority.HIGH) {
+                int added = messageQueue.size() - previousCount;
+                if(added > 0) {
+                    gate.beginHigh(added);
+                }
+                else if(added < 0) {
+                    gate.endHigh(-added);
+                }
+            }
+            replayPending = false;
+        }
+    }
+
+    /**
+     * Schedules an immediate batching round if messages are waiting,
+     * rather than waiting for the next interval.
+     */
+    private void resume() {
+        if(executorService != null && !messageQueue.isEmpty() && roundQueued.compareAndSet(false, true)) {
+            try {
+                executorService.execute(this);
+            }
+            catch(RejectedExecutionException e) {
+                // shutting down
+            }
+        }
+    }
+
+    /**
+     * Schedules a batching round once the specified time has elapsed.
+     */
+    private void resumeAfter(long delayMillis) {
+        if(executorService != null && resetScheduled.compareAndSet(false, true)) {
+            executorService.schedule(() -> {
+                resetScheduled.set(false);
+                resume();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
     }
 }
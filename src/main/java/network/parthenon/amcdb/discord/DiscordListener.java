@@ -11,8 +11,11 @@ import network.parthenon.amcdb.messaging.message.BroadcastMessage;
 import network.parthenon.amcdb.messaging.message.ChatMessage;
 import network.parthenon.amcdb.messaging.message.ConsoleMessage;
 import network.parthenon.amcdb.messaging.message.InternalMessage;
+import network.parthenon.amcdb.util.ThreadSupport;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DiscordListener extends ListenerAdapter {
 
@@ -24,11 +27,41 @@ public class DiscordListener extends ListenerAdapter {
 
     private final MessageBroker broker;
 
+    /**
+     * Executor on which received messages are processed, or null to process
+     * them on the JDA event thread.
+     */
+    private final ExecutorService messageExecutor;
+
     public DiscordListener(DiscordService discordService, DiscordConfig config, MessageBroker broker) {
+        // Formatting a message waits on member lookups for any mentions. With virtual
+        // threads, do that waiting on a virtual thread instead of the JDA event thread.
+        // A single worker keeps messages in the order they were received.
+        this(discordService, config, broker, ThreadSupport.isUsingVirtualThreads() ?
+                Executors.newSingleThreadExecutor(ThreadSupport.namedFactory("AMCDB Discord Listener")) :
+                null);
+    }
+
+    /**
+     * Creates a listener that processes received messages on the provided executor.
+     * @param messageExecutor Executor on which received messages are processed, in order;
+     *                        null to process them on the JDA event thread.
+     */
+    DiscordListener(DiscordService discordService, DiscordConfig config, MessageBroker broker, ExecutorService messageExecutor) {
         this.discordService = discordService;
         this.config = config;
         this.formatter = new DiscordFormatter(discordService, config);
         this.broker = broker;
+        this.messageExecutor = messageExecutor;
+    }
+
+    /**
+     * Stops processing received messages. Messages already received are still processed.
+     */
+    public void shutdown() {
+        if(messageExecutor != null) {
+            messageExecutor.shutdown();
+        }
     }
 
     /**
@@ -37,6 +70,19 @@ public class DiscordListener extends ListenerAdapter {
      */
     @Override
     public void onMessageReceived(MessageReceivedEvent e) {
+        if(messageExecutor != null) {
+            messageExecutor.execute(() -> handleMessageReceived(e));
+        }
+        else {
+            handleMessageReceived(e);
+        }
+    }
+
+    /**
+     * Processes a received Discord message.
+     * @param e The message received event.
+     */
+    private void handleMessageReceived(MessageReceivedEvent e) {
         // Ignore messages from self or Discord system
         if(discordService.isSelf(e.getAuthor().getIdLong()) || e.getAuthor().isSystem()) {
             return;
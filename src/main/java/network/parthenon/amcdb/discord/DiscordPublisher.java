@@ -5,12 +5,15 @@ import network.parthenon.amcdb.config.DiscordConfig;
 import network.parthenon.amcdb.messaging.component.EntityReference;
 import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 import network.parthenon.amcdb.messaging.message.*;
-import network.parthenon.amcdb.messaging.MessageHandler;
+import network.parthenon.amcdb.messaging.BatchMessageHandler;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 
-public class DiscordPublisher implements MessageHandler {
+public class DiscordPublisher implements BatchMessageHandler {
 
     private final DiscordService discordService;
 
@@ -28,6 +31,26 @@ public class DiscordPublisher implements MessageHandler {
         this.formatter = new DiscordFormatter(discordService, config);
     }
 
+    @Override
+    public void handleMessages(List<InternalMessage> messages) {
+        List<ConsoleMessage> consoleRun = new ArrayList<>();
+        for(InternalMessage message : messages) {
+            if(message instanceof ConsoleMessage) {
+                // collect consecutive console messages so they can be packed together
+                consoleRun.add((ConsoleMessage) message);
+                continue;
+            }
+            if(!consoleRun.isEmpty()) {
+                publishConsoleMessages(consoleRun);
+                consoleRun.clear();
+            }
+            handleMessage(message);
+        }
+        if(!consoleRun.isEmpty()) {
+            publishConsoleMessages(consoleRun);
+        }
+    }
+
     @Override
     public void handleMessage(InternalMessage message) {
 
@@ -54,17 +77,67 @@ public class DiscordPublisher implements MessageHandler {
 
             sendChatMessage(messageParts, null, null);
         }
-        else if(message instanceof ConsoleMessage && discordService.isConsoleChannelEnabled()) {
-            formatter.toDiscordRawContent(
-                            message.getComponents().stream(),
-                            DiscordService.DISCORD_MESSAGE_CHAR_LIMIT)
-                    .forEach(discordService::sendToConsoleChannel);
+        else if(message instanceof ConsoleMessage) {
+            publishConsoleMessages(List.of((ConsoleMessage) message));
         }
         else if(message instanceof ServerLifecycleMessage && discordService.isChatChannelEnabled()) {
             publishLifecycleMessage((ServerLifecycleMessage) message);
         }
     }
 
+    /**
+     * Publishes console messages to the console channel (or, for additional log
+     * streams, the stream's channel), packing as many lines as possible into each
+     * Discord message.
+     * @param messages The console messages to publish, in order.
+     */
+    private void publishConsoleMessages(List<ConsoleMessage> messages) {
+        MessagePacker packer = new MessagePacker(DiscordService.DISCORD_MESSAGE_CHAR_LIMIT);
+        String packedStream = null;
+        for(ConsoleMessage message : messages) {
+            String stream = message.getStream();
+            if(!isConsoleEnabled(stream)) {
+                continue;
+            }
+            // lines from different streams may go to different channels
+            if(!packer.isEmpty() && !Objects.equals(stream, packedStream)) {
+                sendToConsole(packedStream, packer.take());
+            }
+            packedStream = stream;
+
+            List<String> parts = formatter.toDiscordRawContent(
+                    message.getComponents().stream(),
+                    DiscordService.DISCORD_MESSAGE_CHAR_LIMIT);
+            for(int i = 0; i < parts.size(); i++) {
+                String part = parts.get(i);
+                // a line that was split across parts continues in a new Discord message
+                if(!packer.isEmpty() && (i > 0 || !packer.fits(part))) {
+                    sendToConsole(packedStream, packer.take());
+                }
+                packer.append(part);
+            }
+        }
+
+        if(!packer.isEmpty()) {
+            sendToConsole(packedStream, packer.take());
+        }
+    }
+
+    private boolean isConsoleEnabled(String stream) {
+        return stream == null ?
+                discordService.isConsoleChannelEnabled() :
+                discordService.isConsoleStreamEnabled(stream);
+    }
+
+    private void sendToConsole(String stream, String message) {
+        if(stream == null) {
+            discordService.sendToConsoleChannel(message);
+        }
+        else {
+            discordService.sendToConsoleStream(stream, message);
+        }
+    }
+
     /**
      * Publishes a server lifecycle message according to the applicable configuration.
      */
@@ -93,6 +166,11 @@ public class DiscordPublisher implements MessageHandler {
         return DiscordService.DISCORD_SOURCE_ID;
     }
 
+    @Override
+    public Set<Class<? extends InternalMessage>> getAcceptedMessageTypes() {
+        return Set.of(ChatMessage.class, BroadcastMessage.class, ConsoleMessage.class, ServerLifecycleMessage.class);
+    }
+
     /**
      * Sends a message to the chat channel using the webhook if enabled or the bot otherwise.
      * @param messageParts The message part(s) to send.
@@ -3,11 +3,14 @@ package network.parthenon.amcdb.discord;
 import network.parthenon.amcdb.AMCDB;
 import network.parthenon.amcdb.config.DiscordConfig;
 import network.parthenon.amcdb.messaging.MessageHandler;
+import network.parthenon.amcdb.messaging.component.DateComponent;
+import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 import network.parthenon.amcdb.messaging.message.InternalMessage;
 import network.parthenon.amcdb.messaging.message.ServerStatusMessage;
 
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class DiscordServerStatusPublisher implements MessageHandler {
     private final DiscordService discordService;
@@ -16,8 +19,6 @@ public class DiscordServerStatusPublisher implements MessageHandler {
 
     private final DiscordFormatter formatter;
 
-    private long lastTopicUpdateTime = 0;
-
     private long lastMsptAlertTime = 0;
 
     private double lastMsptValue = 0;
@@ -39,30 +40,45 @@ public class DiscordServerStatusPublisher implements MessageHandler {
 
         long now = System.currentTimeMillis();
 
-        if(now - lastTopicUpdateTime > config.getDiscordTopicUpdateInterval() * 1000) {
-            lastTopicUpdateTime = now;
-
-            if(config.getDiscordChatTopicFormat().isPresent()) {
-                List<String> topicChunks = formatter.toDiscordRawContent(
-                        statusMessage.formatToComponents(config.getDiscordChatTopicFormat().orElseThrow()).stream(),
-                        DiscordService.DISCORD_TOPIC_CHAR_LIMIT
-                );
-                if(topicChunks.size() > 0) {
-                    discordService.setChatChannelTopic(topicChunks.get(0));
-                }
+        // rendered on every status update; the service applies the newest render
+        // when the rate limit allows and skips renders that have not changed
+        if(config.getDiscordChatTopicFormat().isPresent()) {
+            String topic = render(statusMessage, config.getDiscordChatTopicFormat().orElseThrow(), DiscordService.DISCORD_TOPIC_CHAR_LIMIT);
+            if(topic != null) {
+                discordService.setChatChannelTopic(topic);
+            }
+        }
+
+        if(config.getDiscordConsoleTopicFormat().isPresent()) {
+            String topic = render(statusMessage, config.getDiscordConsoleTopicFormat().orElseThrow(), DiscordService.DISCORD_TOPIC_CHAR_LIMIT);
+            if(topic != null) {
+                discordService.setConsoleChannelTopic(topic);
             }
+        }
 
-            if(config.getDiscordConsoleTopicFormat().isPresent()) {
-                List<String> topicChunks = formatter.toDiscordRawContent(
-                        statusMessage.formatToComponents(config.getDiscordConsoleTopicFormat().orElseThrow()).stream(),
-                        DiscordService.DISCORD_TOPIC_CHAR_LIMIT
-                );
-                if(topicChunks.size() > 0) {
-                    discordService.setConsoleChannelTopic(topicChunks.get(0));
-                }
+        if(config.getDiscordConsoleDashboardFormat().isPresent()) {
+            String dashboard = render(statusMessage, config.getDiscordConsoleDashboardFormat().orElseThrow(),
+                    DiscordService.DISCORD_MESSAGE_CHAR_LIMIT);
+            if(dashboard != null) {
+                discordService.setConsoleDashboard(dashboard);
             }
         }
 
+        if(config.getDiscordChatNameFormat().isPresent()) {
+            discordService.setChatChannelName(renderPlainText(statusMessage,
+                    config.getDiscordChatNameFormat().orElseThrow(), DiscordService.DISCORD_CHANNEL_NAME_CHAR_LIMIT));
+        }
+
+        if(config.getDiscordConsoleNameFormat().isPresent()) {
+            discordService.setConsoleChannelName(renderPlainText(statusMessage,
+                    config.getDiscordConsoleNameFormat().orElseThrow(), DiscordService.DISCORD_CHANNEL_NAME_CHAR_LIMIT));
+        }
+
+        if(config.getDiscordPresenceFormat().isPresent()) {
+            discordService.setPresence(renderPlainText(statusMessage,
+                    config.getDiscordPresenceFormat().orElseThrow(), DiscordService.DISCORD_ACTIVITY_CHAR_LIMIT));
+        }
+
         if(config.getDiscordAlertMsptThreshold().isPresent()) {
             long threshold = config.getDiscordAlertMsptThreshold().orElseThrow();
             if(now - lastMsptAlertTime > config.getDiscordAlertCooldown() * 1000 &&
@@ -81,8 +97,35 @@ public class DiscordServerStatusPublisher implements MessageHandler {
         return DiscordService.DISCORD_SOURCE_ID;
     }
 
-    private void publishToTopic(Consumer<String> topicPublisher, ServerStatusMessage message, String format) {
+    @Override
+    public Set<Class<? extends InternalMessage>> getAcceptedMessageTypes() {
+        return Set.of(ServerStatusMessage.class);
+    }
+
+    /**
+     * Renders Discord markdown, for channel topics and the status dashboard.
+     * @return The first maxLength characters' worth, or null if empty.
+     */
+    private String render(ServerStatusMessage message, String format, int maxLength) {
+        List<String> chunks = formatter.toDiscordRawContent(
+                message.formatToComponents(format).stream(),
+                maxLength
+        );
+        return chunks.size() > 0 ? chunks.get(0) : null;
+    }
 
+    /**
+     * Renders plain text, for channel names and the bot's presence, which do not
+     * support markdown. Time placeholders are left out, since Discord timestamps
+     * are not displayed there.
+     */
+    private static String renderPlainText(ServerStatusMessage message, String format, int maxLength) {
+        String text = message.formatToComponents(format).stream()
+                .filter(component -> !(component instanceof DateComponent))
+                .map(InternalMessageComponent::getText)
+                .collect(Collectors.joining())
+                .strip();
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
     }
 
     private String getAlertTags() {
@@ -2,17 +2,35 @@ package network.parthenon.amcdb.discord;
 
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.channel.Channel;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+import net.dv8tion.jda.api.managers.channel.concrete.TextChannelManager;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.SequentialRestRateLimiter;
 import network.parthenon.amcdb.AMCDB;
 import network.parthenon.amcdb.config.DiscordConfig;
 import network.parthenon.amcdb.messaging.MessageBroker;
-
+import network.parthenon.amcdb.messaging.MessagePriority;
+import network.parthenon.amcdb.util.IntervalRunnable;
+import network.parthenon.amcdb.util.ThreadSupport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,6 +43,39 @@ public class DiscordService {
 
     public static final int DISCORD_TOPIC_CHAR_LIMIT = 1024;
 
+    public static final int DISCORD_CHANNEL_NAME_CHAR_LIMIT = 100;
+
+    public static final int DISCORD_ACTIVITY_CHAR_LIMIT = 128;
+
+    /**
+     * Discord allows 2 edits to a channel's topic and name (combined) per 10 minutes.
+     */
+    private static final int CHANNEL_EDIT_LIMIT = 2;
+
+    private static final long CHANNEL_EDIT_WINDOW = 10 * 60 * 1000;
+
+    private static final int PRESENCE_EDIT_LIMIT = 5;
+
+    private static final long PRESENCE_EDIT_WINDOW = 60 * 1000;
+
+    /**
+     * Message edits have a far more generous limit, but share it with the
+     * console channel's other edits, so the dashboard is held to one edit per 5 seconds.
+     */
+    private static final int DASHBOARD_EDIT_LIMIT = 1;
+
+    private static final long DASHBOARD_EDIT_WINDOW = 5 * 1000;
+
+    /**
+     * Interval (in ms) at which pending metadata updates are checked.
+     */
+    private static final long METADATA_CHECK_INTERVAL = 1000;
+
+    /**
+     * Maximum time (in ms) to wait for each sender to stop on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
     /**
      * Used to identify InternalMessages originating from Discord.
      */
@@ -36,7 +87,7 @@ public class DiscordService {
 
     private final MessageBroker broker;
 
-    private JDA jdaInstance;
+    private volatile JDA jdaInstance;
 
     private TextChannel chatChannel;
 
@@ -44,79 +95,324 @@ public class DiscordService {
 
     private WebhookSender chatWebhookSender;
 
-    private long chatWebhookId;
+    /**
+     * URLs of the chat channel webhooks; empty if webhook mode is not enabled.
+     */
+    private final List<String> chatWebhookUrls;
+
+    /**
+     * IDs of the chat channel webhooks, so that their messages are not relayed back.
+     */
+    private final Set<Long> chatWebhookIds;
 
     private TextChannel consoleChannel;
 
     private BatchingSender consoleSender;
 
+    /**
+     * Senders for log streams with their own console channel
+     * (see amcdb.discord.channels.console.streams), by stream name.
+     * Populated before the connection becomes ready.
+     */
+    private final Map<String, BatchingSender> consoleStreamSenders = new HashMap<>();
+
+    /**
+     * Lets chat messages overtake console traffic on the way to JDA.
+     */
+    private final SendPriorityGate sendGate = new SendPriorityGate();
+
+    /**
+     * Rate limit budget of each channel, observed from JDA's requests.
+     */
+    private final RateLimitTracker rateLimits = new RateLimitTracker();
+
+    /**
+     * Outbox journals of the senders, closed on shutdown.
+     */
+    private final List<MessageJournal> journals = new CopyOnWriteArrayList<>();
+
+    /**
+     * Applies channel topics and names and the bot's presence within their rate limits.
+     */
+    private final MetadataUpdateScheduler metadataScheduler = new MetadataUpdateScheduler();
+
+    private final MetadataUpdateScheduler.Target<ChannelMetadata> chatChannelMetadata;
+
+    private final MetadataUpdateScheduler.Target<ChannelMetadata> consoleChannelMetadata;
+
+    private final MetadataUpdateScheduler.Target<String> presence;
+
+    /**
+     * Status dashboard in the console channel, or null if it is disabled.
+     */
+    private final StatusDashboard statusDashboard;
+
+    private final MetadataUpdateScheduler.Target<String> dashboard;
+
+    /**
+     * Whether the chat channel is configured and (once connected) was found.
+     */
+    private volatile boolean chatChannelEnabled;
+
+    /**
+     * Whether the console channel is configured and (once connected) was found.
+     */
+    private volatile boolean consoleChannelEnabled;
+
+    /**
+     * Whether the connection is ready and channels have been resolved.
+     * Until then, messages are held in {@link #pendingSends}.
+     */
+    private volatile boolean ready = false;
+
+    /**
+     * Sends requested before the connection was ready, in order.
+     */
+    private final ArrayDeque<Runnable> pendingSends = new ArrayDeque<>();
+
+    /**
+     * Number of held sends discarded because {@link #pendingSends} was full.
+     */
+    private long pendingDropCount = 0;
+
+    /**
+     * Creates the JDA instance when connecting.
+     */
+    private final Function<DiscordService, JDA> connector;
+
+    private final Thread connectThread;
+
+    /**
+     * Listener for messages received from Discord.
+     */
+    private final DiscordListener listener;
+
     public DiscordService(MessageBroker broker, DiscordConfig config) {
+        this(broker, config, DiscordService::buildJda);
+    }
+
+    /**
+     * Creates a DiscordService that connects using the provided JDA instance.
+     * @param connector Creates the JDA instance on the connect thread.
+     */
+    DiscordService(MessageBroker broker, DiscordConfig config, Function<DiscordService, JDA> connector) {
 
         this.config = config;
 
         this.broker = broker;
 
-        // initialize JDA
-        jdaInstance = JDABuilder.createDefault(config.getDiscordBotToken())
+        this.connector = connector;
+
+        this.chatChannelEnabled = config.getDiscordChatChannel().isPresent();
+        this.consoleChannelEnabled = config.getDiscordConsoleChannel().isPresent();
+
+        List<String> webhookUrls = new ArrayList<>();
+        Set<Long> webhookIds = new HashSet<>();
+        for(String webhookUrl : config.getDiscordChatWebhookUrls().orElse(List.of())) {
+            Matcher webhookUrlMatcher = WEBHOOK_URL_PATTERN.matcher(webhookUrl);
+            if(!webhookUrlMatcher.find()) {
+                AMCDB.LOGGER.warn("The configured webhook URL '%s' does not appear to be a valid Discord webhook URL! It will not be used.".formatted(webhookUrl));
+                continue;
+            }
+            webhookUrls.add(webhookUrl);
+            webhookIds.add(Long.parseLong(webhookUrlMatcher.group("id"), 10));
+        }
+        this.chatWebhookUrls = List.copyOf(webhookUrls);
+        this.chatWebhookIds = Set.copyOf(webhookIds);
+
+        // a channel's topic and name share one budget, so they are edited together
+        long channelEditInterval = config.getDiscordTopicUpdateInterval() * 1000;
+        this.chatChannelMetadata = metadataScheduler.register("chat channel topic/name",
+                CHANNEL_EDIT_LIMIT, CHANNEL_EDIT_WINDOW, channelEditInterval,
+                ChannelMetadata::comparisonKey, metadata -> editChannel(chatChannel, metadata));
+        this.consoleChannelMetadata = metadataScheduler.register("console channel topic/name",
+                CHANNEL_EDIT_LIMIT, CHANNEL_EDIT_WINDOW, channelEditInterval,
+                ChannelMetadata::comparisonKey, metadata -> editChannel(consoleChannel, metadata));
+        this.presence = metadataScheduler.register("bot presence",
+                PRESENCE_EDIT_LIMIT, PRESENCE_EDIT_WINDOW, PRESENCE_EDIT_WINDOW / PRESENCE_EDIT_LIMIT,
+                MetadataUpdateScheduler::ignoreTimestamps, this::applyPresence);
+        this.statusDashboard = config.getDiscordConsoleDashboardFormat().isPresent() ?
+                new StatusDashboard(config.getDiscordConsoleDashboardFile().map(Path::of).orElse(null)) :
+                null;
+        this.dashboard = metadataScheduler.register("status dashboard",
+                DASHBOARD_EDIT_LIMIT, DASHBOARD_EDIT_WINDOW, 0,
+                MetadataUpdateScheduler::ignoreTimestamps, this::showDashboard);
+        metadataScheduler.start(METADATA_CHECK_INTERVAL);
+
+        this.listener = new DiscordListener(this, config, broker);
+
+        // subscribe to internal messages (i.e. coming from Minecraft)
+        // messages published before the connection is ready are held until it is
+        this.broker.subscribe(new DiscordPublisher(this, config));
+        this.broker.subscribe(new DiscordServerStatusPublisher(this, config));
+
+        // connect in the background so that server startup does not wait on Discord
+        connectThread = ThreadSupport.newThread("AMCDB Discord Connect", this::connect);
+        connectThread.start();
+    }
+
+    /**
+     * Creates the internal JDA instance, which connects with the configured bot token.
+     */
+    private JDA buildJda() {
+        return JDABuilder.createDefault(config.getDiscordBotToken())
                 .enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT)
-                .addEventListeners(new DiscordListener(this, config, broker))
+                .addEventListeners(listener)
+                .setRestConfig(new RestConfig().setRateLimiterFactory(
+                        rateLimitConfig -> rateLimits.decorate(new SequentialRestRateLimiter(rateLimitConfig))))
                 .build();
+    }
+
+    /**
+     * Connects to Discord, resolves the configured channels, and sends any
+     * messages held while connecting.
+     */
+    private void connect() {
+        JDA jda;
+        try {
+            jda = connector.apply(this);
+        }
+        catch(RuntimeException e) {
+            AMCDB.LOGGER.error("Failed to connect to Discord! Check that the amcdb.discord.bot.token property is set correctly.", e);
+            return;
+        }
+        jdaInstance = jda;
 
         do {
             try {
-                jdaInstance.awaitReady();
-            } catch (InterruptedException e) { }
-        } while (jdaInstance.getStatus() != JDA.Status.CONNECTED);
+                jda.awaitReady();
+            } catch (InterruptedException e) {
+                // interrupted by shutdown
+                return;
+            }
+        } while (jda.getStatus() != JDA.Status.CONNECTED);
 
-        if(config.getDiscordChatChannel().isPresent()) {
+        if(chatChannelEnabled) {
             long chatChannelId = config.getDiscordChatChannel().orElseThrow();
-            chatChannel = jdaInstance.getTextChannelById(chatChannelId);
+            chatChannel = jda.getTextChannelById(chatChannelId);
             if(chatChannel == null) {
-                throw new RuntimeException("Chat channel (" + chatChannelId + ") was not found. Check that the amcdb.discord.channels.chat property is set correctly!");
+                AMCDB.LOGGER.error("Chat channel (" + chatChannelId + ") was not found. Check that the amcdb.discord.channels.chat property is set correctly!");
+                chatChannelEnabled = false;
+            }
+            else {
+                chatSender = new BatchingSender(chatChannel, true, MessagePriority.HIGH, sendGate, rateLimits,
+                        openJournal(chatChannelId), 0, false);
+                chatSender.start(config.getDiscordBatchingTimeLimit());
             }
+        }
 
-            chatSender = new BatchingSender(chatChannel, true);
-            chatSender.start(config.getDiscordBatchingTimeLimit());
+        if(!chatWebhookUrls.isEmpty()) {
+            chatWebhookSender = new WebhookSender(jda, chatWebhookUrls, sendGate, rateLimits, config.getDiscordWebhookCoalesceWindow());
+            chatWebhookSender.start(config.getDiscordBatchingTimeLimit());
         }
 
-        if(config.getDiscordChatWebhookUrl().isPresent()) {
-            String webhookUrl = config.getDiscordChatWebhookUrl().orElseThrow();
-            Matcher webhookUrlMatcher = WEBHOOK_URL_PATTERN.matcher(webhookUrl);
-            if(!webhookUrlMatcher.find()) {
-                AMCDB.LOGGER.warn("The configured webhook URL '%s' does not appear to be a valid Discord webhook URL! Webhook mode will not be enabled.".formatted(webhookUrl));
+        if(consoleChannelEnabled) {
+            long consoleChannelId = config.getDiscordConsoleChannel().orElseThrow();
+            consoleChannel = jda.getTextChannelById(consoleChannelId);
+            if(consoleChannel == null) {
+                AMCDB.LOGGER.error("Console channel (" + consoleChannelId + ") was not found. Check that the amcdb.discord.channels.console property is set correctly!");
+                consoleChannelEnabled = false;
             }
             else {
-                chatWebhookSender = new WebhookSender(jdaInstance, webhookUrl);
-                chatWebhookId = Long.parseLong(webhookUrlMatcher.group("id"), 10);
+                // skip queueing console messages to Discord if the JDA connection is unavailable
+                // this prevents an endless loop of error logs as each error fails to send and generates another error
+                consoleSender = new BatchingSender(consoleChannel, false, MessagePriority.LOW, sendGate, rateLimits,
+                        openJournal(consoleChannelId), config.getDiscordConsoleSpillThreshold(),
+                        config.getDiscordConsoleEditInPlace());
+                consoleSender.start(config.getDiscordBatchingTimeLimit());
             }
         }
 
-        if(config.getDiscordConsoleChannel().isPresent()) {
-            long consoleChannelId = config.getDiscordConsoleChannel().orElseThrow();
-            consoleChannel = jdaInstance.getTextChannelById(consoleChannelId);
-            if(consoleChannel == null) {
-                throw new RuntimeException("Console channel (" + consoleChannelId + ") was not found. Check that the amcdb.discord.channels.chat property is set correctly!");
+        for(Map.Entry<String, Long> streamChannel : config.getDiscordConsoleStreamChannels().entrySet()) {
+            TextChannel channel = jda.getTextChannelById(streamChannel.getValue());
+            if(channel == null) {
+                AMCDB.LOGGER.error("Console channel (%d) for log stream '%s' was not found. Check that the amcdb.discord.channels.console.streams property is set correctly!"
+                        .formatted(streamChannel.getValue(), streamChannel.getKey()));
+                continue;
             }
+            BatchingSender sender = new BatchingSender(channel, false, MessagePriority.LOW, sendGate, rateLimits,
+                    openJournal(streamChannel.getValue()), config.getDiscordConsoleSpillThreshold(),
+                    config.getDiscordConsoleEditInPlace());
+            sender.start(config.getDiscordBatchingTimeLimit());
+            consoleStreamSenders.put(streamChannel.getKey(), sender);
+        }
 
-            // skip queueing console messages to Discord if the JDA connection is unavailable
-            // this prevents an endless loop of error logs as each error fails to send and generates another error
-            consoleSender = new BatchingSender(consoleChannel, false);
-            consoleSender.start(config.getDiscordBatchingTimeLimit());
+        synchronized(pendingSends) {
+            // ready is still false, so sends from other threads wait for the lock
+            // and are performed after the held ones
+            if(pendingDropCount > 0) {
+                AMCDB.LOGGER.warn("%d message(s) sent while connecting to Discord were discarded (see amcdb.discord.startupBufferSize)"
+                        .formatted(pendingDropCount));
+            }
+            for(Runnable send : pendingSends) {
+                try {
+                    send.run();
+                }
+                catch(RuntimeException e) {
+                    AMCDB.LOGGER.error("Failed to send a message held while connecting to Discord", e);
+                }
+            }
+            pendingSends.clear();
+            ready = true;
         }
 
-        // subscribe to internal messages (i.e. coming from Minecraft)
-        this.broker.subscribe(new DiscordPublisher(this, config));
-        this.broker.subscribe(new DiscordServerStatusPublisher(this, config));
+        AMCDB.LOGGER.info("Connected to Discord.");
+    }
+
+    /**
+     * Opens the outbox journal for a channel (see amcdb.discord.outbox.dir).
+     * @param channelId ID of the channel.
+     * @return The journal, or null if the outbox is disabled or cannot be opened.
+     */
+    private MessageJournal openJournal(long channelId) {
+        if(config.getDiscordOutboxDirectory().isEmpty()) {
+            return null;
+        }
+        Path directory = Path.of(config.getDiscordOutboxDirectory().orElseThrow(), Long.toString(channelId));
+        try {
+            MessageJournal journal = new MessageJournal(directory, config.getDiscordOutboxMaxSize());
+            journals.add(journal);
+            return journal;
+        }
+        catch(IOException | RuntimeException e) {
+            AMCDB.LOGGER.error("Could not open the Discord outbox '%s'. Messages to channel %d will be held only in memory."
+                    .formatted(directory, channelId), e);
+            return null;
+        }
+    }
+
+    /**
+     * Holds the provided send until the connection is ready, if it is not already.
+     * @param send The send to perform once the connection is ready. It must call
+     *             the sender directly rather than hold the send again.
+     * @return True if the send was held; false if the connection is ready and the
+     *         caller should perform the send immediately.
+     */
+    private boolean holdUntilReady(Runnable send) {
+        if(ready) {
+            return false;
+        }
+        synchronized(pendingSends) {
+            if(ready) {
+                return false;
+            }
+            if(pendingSends.size() >= config.getDiscordStartupBufferSize()) {
+                pendingSends.poll();
+                pendingDropCount++;
+            }
+            pendingSends.add(send);
+            return true;
+        }
     }
 
     /**
      * Returns whether the provided user ID corresponds to this bot
-     * (either the bot user or, if enabled, the webhook).
+     * (either the bot user or, if enabled, one of the webhooks).
      * @param userId The user ID to check.
      * @return
      */
     public boolean isSelf(long userId) {
-        return this.jdaInstance.getSelfUser().getIdLong() == userId || chatWebhookId == userId;
+        return this.jdaInstance.getSelfUser().getIdLong() == userId || chatWebhookIds.contains(userId);
     }
 
     /**
@@ -124,7 +420,10 @@ public class DiscordService {
      * @param message   Message to send.
      */
     public void sendToChatChannel(String message) {
-        queueMessage(chatSender, message);
+        Runnable send = () -> queueMessage(chatSender, message);
+        if(chatChannelEnabled && !holdUntilReady(send)) {
+            send.run();
+        }
     }
 
     /**
@@ -134,8 +433,9 @@ public class DiscordService {
      * @param avatarUrl URL of an avatar image to display for the user who sent this message.
      */
     public void sendToChatWebhook(String message, String username, String avatarUrl) {
-        if(isChatWebhookEnabled()) {
-            chatWebhookSender.send(message, username, avatarUrl);
+        Runnable send = () -> chatWebhookSender.send(message, username, avatarUrl);
+        if(isChatWebhookEnabled() && !holdUntilReady(send)) {
+            send.run();
         }
     }
 
@@ -144,7 +444,27 @@ public class DiscordService {
      * @param message Message to send.
      */
     public void sendToConsoleChannel(String message) {
-        queueMessage(consoleSender, message);
+        Runnable send = () -> queueMessage(consoleSender, message);
+        if(consoleChannelEnabled && !holdUntilReady(send)) {
+            send.run();
+        }
+    }
+
+    /**
+     * Sends the specified message to the console channel for a log stream. Streams
+     * without their own channel are sent to the Discord console channel.
+     * @param stream  Name of the log stream.
+     * @param message Message to send.
+     */
+    public void sendToConsoleStream(String stream, String message) {
+        if(!config.getDiscordConsoleStreamChannels().containsKey(stream)) {
+            sendToConsoleChannel(message);
+            return;
+        }
+        Runnable send = () -> queueMessage(consoleStreamSenders.get(stream), message);
+        if(!holdUntilReady(send)) {
+            send.run();
+        }
     }
 
     /**
@@ -180,36 +500,105 @@ public class DiscordService {
     }
 
     /**
-     * Sets the chat channel topic to the provided string.
+     * Sets the chat channel topic to the provided string. The topic is applied
+     * when the channel's rate limit allows; only the newest topic is applied.
      * @param topic The topic to set.
      */
     public void setChatChannelTopic(String topic) {
-        setChannelTopic(chatChannel, topic);
+        chatChannelMetadata.update(metadata -> ChannelMetadata.withTopic(metadata, topic));
     }
 
     /**
-     * Sets the console channel topic to the provided string.
+     * Sets the console channel topic to the provided string. The topic is applied
+     * when the channel's rate limit allows; only the newest topic is applied.
      * @param topic The topic to set.
      */
     public void setConsoleChannelTopic(String topic) {
-        setChannelTopic(consoleChannel, topic);
+        consoleChannelMetadata.update(metadata -> ChannelMetadata.withTopic(metadata, topic));
+    }
+
+    /**
+     * Sets the chat channel name to the provided string. The name is applied
+     * together with the topic, when the channel's rate limit allows.
+     * @param name The name to set.
+     */
+    public void setChatChannelName(String name) {
+        chatChannelMetadata.update(metadata -> ChannelMetadata.withName(metadata, name));
     }
 
     /**
-     * Sets the specified channel topic to the provided string,
-     * if the channel is not null.
-     * @param channel The channel on which to set the topic.
-     * @param topic   The topic to set.
+     * Sets the console channel name to the provided string. The name is applied
+     * together with the topic, when the channel's rate limit allows.
+     * @param name The name to set.
      */
-    private void setChannelTopic(TextChannel channel, String topic) {
-        if(channel != null) {
-            // disable JDA queueing on this request.
-            // if JDA gets a 429 rate limit error with queuing enabled, it automatically
-            // tries to resend the request after the rate limit expires, which is
-            // counterproductive because the data is old at that point and the extra
-            // request causes the next intentional topic update to get rate limited.
-            channel.getManager().setTopic(topic).submit(false);
+    public void setConsoleChannelName(String name) {
+        consoleChannelMetadata.update(metadata -> ChannelMetadata.withName(metadata, name));
+    }
+
+    /**
+     * Sets the bot's activity ("Playing ...") to the provided string, or clears
+     * it if the string is empty.
+     * @param activity The activity to set.
+     */
+    public void setPresence(String activity) {
+        presence.update(activity);
+    }
+
+    /**
+     * Sets the content of the status dashboard message in the console channel.
+     * The message is only edited when the content has changed.
+     * @param content The content to show.
+     */
+    public void setConsoleDashboard(String content) {
+        dashboard.update(content);
+    }
+
+    /**
+     * Applies a topic and name to the specified channel.
+     * @return The pending edit, or null if the channel is not available.
+     */
+    private CompletableFuture<?> editChannel(TextChannel channel, ChannelMetadata metadata) {
+        if(!ready || channel == null) {
+            return null;
+        }
+        TextChannelManager manager = channel.getManager();
+        if(metadata.topic() != null) {
+            manager = manager.setTopic(metadata.topic());
+        }
+        if(metadata.name() != null && !metadata.name().isEmpty()) {
+            manager = manager.setName(metadata.name());
+        }
+        // disable JDA queueing on this request.
+        // if JDA gets a 429 rate limit error with queuing enabled, it automatically
+        // tries to resend the request after the rate limit expires, which is
+        // counterproductive because the data is old at that point and the extra
+        // request causes the next intentional update to get rate limited.
+        // the scheduler sends the newest value instead once the budget allows.
+        return manager.submit(false);
+    }
+
+    /**
+     * Shows the provided content in the status dashboard.
+     * @return The pending edit, or null if the dashboard is not available.
+     */
+    private CompletableFuture<?> showDashboard(String content) {
+        if(!ready || consoleChannel == null || statusDashboard == null) {
+            return null;
+        }
+        return statusDashboard.show(consoleChannel, content);
+    }
+
+    /**
+     * Applies the bot's activity.
+     * @return A completed future, or null if not connected.
+     */
+    private CompletableFuture<?> applyPresence(String activity) {
+        JDA jda = jdaInstance;
+        if(!ready || jda == null) {
+            return null;
         }
+        jda.getPresence().setActivity(activity.isEmpty() ? null : Activity.playing(activity));
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -218,7 +607,7 @@ public class DiscordService {
      * @return
      */
     public boolean isChatChannelEnabled() {
-        return chatSender != null || isChatWebhookEnabled();
+        return chatChannelEnabled || isChatWebhookEnabled();
     }
 
     /**
@@ -226,7 +615,7 @@ public class DiscordService {
      * @return
      */
     public boolean isChatWebhookEnabled() {
-        return chatWebhookSender != null;
+        return !chatWebhookUrls.isEmpty();
     }
 
     /**
@@ -234,13 +623,72 @@ public class DiscordService {
      * @return
      */
     public boolean isConsoleChannelEnabled() {
-        return consoleSender != null;
+        return consoleChannelEnabled;
+    }
+
+    /**
+     * Gets whether lines from the specified log stream are sent to Discord, either
+     * to the stream's own channel or, if it has none, to the console channel.
+     * @param stream Name of the log stream.
+     */
+    public boolean isConsoleStreamEnabled(String stream) {
+        if(!config.getDiscordConsoleStreamChannels().containsKey(stream)) {
+            return consoleChannelEnabled;
+        }
+        // until the connection is ready, assume the channel will be found
+        return !ready || consoleStreamSenders.containsKey(stream);
     }
 
     /**
-     * Shuts down the internal JDA instance.
+     * Stops the senders, then shuts down the internal JDA instance and closes the outboxes.
      */
     public void shutdown() {
-        jdaInstance.shutdown();
+        connectThread.interrupt();
+        try {
+            // the connect thread creates the senders
+            connectThread.join(SHUTDOWN_TIMEOUT);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // stop handing requests to JDA (and writing to the outboxes) before closing anything
+        List<IntervalRunnable> senders = new ArrayList<>();
+        senders.add(chatSender);
+        senders.add(consoleSender);
+        senders.addAll(consoleStreamSenders.values());
+        senders.add(chatWebhookSender);
+        senders.add(metadataScheduler);
+        for(IntervalRunnable sender : senders) {
+            if(sender != null && !sender.stop(SHUTDOWN_TIMEOUT)) {
+                AMCDB.LOGGER.warn("Timed out waiting for %s to stop".formatted(sender.getClass().getSimpleName()));
+            }
+        }
+
+        if(jdaInstance != null) {
+            jdaInstance.shutdown();
+        }
+        listener.shutdown();
+        journals.forEach(MessageJournal::close);
+    }
+
+    /**
+     * Topic and name of a channel; null parts are left unchanged.
+     */
+    private record ChannelMetadata(String topic, String name) {
+
+        static ChannelMetadata withTopic(ChannelMetadata metadata, String topic) {
+            return new ChannelMetadata(topic, metadata == null ? null : metadata.name());
+        }
+
+        static ChannelMetadata withName(ChannelMetadata metadata, String name) {
+            return new ChannelMetadata(metadata == null ? null : metadata.topic(), name);
+        }
+
+        ChannelMetadata comparisonKey() {
+            return new ChannelMetadata(
+                    MetadataUpdateScheduler.ignoreTimestamps(topic),
+                    MetadataUpdateScheduler.ignoreTimestamps(name));
+        }
     }
 }
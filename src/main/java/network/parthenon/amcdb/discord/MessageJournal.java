@@ -0,0 +1,340 @@
+package network.parthenon.amcdb.discord;
+
+import network.parthenon.amcdb.AMCDB;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of messages waiting to be sent to a Discord channel.
+ *
+ * Messages are appended to memory-mapped segment files of {@link #SEGMENT_SIZE}
+ * bytes, so a message survives the server crashing as soon as it is appended.
+ * The sender acknowledges messages once Discord has confirmed them; segments
+ * whose messages have all been acknowledged are deleted. Unacknowledged messages
+ * are read back with {@link #readUnacked(int)} after a restart or a lost connection.
+ *
+ * Batches may be confirmed out of order, so acknowledgements are tracked as ranges
+ * of sequence numbers, and only the point below which every message has been
+ * confirmed is written to disk. After a restart, messages confirmed beyond that
+ * point are sent again.
+ *
+ * Disk use is bounded: when the journal would exceed its maximum number of
+ * segments, the oldest segment is discarded whether or not it has been sent,
+ * and the number of messages lost is reported by {@link #takeDroppedCount()}.
+ *
+ * Each record is the message length (int), its sequence number (long), a CRC32
+ * of the message (int), then the UTF-8 message. Segment files are zero-filled,
+ * so a zero length marks the end of the records; a record that was partly
+ * written when the server stopped fails its checksum and ends the segment.
+ */
+class MessageJournal implements Closeable {
+
+    /**
+     * Size of each segment file.
+     */
+    static final int SEGMENT_SIZE = 1 << 20;
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String ACK_FILE = "acked";
+
+    private final Path directory;
+
+    private final int maxSegments;
+
+    /**
+     * Segments in order; the last is the one being appended to.
+     */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Mapping of the file holding the last acknowledged sequence number.
+     */
+    private final MappedByteBuffer ackBuffer;
+
+    /**
+     * Mapping of the last segment, positioned after its last record; null if a
+     * new segment must be started before appending.
+     */
+    private MappedByteBuffer active;
+
+    private long nextSequence;
+
+    /**
+     * Sequence number below which (inclusive) every message has been acknowledged.
+     */
+    private long acked;
+
+    /**
+     * Ranges of acknowledged messages above {@link #acked}, from first to last sequence number.
+     */
+    private final TreeMap<Long, Long> confirmed = new TreeMap<>();
+
+    /**
+     * Number of unacknowledged messages discarded to stay within the size limit.
+     */
+    private long droppedCount = 0;
+
+    /**
+     * Opens the journal in the specified directory, creating it if necessary.
+     * @param directory Directory holding the journal's files.
+     * @param maxBytes  Maximum disk space used by the journal. At least two
+     *                  segments are always kept.
+     */
+    MessageJournal(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxSegments = (int) Math.max(2, maxBytes / SEGMENT_SIZE);
+        Files.createDirectories(directory);
+
+        try(FileChannel ackChannel = FileChannel.open(directory.resolve(ACK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ackBuffer = ackChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+        acked = ackBuffer.getLong(0);
+        nextSequence = acked + 1;
+
+        List<Path> segmentFiles;
+        try(Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for(Path file : segmentFiles) {
+            Segment segment = new Segment(file);
+            int end = scan(readSegment(file), entry -> segment.lastSequence = entry.sequence());
+            if(segment.lastSequence <= acked) {
+                delete(segment);
+                continue;
+            }
+            segments.add(segment);
+            nextSequence = Math.max(nextSequence, segment.lastSequence + 1);
+            if(file.equals(segmentFiles.get(segmentFiles.size() - 1))) {
+                active = map(file);
+                active.position(end);
+            }
+        }
+    }
+
+    /**
+     * Appends a message.
+     * @return The message's sequence number.
+     */
+    synchronized long append(String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if(HEADER_BYTES + bytes.length > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Message is too long for the journal (%d bytes)".formatted(bytes.length));
+        }
+        if(active == null || active.remaining() < HEADER_BYTES + bytes.length) {
+            startSegment();
+        }
+        long sequence = nextSequence++;
+        active.putInt(bytes.length);
+        active.putLong(sequence);
+        active.putInt((int) checksum(bytes));
+        active.put(bytes);
+        segments.getLast().lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Records that the messages from the first to the last specified sequence
+     * number (inclusive) have been sent. Messages are only considered acknowledged
+     * on disk once every earlier message has been acknowledged too.
+     */
+    synchronized void ack(long first, long last) {
+        if(last <= acked) {
+            return;
+        }
+        confirmed.merge(Math.max(first, acked + 1), last, Math::max);
+        advance();
+        // keep the segment being appended to even if it has been fully sent
+        while(segments.size() > 1 && segments.getFirst().lastSequence <= acked) {
+            delete(segments.removeFirst());
+        }
+    }
+
+    /**
+     * Reads the messages that have not been acknowledged, in order.
+     * @param maxEntries Maximum number of messages returned; if there are more,
+     *                   only the most recent are returned.
+     */
+    synchronized Replay readUnacked(int maxEntries) throws IOException {
+        ArrayDeque<Entry> entries = new ArrayDeque<>();
+        long[] skipped = {0};
+        Consumer<Entry> collect = entry -> {
+            if(isAcked(entry.sequence())) {
+                return;
+            }
+            entries.add(entry);
+            if(entries.size() > maxEntries) {
+                entries.removeFirst();
+                skipped[0]++;
+            }
+        };
+        for(Segment segment : segments) {
+            if(segment == segments.getLast() && active != null) {
+                scan(active.duplicate().flip(), collect);
+            }
+            else {
+                scan(readSegment(segment.path), collect);
+            }
+        }
+        return new Replay(new ArrayList<>(entries), skipped[0]);
+    }
+
+    /**
+     * Gets the number of unacknowledged messages discarded to stay within the size
+     * limit since this method was last called.
+     */
+    synchronized long takeDroppedCount() {
+        long count = droppedCount;
+        droppedCount = 0;
+        return count;
+    }
+
+    /**
+     * Writes the journal to disk.
+     */
+    @Override
+    public synchronized void close() {
+        ackBuffer.force();
+        if(active != null) {
+            active.force();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        Path file = directory.resolve("%020d%s".formatted(nextSequence, SEGMENT_SUFFIX));
+        active = map(file);
+        segments.add(new Segment(file));
+
+        while(segments.size() > maxSegments) {
+            Segment oldest = segments.removeFirst();
+            if(oldest.lastSequence > acked) {
+                droppedCount += oldest.lastSequence - Math.max(acked, oldest.firstSequence - 1);
+                acked = oldest.lastSequence;
+                advance();
+            }
+            delete(oldest);
+        }
+    }
+
+    /**
+     * Moves {@link #acked} past the acknowledged ranges that now follow it, and writes it to disk.
+     */
+    private void advance() {
+        Map.Entry<Long, Long> range;
+        while((range = confirmed.firstEntry()) != null && range.getKey() <= acked + 1) {
+            acked = Math.max(acked, range.getValue());
+            confirmed.pollFirstEntry();
+        }
+        ackBuffer.putLong(0, acked);
+    }
+
+    private boolean isAcked(long sequence) {
+        return sequence <= acked
+                || confirmed.headMap(sequence, true).values().stream().anyMatch(last -> last >= sequence);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        }
+    }
+
+    private static ByteBuffer readSegment(Path file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file));
+    }
+
+    private static void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        }
+        catch(IOException e) {
+            // may still be mapped on some platforms; it is deleted when the journal is next opened
+            AMCDB.LOGGER.debug("Could not delete journal segment '%s'".formatted(segment.path), e);
+        }
+    }
+
+    /**
+     * Reads the records in a segment, from the start of the buffer up to its limit.
+     * @return Position following the last valid record.
+     */
+    private static int scan(ByteBuffer buffer, Consumer<Entry> consumer) {
+        int position = 0;
+        while(buffer.limit() - position >= HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            if(length <= 0 || length > buffer.limit() - position - HEADER_BYTES) {
+                break;
+            }
+            long sequence = buffer.getLong(position + Integer.BYTES);
+            int checksum = buffer.getInt(position + Integer.BYTES + Long.BYTES);
+            byte[] bytes = new byte[length];
+            buffer.get(position + HEADER_BYTES, bytes);
+            if((int) checksum(bytes) != checksum) {
+                break;
+            }
+            consumer.accept(new Entry(sequence, new String(bytes, StandardCharsets.UTF_8)));
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * A journaled message.
+     * @param sequence Sequence number, or 0 if the message is not journaled.
+     * @param text     The message.
+     */
+    record Entry(long sequence, String text) {
+    }
+
+    /**
+     * Unacknowledged messages read back from the journal.
+     * @param entries The most recent unacknowledged messages, in order.
+     * @param skipped Number of older unacknowledged messages not returned.
+     */
+    record Replay(List<Entry> entries, long skipped) {
+    }
+
+    private static class Segment {
+
+        final Path path;
+
+        /**
+         * Sequence number of the first message, from the file name.
+         */
+        final long firstSequence;
+
+        long lastSequence;
+
+        Segment(Path path) {
+            this.path = path;
+            String name = path.getFileName().toString();
+            this.firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            this.lastSequence = firstSequence - 1;
+        }
+    }
+}
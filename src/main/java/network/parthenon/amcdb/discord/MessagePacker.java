@@ -0,0 +1,51 @@
+package network.parthenon.amcdb.discord;
+
+/**
+ * Packs lines into one Discord message, separated by newlines, up to a character limit.
+ */
+class MessagePacker {
+
+    private final int capacity;
+
+    private final StringBuilder builder;
+
+    /**
+     * Creates a MessagePacker.
+     * @param capacity Maximum number of characters in the packed message.
+     */
+    MessagePacker(int capacity) {
+        this.capacity = capacity;
+        this.builder = new StringBuilder(capacity);
+    }
+
+    /**
+     * Gets whether the provided line can be appended without exceeding the capacity.
+     * The first line always fits.
+     */
+    boolean fits(String line) {
+        return builder.isEmpty() || builder.length() + line.length() + 1 <= capacity;
+    }
+
+    /**
+     * Appends a line. Callers should check {@link #fits(String)} first.
+     */
+    void append(String line) {
+        if(!builder.isEmpty()) {
+            builder.append("\n");
+        }
+        builder.append(line);
+    }
+
+    boolean isEmpty() {
+        return builder.isEmpty();
+    }
+
+    /**
+     * Gets the packed message and empties the packer.
+     */
+    String take() {
+        String message = builder.toString();
+        builder.setLength(0);
+        return message;
+    }
+}
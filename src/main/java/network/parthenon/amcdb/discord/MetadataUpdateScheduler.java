@@ -0,0 +1,209 @@
+package network.parthenon.amcdb.discord;
+
+import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.util.IntervalRunnable;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Applies updates to Discord metadata that has a tight rate limit of its own,
+ * such as channel topics and names and the bot's presence.
+ *
+ * Each target has an edit budget: at most a number of edits within a sliding window,
+ * and a minimum time between edits. Values are given to {@link Target#update(Object)}
+ * as often as they are rendered; only the newest is kept, and it is applied once the
+ * target's budget allows. A value with the same comparison key as the last value
+ * applied is not applied again, so an unchanged render costs nothing. If an edit
+ * fails, the newest value is applied when the budget next allows.
+ *
+ * Targets are checked at the interval passed to {@link #start(long)}.
+ */
+class MetadataUpdateScheduler extends IntervalRunnable {
+
+    /**
+     * Discord timestamp markup, e.g. {@code <t:1672549740:R>}.
+     */
+    private static final Pattern TIMESTAMP_PATTERN = Pattern.compile("<t:-?\\d+(?::[tTdDfFR])?>");
+
+    private final List<Target<?>> targets = new CopyOnWriteArrayList<>();
+
+    MetadataUpdateScheduler() {
+        super("discord-metadata-updater");
+    }
+
+    /**
+     * Registers a target.
+     * @param name              Name of the target, for logging.
+     * @param maxEdits          Maximum number of edits within the window.
+     * @param windowMillis      Length of the window (in ms).
+     * @param minIntervalMillis Minimum time (in ms) between edits.
+     * @param comparisonKey     Gets the key by which values are compared; values with
+     *                          equal keys are not applied twice in a row.
+     * @param apply             Applies a value. Returns a future completing when Discord
+     *                          has accepted the edit, or null if the value cannot be
+     *                          applied yet (e.g. while connecting), in which case no
+     *                          budget is used.
+     * @return The target.
+     */
+    <T> Target<T> register(String name, int maxEdits, long windowMillis, long minIntervalMillis,
+                           Function<T, ?> comparisonKey, Function<T, CompletableFuture<?>> apply) {
+        Target<T> target = new Target<>(name, maxEdits, windowMillis, minIntervalMillis, comparisonKey, apply);
+        targets.add(target);
+        return target;
+    }
+
+    /**
+     * Applies the targets' newest values where the budget allows.
+     *
+     * Do not call this method. It is called by the executor.
+     */
+    @Override
+    public void run() {
+        run(System.currentTimeMillis());
+    }
+
+    void run(long now) {
+        for(Target<?> target : targets) {
+            target.tryApply(now);
+        }
+    }
+
+    /**
+     * Replaces Discord timestamps in the provided text with a placeholder, so that
+     * renders differing only in their update time compare equal.
+     */
+    static String ignoreTimestamps(String text) {
+        return text == null ? null : TIMESTAMP_PATTERN.matcher(text).replaceAll("<t>");
+    }
+
+    /**
+     * A piece of metadata with its own edit budget.
+     */
+    static class Target<T> {
+
+        private final String name;
+
+        private final int maxEdits;
+
+        private final long windowMillis;
+
+        private final long minIntervalMillis;
+
+        private final Function<T, ?> comparisonKey;
+
+        private final Function<T, CompletableFuture<?>> apply;
+
+        /**
+         * Times (epoch milliseconds) of the edits within the window, oldest first.
+         */
+        private final ArrayDeque<Long> editTimes = new ArrayDeque<>();
+
+        /**
+         * Newest value, or null if none has been given.
+         */
+        private T desired;
+
+        private Object desiredKey;
+
+        /**
+         * Comparison key of the value last applied (or being applied); null if
+         * none has been applied or the last edit failed.
+         */
+        private Object appliedKey;
+
+        private boolean inFlight = false;
+
+        private Target(String name, int maxEdits, long windowMillis, long minIntervalMillis,
+                       Function<T, ?> comparisonKey, Function<T, CompletableFuture<?>> apply) {
+            this.name = name;
+            this.maxEdits = maxEdits;
+            this.windowMillis = windowMillis;
+            this.minIntervalMillis = minIntervalMillis;
+            this.comparisonKey = comparisonKey;
+            this.apply = apply;
+        }
+
+        /**
+         * Replaces the value to apply.
+         */
+        synchronized void update(T value) {
+            desired = value;
+            desiredKey = comparisonKey.apply(value);
+        }
+
+        /**
+         * Replaces the value to apply with one derived from the newest value.
+         * @param change Gets the new value from the newest value (null if none has been given).
+         */
+        synchronized void update(UnaryOperator<T> change) {
+            update(change.apply(desired));
+        }
+
+        /**
+         * Gets the number of edits that may be made now without exceeding the window's limit.
+         */
+        synchronized int getRemainingEdits(long now) {
+            while(!editTimes.isEmpty() && now - editTimes.peek() >= windowMillis) {
+                editTimes.poll();
+            }
+            return maxEdits - editTimes.size();
+        }
+
+        /**
+         * Gets whether the newest value differs from the one last applied.
+         */
+        synchronized boolean isPending() {
+            return desired != null && !Objects.equals(desiredKey, appliedKey);
+        }
+
+        void tryApply(long now) {
+            T value;
+            Object key;
+            synchronized(this) {
+                if(inFlight || !isPending() || getRemainingEdits(now) <= 0
+                        || (!editTimes.isEmpty() && now - editTimes.peekLast() < minIntervalMillis)) {
+                    return;
+                }
+                value = desired;
+                key = desiredKey;
+                inFlight = true;
+            }
+
+            CompletableFuture<?> result;
+            try {
+                result = apply.apply(value);
+            }
+            catch(RuntimeException e) {
+                // count it against the budget so that it is not retried immediately
+                result = CompletableFuture.failedFuture(e);
+            }
+
+            synchronized(this) {
+                if(result == null) {
+                    inFlight = false;
+                    return;
+                }
+                editTimes.add(now);
+                appliedKey = key;
+            }
+            result.whenComplete((r, e) -> {
+                synchronized(this) {
+                    inFlight = false;
+                    if(e != null) {
+                        AMCDB.LOGGER.warn("Failed to update Discord %s".formatted(name), e);
+                        if(Objects.equals(appliedKey, key)) {
+                            appliedKey = null;
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
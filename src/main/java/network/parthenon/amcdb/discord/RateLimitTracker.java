@@ -0,0 +1,242 @@
+package network.parthenon.amcdb.discord;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.Method;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import okhttp3.Response;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records the remaining rate limit budget for sending messages to each channel
+ * and through each webhook, as reported by Discord on every response.
+ *
+ * JDA keeps its rate limit buckets to itself, so the tracker observes them by
+ * decorating JDA's {@link RestRateLimiter} (see {@link #decorate(RestRateLimiter)}).
+ * {@link BatchingSender} uses the budget to decide whether to send at once or to
+ * hold messages and send them in larger batches when the bucket resets.
+ *
+ * Discord's last response does not account for requests handed to JDA since, so
+ * senders report each request from hand-off until it completes (see
+ * {@link #beginRequest(long)}), and these count against the remaining budget.
+ */
+class RateLimitTracker {
+
+    /**
+     * Matches the routes used to send messages to a channel or through a webhook.
+     * Channel and webhook IDs are both snowflakes, so they share one ID space.
+     */
+    private static final Pattern SEND_MESSAGE_ROUTE =
+            Pattern.compile("^(channels/(?<channel>\\d+)/messages|webhooks/(?<webhook>\\d+)/[^/?]+)(\\?.*)?$");
+
+    /**
+     * Number of requests left in a bucket at which senders start holding messages
+     * until it resets. Leaves room for one unbatched message (e.g. a reconnection
+     * notice) without risking a 429.
+     */
+    static final int RESERVE = 1;
+
+    /**
+     * Budget by channel or webhook ID.
+     */
+    private final ConcurrentMap<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Number of requests handed to JDA that have not completed, by channel or webhook ID.
+     */
+    private final ConcurrentMap<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Wraps JDA's rate limiter so that responses are recorded by this tracker.
+     * @param delegate The rate limiter that actually schedules requests.
+     */
+    RestRateLimiter decorate(RestRateLimiter delegate) {
+        return new TrackingRateLimiter(delegate);
+    }
+
+    /**
+     * Gets how long a sender to the channel (or webhook) should hold its messages before sending.
+     * @param channelId ID of the channel or webhook.
+     * @param now       Current time (epoch milliseconds).
+     * @return 0 if a message may be sent now (including if nothing is known about
+     *         the channel yet); otherwise the time until the bucket resets.
+     */
+    long getHoldMillis(long channelId, long now) {
+        Bucket bucket = buckets.get(channelId);
+        if(bucket == null || now >= bucket.resetAt || bucket.remaining - getInFlight(channelId) > RESERVE) {
+            return 0;
+        }
+        return bucket.resetAt - now;
+    }
+
+    /**
+     * Records that a request to the channel (or webhook) has been handed to JDA.
+     * Every call must be followed by a call to {@link #endRequest(long)} once the
+     * request completes, successfully or not.
+     * @param channelId ID of the channel or webhook.
+     */
+    void beginRequest(long channelId) {
+        inFlight.computeIfAbsent(channelId, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Records that a request to the channel (or webhook) has completed.
+     * @param channelId ID of the channel or webhook.
+     */
+    void endRequest(long channelId) {
+        AtomicInteger count = inFlight.get(channelId);
+        if(count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    private int getInFlight(long channelId) {
+        AtomicInteger count = inFlight.get(channelId);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Records the rate limit headers of a response to a send message request.
+     * @param channelId  ID of the channel or webhook.
+     * @param code       HTTP status code.
+     * @param remaining  Value of the X-RateLimit-Remaining header, or null.
+     * @param resetAfter Value of the X-RateLimit-Reset-After header (seconds), or null.
+     * @param retryAfter Value of the Retry-After header (seconds), or null.
+     * @param now        Time the response was received (epoch milliseconds).
+     */
+    void update(long channelId, int code, String remaining, String resetAfter, String retryAfter, long now) {
+        try {
+            if(code == 429) {
+                // the bucket is empty whatever the headers say
+                String after = resetAfter != null ? resetAfter : retryAfter;
+                if(after != null) {
+                    buckets.put(channelId, new Bucket(0, now + toMillis(after)));
+                }
+            }
+            else if(remaining != null && resetAfter != null) {
+                buckets.put(channelId, new Bucket(Integer.parseInt(remaining), now + toMillis(resetAfter)));
+            }
+        }
+        catch(NumberFormatException e) {
+            // leave the previous state; JDA's own rate limiter still applies
+        }
+    }
+
+    private static long toMillis(String seconds) {
+        return (long) Math.ceil(Double.parseDouble(seconds) * 1000);
+    }
+
+    private void update(Route.CompiledRoute route, Response response) {
+        if(response == null || route.getMethod() != Method.POST) {
+            return;
+        }
+        Matcher matcher = SEND_MESSAGE_ROUTE.matcher(route.getCompiledRoute());
+        if(!matcher.find()) {
+            return;
+        }
+        String id = matcher.group("channel") != null ? matcher.group("channel") : matcher.group("webhook");
+        update(Long.parseLong(id),
+                response.code(),
+                response.header(RestRateLimiter.REMAINING_HEADER),
+                response.header(RestRateLimiter.RESET_AFTER_HEADER),
+                response.header(RestRateLimiter.RETRY_AFTER_HEADER),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Remaining requests in a bucket until it resets.
+     */
+    private record Bucket(int remaining, long resetAt) {
+    }
+
+    /**
+     * Passes requests to JDA's rate limiter, recording the response to each.
+     */
+    private class TrackingRateLimiter implements RestRateLimiter {
+
+        private final RestRateLimiter delegate;
+
+        TrackingRateLimiter(RestRateLimiter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void enqueue(Work task) {
+            delegate.enqueue(new TrackedWork(task));
+        }
+
+        @Override
+        public void stop(boolean shutdown, Runnable callback) {
+            delegate.stop(shutdown, callback);
+        }
+
+        @Override
+        public boolean isStopped() {
+            return delegate.isStopped();
+        }
+
+        @Override
+        public int cancelRequests() {
+            return delegate.cancelRequests();
+        }
+    }
+
+    /**
+     * Request that records its response once executed.
+     */
+    private class TrackedWork implements RestRateLimiter.Work {
+
+        private final RestRateLimiter.Work work;
+
+        TrackedWork(RestRateLimiter.Work work) {
+            this.work = work;
+        }
+
+        @Override
+        public Route.CompiledRoute getRoute() {
+            return work.getRoute();
+        }
+
+        @Override
+        public JDA getJDA() {
+            return work.getJDA();
+        }
+
+        @Override
+        public Response execute() {
+            Response response = work.execute();
+            update(work.getRoute(), response);
+            return response;
+        }
+
+        @Override
+        public boolean isSkipped() {
+            return work.isSkipped();
+        }
+
+        @Override
+        public boolean isDone() {
+            return work.isDone();
+        }
+
+        @Override
+        public boolean isPriority() {
+            return work.isPriority();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return work.isCancelled();
+        }
+
+        @Override
+        public void cancel() {
+            work.cancel();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package network.parthenon.amcdb.discord;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinates Discord senders of different priorities, so that chat is handed
+ * to JDA ahead of console traffic.
+ *
+ * Once a request has been handed to JDA, it competes with every later request
+ * for JDA's requester and Discord's rate limits. High-priority senders therefore
+ * report every message from the time it is enqueued until its request completes.
+ * Low-priority senders only hand a request to JDA while no high-priority message
+ * is outstanding, and are woken up when the last one completes. So that a steady
+ * stream of chat cannot hold console traffic back indefinitely, a low-priority
+ * sender that has waited for the maximum wait sends one request regardless.
+ */
+class SendPriorityGate {
+
+    /**
+     * Default maximum time (in ms) a low-priority request waits for high-priority traffic.
+     */
+    static final long DEFAULT_MAX_LOW_WAIT_MILLIS = 10000;
+
+    /**
+     * Maximum time (in ms) a low-priority request waits for high-priority traffic.
+     */
+    private final long maxLowWaitMillis;
+
+    /**
+     * Number of high-priority messages enqueued or in flight.
+     */
+    private final AtomicInteger highOutstanding = new AtomicInteger();
+
+    /**
+     * Callbacks to run when no high-priority messages remain outstanding.
+     */
+    private final List<Runnable> idleListeners = new CopyOnWriteArrayList<>();
+
+    SendPriorityGate() {
+        this(DEFAULT_MAX_LOW_WAIT_MILLIS);
+    }
+
+    /**
+     * Creates a SendPriorityGate.
+     * @param maxLowWaitMillis Maximum time (in ms) a low-priority request waits
+     *                         for high-priority traffic.
+     */
+    SendPriorityGate(long maxLowWaitMillis) {
+        this.maxLowWaitMillis = maxLowWaitMillis;
+    }
+
+    /**
+     * Records that high-priority messages have been enqueued.
+     * @param count Number of messages.
+     */
+    void beginHigh(int count) {
+        highOutstanding.addAndGet(count);
+    }
+
+    /**
+     * Records that requests for high-priority messages have completed
+     * (successfully or not).
+     * @param count Number of messages.
+     */
+    void endHigh(int count) {
+        if(highOutstanding.addAndGet(-count) == 0) {
+            idleListeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Returns whether low-priority requests may currently be handed to JDA.
+     */
+    boolean isHighIdle() {
+        return highOutstanding.get() <= 0;
+    }
+
+    /**
+     * Gets how much longer a low-priority request must wait before it may be
+     * handed to JDA.
+     * @param waitingSince Time (epoch milliseconds) at which the request started waiting.
+     * @param now          Current time (epoch milliseconds).
+     * @return The time (in ms) to wait, or 0 if the request may be handed to JDA now.
+     */
+    long getLowWaitMillis(long waitingSince, long now) {
+        if(isHighIdle()) {
+            return 0;
+        }
+        return Math.max(0, waitingSince + maxLowWaitMillis - now);
+    }
+
+    /**
+     * Registers a callback to run whenever the last outstanding high-priority
+     * message completes.
+     * @param listener The callback. Must not block.
+     */
+    void onHighIdle(Runnable listener) {
+        idleListeners.add(listener);
+    }
+}
@@ -0,0 +1,114 @@
+package network.parthenon.amcdb.discord;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import network.parthenon.amcdb.AMCDB;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A pinned bot message in the console channel showing the server status, edited
+ * in place as the status changes.
+ *
+ * The message's ID is kept in a file so that the same message is edited after a
+ * restart. If the message has been deleted, a new one is posted and pinned.
+ */
+class StatusDashboard {
+
+    /**
+     * File holding the message's ID, or null to post a new message on each start.
+     */
+    private final Path idFile;
+
+    /**
+     * ID of the message, or 0 if none has been posted.
+     */
+    private volatile long messageId;
+
+    StatusDashboard(Path idFile) {
+        this.idFile = idFile;
+        this.messageId = load(idFile);
+    }
+
+    /**
+     * Shows the provided content, editing the message or posting it if there is none.
+     * @return A future completing when Discord has accepted the content.
+     */
+    CompletableFuture<?> show(TextChannel channel, String content) {
+        long id = messageId;
+        if(id == 0) {
+            return post(channel, content);
+        }
+        // disable JDA queueing; if the edit is rate limited, the scheduler
+        // sends the newest content instead
+        return channel.editMessageById(id, content).submit(false)
+                .exceptionallyCompose(e -> {
+                    if(isUnknownMessage(e)) {
+                        AMCDB.LOGGER.info("The status dashboard message was deleted; posting a new one.");
+                        messageId = 0;
+                        return post(channel, content);
+                    }
+                    return CompletableFuture.failedFuture(e);
+                });
+    }
+
+    private CompletableFuture<Message> post(TextChannel channel, String content) {
+        return channel.sendMessage(content).submit(false)
+                .thenApply(message -> {
+                    messageId = message.getIdLong();
+                    save(messageId);
+                    message.pin().submit(false).whenComplete((r, e) -> {
+                        if(e != null) {
+                            AMCDB.LOGGER.warn("Could not pin the status dashboard message. Check that the bot may pin messages in the console channel.", e);
+                        }
+                    });
+                    return message;
+                });
+    }
+
+    private static boolean isUnknownMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof ErrorResponseException errorResponse
+                && errorResponse.getErrorResponse() == ErrorResponse.UNKNOWN_MESSAGE;
+    }
+
+    private static long load(Path idFile) {
+        if(idFile == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(idFile).strip());
+        }
+        catch(NoSuchFileException e) {
+            return 0;
+        }
+        catch(IOException | NumberFormatException e) {
+            AMCDB.LOGGER.warn("Could not read the status dashboard file '%s'. A new dashboard message will be posted."
+                    .formatted(idFile), e);
+            return 0;
+        }
+    }
+
+    private void save(long id) {
+        if(idFile == null) {
+            return;
+        }
+        try {
+            if(idFile.getParent() != null) {
+                Files.createDirectories(idFile.getParent());
+            }
+            Files.writeString(idFile, Long.toString(id));
+        }
+        catch(IOException e) {
+            AMCDB.LOGGER.warn("Could not write the status dashboard file '%s'. A new dashboard message will be posted on the next start."
+                    .formatted(idFile), e);
+        }
+    }
+}
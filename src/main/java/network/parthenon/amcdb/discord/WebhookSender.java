@@ -4,18 +4,261 @@ import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.IncomingWebhookClient;
 import net.dv8tion.jda.api.entities.WebhookClient;
 import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.util.IntervalRunnable;
 
-public class WebhookSender {
-    private final IncomingWebhookClient webhook;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
-    public WebhookSender(JDA jda, String url) {
-        webhook = WebhookClient.createClient(jda, url);
+/**
+ * Sends chat messages through one or more webhooks on the chat channel, under
+ * each player's name and avatar.
+ *
+ * Consecutive messages from the same author are merged into one post of up to
+ * {@link DiscordService#DISCORD_MESSAGE_CHAR_LIMIT} characters while the post waits
+ * out the coalescing window; with a window of 0, every message is posted on its own.
+ * Posts are handed to JDA in the order they were started; a message from another
+ * author starts a new post. Posts are also checked at the interval passed to
+ * {@link #start(long)}.
+ *
+ * When several webhooks are configured, each post goes to the webhook with the
+ * most rate limit budget left (see {@link RateLimitTracker}). Requests to different
+ * webhooks may complete in any order, so only each author's messages are guaranteed
+ * to appear in order: while an author has a post in flight, their next post goes to
+ * the same webhook. Posts from different authors on different webhooks may appear
+ * out of order.
+ */
+public class WebhookSender extends IntervalRunnable {
+
+    /**
+     * Webhooks on the chat channel.
+     */
+    private final List<IncomingWebhookClient> webhooks;
+
+    /**
+     * IDs of {@link #webhooks}, by index.
+     */
+    private final long[] webhookIds;
+
+    /**
+     * Number of posts in flight on each webhook, by index.
+     */
+    private final int[] inFlight;
+
+    /**
+     * Webhook used by each author with posts in flight.
+     */
+    private final Map<Author, Affinity> affinities = new HashMap<>();
+
+    /**
+     * Gate shared with the other senders. Webhook messages are chat, so they are high priority.
+     */
+    private final SendPriorityGate gate;
+
+    /**
+     * Rate limit budget shared with the other senders.
+     */
+    private final RateLimitTracker rateLimits;
+
+    /**
+     * Time (in ms) a post waits for further messages from the same author.
+     */
+    private final long coalesceWindowMillis;
+
+    /**
+     * Posts not yet sent, oldest first.
+     */
+    private final ArrayDeque<Post> pending = new ArrayDeque<>();
+
+    WebhookSender(JDA jda, List<String> urls, SendPriorityGate gate, RateLimitTracker rateLimits, long coalesceWindowMillis) {
+        this(urls.stream().map(url -> WebhookClient.createClient(jda, url)).toList(), gate, rateLimits, coalesceWindowMillis);
+    }
+
+    WebhookSender(List<IncomingWebhookClient> webhooks, SendPriorityGate gate, RateLimitTracker rateLimits, long coalesceWindowMillis) {
+        super("discord-webhook-sender");
+        this.webhooks = webhooks;
+        this.webhookIds = webhooks.stream().mapToLong(IncomingWebhookClient::getIdLong).toArray();
+        this.inFlight = new int[webhooks.size()];
+        this.gate = gate;
+        this.rateLimits = rateLimits;
+        this.coalesceWindowMillis = coalesceWindowMillis;
     }
 
     public void send(String message, String username, String avatarUrl) {
-        webhook.sendMessage(message)
-                .setUsername(username)
-                .setAvatarUrl(avatarUrl)
-                .queue(msg -> {}, e -> AMCDB.LOGGER.error("Failed to send message via Discord webhook", e));
+        gate.beginHigh(1);
+        boolean newPost = add(message, new Author(username, avatarUrl), System.currentTimeMillis());
+        if(newPost && executorService != null) {
+            try {
+                executorService.schedule(this, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+            }
+            catch(RejectedExecutionException e) {
+                // shutting down
+            }
+        }
+    }
+
+    /**
+     * Sends the posts whose coalescing window has ended.
+     *
+     * Do not call this method. It is called by the executor.
+     */
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+        sendPosts(takeDue(now), now);
+    }
+
+    /**
+     * Stops the schedule, then hands JDA every post still waiting out its
+     * coalescing window, so that chat sent just before shutdown is not lost.
+     * @param timeoutMillis Maximum time to wait (in ms) for a run in progress.
+     * @return True if no run is in progress.
+     */
+    @Override
+    public boolean stop(long timeoutMillis) {
+        boolean stopped = super.stop(timeoutMillis);
+        sendPosts(takeDue(Long.MAX_VALUE), System.currentTimeMillis());
+        return stopped;
+    }
+
+    /**
+     * Hands posts to JDA, in order.
+     */
+    private void sendPosts(List<Post> posts, long now) {
+        for(Post post : posts) {
+            final int count = post.count;
+            final int webhookIndex = selectWebhook(post.author, now);
+            webhooks.get(webhookIndex).sendMessage(post.text.toString())
+                    .setUsername(post.author.username())
+                    .setAvatarUrl(post.author.avatarUrl())
+                    .queue(msg -> {
+                        complete(webhookIndex, post.author);
+                        gate.endHigh(count);
+                    }, e -> {
+                        complete(webhookIndex, post.author);
+                        gate.endHigh(count);
+                        AMCDB.LOGGER.error("Failed to send message via Discord webhook", e);
+                    });
+        }
+    }
+
+    /**
+     * Adds a message to the newest post if it is from the same author, is still
+     * within its coalescing window and fits; otherwise starts a new post.
+     * @return True if a new post was started.
+     */
+    boolean add(String message, Author author, long now) {
+        synchronized(pending) {
+            Post last = pending.peekLast();
+            if(last != null && last.author.equals(author) && now - last.startedAt < coalesceWindowMillis
+                    && last.text.length() + message.length() + 1 <= DiscordService.DISCORD_MESSAGE_CHAR_LIMIT) {
+                last.text.append('\n').append(message);
+                last.count++;
+                return false;
+            }
+            pending.add(new Post(message, author, now));
+            return true;
+        }
+    }
+
+    /**
+     * Removes and returns the posts whose coalescing window has ended, in order.
+     * A post is never taken ahead of an older one.
+     */
+    List<Post> takeDue(long now) {
+        List<Post> due = new ArrayList<>();
+        synchronized(pending) {
+            while(!pending.isEmpty() && now - pending.peek().startedAt >= coalesceWindowMillis) {
+                due.add(pending.poll());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Chooses the webhook for an author's next post and records it as in flight.
+     * @return Index of the webhook.
+     */
+    synchronized int selectWebhook(Author author, long now) {
+        Affinity affinity = affinities.get(author);
+        if(affinity == null) {
+            int best = 0;
+            long bestHold = Long.MAX_VALUE;
+            for(int i = 0; i < webhookIds.length; i++) {
+                long hold = rateLimits.getHoldMillis(webhookIds[i], now);
+                if(hold < bestHold || (hold == bestHold && inFlight[i] < inFlight[best])) {
+                    best = i;
+                    bestHold = hold;
+                }
+            }
+            affinity = new Affinity(best);
+            affinities.put(author, affinity);
+        }
+        affinity.inFlight++;
+        inFlight[affinity.webhookIndex]++;
+        rateLimits.beginRequest(webhookIds[affinity.webhookIndex]);
+        return affinity.webhookIndex;
+    }
+
+    /**
+     * Records that a post has completed (successfully or not).
+     */
+    synchronized void complete(int webhookIndex, Author author) {
+        inFlight[webhookIndex]--;
+        rateLimits.endRequest(webhookIds[webhookIndex]);
+        Affinity affinity = affinities.get(author);
+        if(affinity != null && --affinity.inFlight == 0) {
+            affinities.remove(author);
+        }
+    }
+
+    /**
+     * Name and avatar under which a message is posted.
+     */
+    record Author(String username, String avatarUrl) {
+    }
+
+    /**
+     * Webhook carrying an author's posts while any are in flight.
+     */
+    private static class Affinity {
+
+        final int webhookIndex;
+
+        int inFlight = 0;
+
+        Affinity(int webhookIndex) {
+            this.webhookIndex = webhookIndex;
+        }
+    }
+
+    /**
+     * Messages from one author sent as a single webhook message.
+     */
+    static class Post {
+
+        final Author author;
+
+        final StringBuilder text;
+
+        /**
+         * Number of messages merged into the post.
+         */
+        int count = 1;
+
+        /**
+         * Time (epoch milliseconds) of the first message.
+         */
+        final long startedAt;
+
+        Post(String message, Author author, long startedAt) {
+            this.text = new StringBuilder(message);
+            this.author = author;
+            this.startedAt = startedAt;
+        }
     }
 }
@@ -2,38 +2,45 @@ package network.parthenon.amcdb.messaging;
 
 import network.parthenon.amcdb.AMCDB;
 import network.parthenon.amcdb.messaging.message.InternalMessage;
-import org.jetbrains.annotations.NotNull;
-
-import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import network.parthenon.amcdb.util.ThreadSupport;
 
 /**
  * Message broker that dispatches messages to handlers using a background thread
  * to prevent blocking other threads.
+ *
+ * Waiting messages are dispatched in order of {@link MessagePriority}, then in
+ * publish order. The queue of waiting messages is bounded; when it is full,
+ * incoming messages are handled according to their {@link OverflowPolicy}
+ * (see {@link LaneQueue}).
  */
 public class BackgroundMessageBroker implements MessageBroker {
 
     private static final String THREAD_NAME = "AMCDB Dispatcher";
 
-    private Set<MessageHandler> handlers;
+    private final HandlerRegistry<MessageHandler> handlers;
+
+    private final LaneQueue queue;
 
-    private ExecutorService handlerPool;
+    private final Thread dispatcher;
 
+    /**
+     * Creates a BackgroundMessageBroker holding up to
+     * {@link LaneMessageBroker#DEFAULT_LANE_CAPACITY} waiting messages.
+     */
     public BackgroundMessageBroker() {
-        this.handlers = new HashSet<>();
-
-        this.handlerPool = Executors.newSingleThreadExecutor(new ThreadFactory() {
-            private ThreadFactory defaultFactory = Executors.defaultThreadFactory();
-            @Override
-            public Thread newThread(@NotNull Runnable runnable) {
-                Thread thread = defaultFactory.newThread(runnable);
-                thread.setName(THREAD_NAME);
-                thread.setDaemon(true);
-                return thread;
-            }
-        });
+        this(LaneMessageBroker.DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * Creates a BackgroundMessageBroker with the specified capacity.
+     * @param capacity Number of waiting messages held before applying overflow policies.
+     */
+    public BackgroundMessageBroker(int capacity) {
+        this.handlers = new HandlerRegistry<>(h -> h, MessageHandler[]::new);
+        this.queue = new LaneQueue(capacity);
+
+        this.dispatcher = ThreadSupport.newThread(THREAD_NAME, this::runDispatcher);
+        this.dispatcher.start();
     }
 
     @Override
@@ -42,40 +49,75 @@ public class BackgroundMessageBroker implements MessageBroker {
     }
 
     @Override
-    public synchronized void publish(InternalMessage... messages) {
-        for(InternalMessage message : messages) {
-            this.dispatchToHandlers(message);
+    public void publish(InternalMessage... messages) {
+        queue.offer(messages, System.nanoTime());
+    }
+
+    @Override
+    public void shutdown() {
+        dispatcher.interrupt();
+    }
+
+    /**
+     * Gets the total number of messages dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+
+    /**
+     * Dispatcher loop. Takes messages from the queue and dispatches them to handlers.
+     */
+    private void runDispatcher() {
+        while(!Thread.currentThread().isInterrupted()) {
+            InternalMessage message;
+            try {
+                message = queue.take().message;
+            }
+            catch(InterruptedException e) {
+                return;
+            }
+            dispatchToHandlers(message);
         }
     }
 
     /**
-     * Dispatches a message to handlers using the thread pool.
+     * Dispatches a message to handlers.
      *
-     * Skips handler(s) for the same source that published the message.
+     * Skips handler(s) for the same source that published the message,
+     * and handler(s) that do not accept the message type.
      *
      * @param message The message to dispatch.
      */
     private void dispatchToHandlers(InternalMessage message) {
-        for(MessageHandler handler : handlers) {
+        for(MessageHandler handler : handlers.get(message.getClass())) {
             // Skip the handler for the source that published this message.
-            if(message.getSourceId() != null
-                    && message.getSourceId().length() > 0
-                    && handler.getOwnSourceId() != null
-                    && handler.getOwnSourceId().length() > 0
-                    && message.getSourceId().equals(handler.getOwnSourceId())
-            ) {
+            if(isOwnMessage(handler, message)) {
                 continue;
             }
 
-            // Run the message handler on the thread pool.
-            handlerPool.submit(() -> {
-                try {
-                    handler.handleMessage(message);
-                }
-                catch(Exception e) {
-                    AMCDB.LOGGER.error("Exception in message handler %s".formatted(handler.getClass().getName()), e);
-                }
-            });
+            try {
+                handler.handleMessage(message);
+            }
+            catch(Exception e) {
+                AMCDB.LOGGER.error("Exception in message handler %s".formatted(handler.getClass().getName()), e);
+            }
         }
     }
+
+    /**
+     * Checks whether the message was published by the same source that the
+     * handler serves, in which case the handler should not receive it.
+     *
+     * @param handler The handler.
+     * @param message The message.
+     * @return True if the message should be skipped for this handler.
+     */
+    static boolean isOwnMessage(MessageHandler handler, InternalMessage message) {
+        return message.getSourceId() != null
+                && message.getSourceId().length() > 0
+                && handler.getOwnSourceId() != null
+                && handler.getOwnSourceId().length() > 0
+                && message.getSourceId().equals(handler.getOwnSourceId());
+    }
 }
@@ -0,0 +1,31 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+
+import java.util.List;
+
+/**
+ * A MessageHandler that can process several messages in one call.
+ *
+ * Brokers that queue messages per handler (e.g. {@link LaneMessageBroker}) call
+ * handleMessages() with everything waiting in the handler's queue at once, so the
+ * handler can process bursts of messages (e.g. console log floods) in a single pass.
+ * Other brokers call handleMessage() for each message.
+ */
+public interface BatchMessageHandler extends MessageHandler {
+
+    /**
+     * Called with one or more published messages.
+     * @param messages The messages that were published, in publish order.
+     */
+    public void handleMessages(List<InternalMessage> messages);
+
+    /**
+     * Called when a new message is published. Handles the message as a batch of one.
+     * @param message The message that was published.
+     */
+    @Override
+    public default void handleMessage(InternalMessage message) {
+        handleMessages(List.of(message));
+    }
+}
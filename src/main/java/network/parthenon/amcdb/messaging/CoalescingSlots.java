@@ -0,0 +1,44 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest-value slots for messages with a coalescing key
+ * (see {@link InternalMessage#getCoalescingKey()}).
+ *
+ * For brokers that cannot replace a message once it is queued. The broker
+ * offers each message as it is published, then resolves each message as it is
+ * dispatched. The first queued message for a key delivers the newest message
+ * published with that key. Later queued messages for the key are skipped,
+ * unless a newer message has been published since then.
+ */
+class CoalescingSlots {
+
+    private final ConcurrentHashMap<String, InternalMessage> latestByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Records a message that is being published.
+     * @param message The published message.
+     */
+    void offer(InternalMessage message) {
+        String key = message.getCoalescingKey();
+        if(key != null) {
+            latestByKey.put(key, message);
+        }
+    }
+
+    /**
+     * Gets the message to deliver in place of a message taken from the queue.
+     * @param message The message taken from the queue.
+     * @return The message to deliver, or null if it has already been delivered.
+     */
+    InternalMessage resolve(InternalMessage message) {
+        String key = message.getCoalescingKey();
+        if(key == null) {
+            return message;
+        }
+        return latestByKey.remove(key);
+    }
+}
@@ -0,0 +1,182 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import network.parthenon.amcdb.util.ThreadSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An ordered dispatch lane serving a single MessageHandler.
+ *
+ * Each lane owns its own queue and worker thread, so a handler that blocks
+ * (e.g. waiting on the Discord API) only delays its own messages. When virtual
+ * threads are enabled (see {@link ThreadSupport}), the worker is a virtual thread.
+ */
+public class HandlerLane {
+
+    /**
+     * Maximum number of messages handed to a {@link BatchMessageHandler} at once.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * The handler served by this lane.
+     */
+    private final MessageHandler handler;
+
+    /**
+     * Messages waiting to be handled, in priority order.
+     */
+    private final LaneQueue queue;
+
+    /**
+     * Worker thread that invokes the handler.
+     */
+    private final Thread worker;
+
+    /**
+     * Time (System.nanoTime()) at which the message currently being handled was
+     * enqueued, or 0 if the worker is idle.
+     */
+    private volatile long inProgressEnqueueTime = 0;
+
+    /**
+     * Total number of messages handed to the handler.
+     */
+    private final AtomicLong handledCount = new AtomicLong();
+
+    /**
+     * Creates a new HandlerLane and starts its worker thread.
+     * @param handler    The handler to serve.
+     * @param threadName Name of the worker thread.
+     * @param capacity   Number of messages the lane holds before applying overflow policies.
+     */
+    HandlerLane(MessageHandler handler, String threadName, int capacity) {
+        this.handler = handler;
+        this.queue = new LaneQueue(capacity);
+
+        this.worker = ThreadSupport.newThread(threadName, this::runWorker);
+        this.worker.start();
+    }
+
+    /**
+     * Adds the provided messages to the end of this lane.
+     * @param messages The messages to enqueue, in order.
+     */
+    void enqueue(InternalMessage... messages) {
+        queue.offer(messages, System.nanoTime());
+    }
+
+    /**
+     * Stops the worker thread. Messages still waiting are discarded.
+     */
+    void shutdown() {
+        worker.interrupt();
+    }
+
+    /**
+     * Gets the handler served by this lane.
+     */
+    public MessageHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Gets the number of messages waiting in this lane, not including any
+     * message currently being handled.
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the age, in milliseconds, of the oldest message in this lane that
+     * has not finished being handled. Returns 0 if the lane is idle.
+     */
+    public long getLagMillis() {
+        long oldest = inProgressEnqueueTime;
+        if(oldest == 0) {
+            oldest = queue.peekEnqueueTime();
+        }
+        if(oldest == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+    }
+
+    /**
+     * Gets the total number of messages this lane has handed to its handler.
+     */
+    public long getHandledCount() {
+        return handledCount.get();
+    }
+
+    /**
+     * Gets the total number of messages this lane has dropped because it was full.
+     */
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+
+    /**
+     * Gets the total number of queued messages this lane has replaced with a newer
+     * message, either because they had the same coalescing key or because the lane
+     * was full.
+     */
+    public long getReplacedCount() {
+        return queue.getReplacedCount();
+    }
+
+    /**
+     * Worker loop. Takes messages from the queue and hands them to the handler,
+     * either one at a time or, for a {@link BatchMessageHandler}, everything
+     * queued at once.
+     */
+    private void runWorker() {
+        BatchMessageHandler batchHandler = handler instanceof BatchMessageHandler ?
+                (BatchMessageHandler) handler :
+                null;
+
+        while(!Thread.currentThread().isInterrupted()) {
+            List<LaneQueue.QueuedMessage> batch;
+            try {
+                batch = queue.takeBatch(batchHandler != null ? MAX_BATCH_SIZE : 1);
+            }
+            catch(InterruptedException e) {
+                return;
+            }
+
+            inProgressEnqueueTime = batch.get(0).enqueueTime;
+            try {
+                if(batchHandler != null) {
+                    List<InternalMessage> messages = new ArrayList<>(batch.size());
+                    for(LaneQueue.QueuedMessage queued : batch) {
+                        messages.add(queued.message);
+                    }
+                    batchHandler.handleMessages(messages);
+                }
+                else {
+                    handler.handleMessage(batch.get(0).message);
+                }
+            }
+            catch(Exception e) {
+                AMCDB.LOGGER.error("Exception in message handler %s".formatted(handler.getClass().getName()), e);
+            }
+            finally {
+                inProgressEnqueueTime = 0;
+                handledCount.addAndGet(batch.size());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HandlerLane{handler=%s,depth=%d,lagMs=%d,handled=%d,dropped=%d,replaced=%d}"
+                .formatted(handler.getClass().getSimpleName(), getDepth(), getLagMillis(), getHandledCount(),
+                        getDroppedCount(), getReplacedCount());
+    }
+}
@@ -0,0 +1,109 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Copy-on-write table mapping InternalMessage classes to the subscribers whose
+ * handlers accept them (see {@link MessageHandler#getAcceptedMessageTypes()}).
+ *
+ * Lookups are lock-free and do not allocate once a message class has been seen.
+ * Subscribing rebuilds the table for every message class seen so far.
+ *
+ * @param <T> Subscriber type (a MessageHandler, or a broker-specific wrapper around one).
+ */
+class HandlerRegistry<T> {
+
+    private final Function<T, MessageHandler> handlerOf;
+
+    private final IntFunction<T[]> arrayFactory;
+
+    /**
+     * All subscribers, in subscription order. Guarded by this.
+     */
+    private List<T> subscribers = List.of();
+
+    /**
+     * Immutable snapshot of the class-to-subscribers table.
+     */
+    private volatile Map<Class<?>, T[]> table = Map.of();
+
+    /**
+     * Creates a new HandlerRegistry.
+     * @param handlerOf    Function returning the MessageHandler for a subscriber.
+     * @param arrayFactory Creates subscriber arrays of the given length.
+     */
+    HandlerRegistry(Function<T, MessageHandler> handlerOf, IntFunction<T[]> arrayFactory) {
+        this.handlerOf = handlerOf;
+        this.arrayFactory = arrayFactory;
+    }
+
+    /**
+     * Adds a subscriber and rebuilds the table.
+     * @param subscriber The subscriber to add.
+     */
+    synchronized void add(T subscriber) {
+        List<T> newSubscribers = new ArrayList<>(subscribers);
+        newSubscribers.add(subscriber);
+        subscribers = Collections.unmodifiableList(newSubscribers);
+
+        Map<Class<?>, T[]> newTable = new HashMap<>();
+        for(Class<?> messageClass : table.keySet()) {
+            newTable.put(messageClass, compute(messageClass));
+        }
+        table = newTable;
+    }
+
+    /**
+     * Gets the subscribers accepting messages of the specified class.
+     * The returned array must not be modified.
+     * @param messageClass The concrete class of the message.
+     * @return Subscribers, in subscription order.
+     */
+    T[] get(Class<? extends InternalMessage> messageClass) {
+        T[] result = table.get(messageClass);
+        return result != null ? result : computeAndInstall(messageClass);
+    }
+
+    /**
+     * Gets all subscribers, in subscription order.
+     */
+    synchronized List<T> getAll() {
+        return subscribers;
+    }
+
+    private synchronized T[] computeAndInstall(Class<?> messageClass) {
+        T[] result = table.get(messageClass);
+        if(result != null) {
+            return result;
+        }
+
+        result = compute(messageClass);
+        Map<Class<?>, T[]> newTable = new HashMap<>(table);
+        newTable.put(messageClass, result);
+        table = newTable;
+        return result;
+    }
+
+    private T[] compute(Class<?> messageClass) {
+        return subscribers.stream()
+                .filter(s -> accepts(handlerOf.apply(s), messageClass))
+                .toArray(arrayFactory);
+    }
+
+    private static boolean accepts(MessageHandler handler, Class<?> messageClass) {
+        for(Class<? extends InternalMessage> acceptedType : handler.getAcceptedMessageTypes()) {
+            if(acceptedType.isAssignableFrom(messageClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+
+import java.util.List;
+
+/**
+ * Message broker that gives each subscribed handler its own ordered lane,
+ * with a dedicated queue and worker thread.
+ *
+ * Messages are delivered to each handler in the order they were published,
+ * but a handler that blocks does not delay delivery to any other handler.
+ */
+public class LaneMessageBroker implements MessageBroker {
+
+    /**
+     * Default number of messages each lane holds before applying overflow policies.
+     */
+    public static final int DEFAULT_LANE_CAPACITY = 10000;
+
+    private static final String THREAD_NAME_FORMAT = "AMCDB Dispatcher (%s)";
+
+    private final HandlerRegistry<HandlerLane> lanes = new HandlerRegistry<>(HandlerLane::getHandler, HandlerLane[]::new);
+
+    private final int laneCapacity;
+
+    /**
+     * Creates a LaneMessageBroker with lanes of {@link #DEFAULT_LANE_CAPACITY}.
+     */
+    public LaneMessageBroker() {
+        this(DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * Creates a LaneMessageBroker with lanes of the specified capacity.
+     *
+     * When a lane is full, incoming messages are handled according to their
+     * {@link OverflowPolicy}.
+     *
+     * @param laneCapacity Number of messages each lane holds before applying overflow policies.
+     */
+    public LaneMessageBroker(int laneCapacity) {
+        this.laneCapacity = laneCapacity;
+    }
+
+    @Override
+    public void subscribe(MessageHandler handler) {
+        lanes.add(new HandlerLane(handler, THREAD_NAME_FORMAT.formatted(handler.getClass().getSimpleName()), laneCapacity));
+    }
+
+    @Override
+    public synchronized void publish(InternalMessage... messages) {
+        for(InternalMessage message : messages) {
+            for(HandlerLane lane : lanes.get(message.getClass())) {
+                // Skip the handler for the source that published this message.
+                if(BackgroundMessageBroker.isOwnMessage(lane.getHandler(), message)) {
+                    continue;
+                }
+                lane.enqueue(message);
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lanes.getAll().forEach(HandlerLane::shutdown);
+    }
+
+    /**
+     * Gets the lanes for all subscribed handlers, e.g. to report depth and lag.
+     * @return Unmodifiable list of lanes.
+     */
+    public List<HandlerLane> getLanes() {
+        return lanes.getAll();
+    }
+
+    /**
+     * Gets the total number of messages dropped by all lanes because they were full.
+     */
+    public long getDroppedCount() {
+        return lanes.getAll().stream().mapToLong(HandlerLane::getDroppedCount).sum();
+    }
+}
@@ -0,0 +1,51 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.util.IntervalRunnable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically logs the depth, lag and counters of each lane of a {@link LaneMessageBroker}.
+ *
+ * The report is logged at INFO when a lane dropped or replaced messages since the
+ * previous report, or is lagging by more than {@link #LAG_WARNING_MILLIS}; otherwise
+ * it is logged at DEBUG.
+ */
+public class LaneMetricsReporter extends IntervalRunnable {
+
+    /**
+     * Lag (in ms) above which a lane is reported at INFO.
+     */
+    static final long LAG_WARNING_MILLIS = 5000;
+
+    private final LaneMessageBroker broker;
+
+    private long lastDroppedCount = 0;
+
+    private long lastReplacedCount = 0;
+
+    public LaneMetricsReporter(LaneMessageBroker broker) {
+        super("AMCDB Lane Metrics");
+        this.broker = broker;
+    }
+
+    @Override
+    public void run() {
+        List<HandlerLane> lanes = broker.getLanes();
+        long dropped = lanes.stream().mapToLong(HandlerLane::getDroppedCount).sum();
+        long replaced = lanes.stream().mapToLong(HandlerLane::getReplacedCount).sum();
+        boolean lagging = lanes.stream().anyMatch(lane -> lane.getLagMillis() > LAG_WARNING_MILLIS);
+
+        String report = "Message lanes: " + lanes.stream().map(HandlerLane::toString).collect(Collectors.joining(", "));
+        if(dropped > lastDroppedCount || replaced > lastReplacedCount || lagging) {
+            AMCDB.LOGGER.info(report);
+        }
+        else {
+            AMCDB.LOGGER.debug(report);
+        }
+        lastDroppedCount = dropped;
+        lastReplacedCount = replaced;
+    }
+}
@@ -0,0 +1,382 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue backing a {@link HandlerLane}.
+ *
+ * When the queue is at capacity, each incoming message is handled according to
+ * its {@link OverflowPolicy}. When droppable messages are discarded, a summary
+ * ConsoleMessage is delivered in their place, among the
+ * {@link MessagePriority#LOW} messages.
+ *
+ * Regardless of capacity, a message with a coalescing key (see
+ * {@link InternalMessage#getCoalescingKey()}) replaces any queued message with
+ * the same key.
+ *
+ * Messages are taken in order of {@link MessagePriority}, then in the order
+ * they were offered.
+ */
+class LaneQueue {
+
+    private final int capacity;
+
+    /**
+     * Queued messages for each priority, indexed by {@link MessagePriority#ordinal()}.
+     */
+    private final ArrayDeque<QueuedMessage>[] queues;
+
+    /**
+     * Total number of messages in all queues.
+     */
+    private int size = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Queued messages that have a coalescing key, by key.
+     */
+    private final HashMap<String, QueuedMessage> queuedByKey = new HashMap<>();
+
+    /**
+     * Number of messages dropped since the last summary was delivered.
+     */
+    private long pendingDropCount = 0;
+
+    /**
+     * Placeholder for the summary of dropped messages in the low priority queue, or
+     * null if none is queued. It is not counted in {@link #size}, and its message is
+     * created when it is taken.
+     */
+    private QueuedMessage pendingSummary;
+
+    /**
+     * Source ID of the most recently dropped message, used for the summary message.
+     */
+    private String lastDroppedSourceId;
+
+    private long droppedCount = 0;
+
+    private long replacedCount = 0;
+
+    /**
+     * Creates a new LaneQueue.
+     * @param capacity Maximum number of messages to hold before applying overflow policies.
+     */
+    LaneQueue(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive (was %d)".formatted(capacity));
+        }
+        this.capacity = capacity;
+
+        @SuppressWarnings("unchecked")
+        ArrayDeque<QueuedMessage>[] queues = new ArrayDeque[MessagePriority.values().length];
+        for(int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        this.queues = queues;
+    }
+
+    /**
+     * Adds the provided messages to the end of the queue, applying overflow
+     * policies as necessary.
+     * @param messages    The messages to enqueue, in order.
+     * @param enqueueTime The time (System.nanoTime()) to record for the messages.
+     */
+    void offer(InternalMessage[] messages, long enqueueTime) {
+        lock.lock();
+        try {
+            for(InternalMessage message : messages) {
+                offerOne(message, enqueueTime);
+            }
+            notEmpty.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the highest priority message, waiting if necessary.
+     * @return The next message.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    QueuedMessage take() throws InterruptedException {
+        lock.lock();
+        try {
+            while(size == 0 && pendingSummary == null) {
+                notEmpty.await();
+            }
+            return tryTake();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the highest priority message without waiting.
+     * @return The next message, or null if the queue is empty.
+     */
+    QueuedMessage tryTake() {
+        lock.lock();
+        try {
+            return poll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to maxMessages messages in priority order, waiting
+     * until at least one is available.
+     * @param maxMessages Maximum number of messages to remove.
+     * @return The removed messages, in order.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    List<QueuedMessage> takeBatch(int maxMessages) throws InterruptedException {
+        lock.lock();
+        try {
+            List<QueuedMessage> batch = new ArrayList<>(Math.min(maxMessages, size + 1));
+            batch.add(take());
+            while(batch.size() < maxMessages && (size > 0 || pendingSummary != null)) {
+                batch.add(poll());
+            }
+            return batch;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the time (System.nanoTime()) at which the oldest queued message
+     * was enqueued, or 0 if the queue is empty.
+     */
+    long peekEnqueueTime() {
+        lock.lock();
+        try {
+            QueuedMessage oldest = peekOldest();
+            return oldest == null ? 0 : oldest.enqueueTime;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    long getReplacedCount() {
+        lock.lock();
+        try {
+            return replacedCount;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a single message. Must be called with the lock held.
+     */
+    private void offerOne(InternalMessage message, long enqueueTime) {
+        String key = message.getCoalescingKey();
+        if(key != null) {
+            QueuedMessage queued = queuedByKey.get(key);
+            if(queued != null) {
+                queued.message = message;
+                queued.enqueueTime = enqueueTime;
+                replacedCount++;
+                return;
+            }
+        }
+
+        OverflowPolicy policy = message.getOverflowPolicy();
+
+        if(size >= capacity) {
+            if(policy == OverflowPolicy.KEEP_LATEST && replaceQueued(message, enqueueTime)) {
+                return;
+            }
+            if(!dropOldest() && policy == OverflowPolicy.DROP_OLDEST) {
+                // nothing droppable is queued ahead of this message; drop it instead
+                recordDrop(message, enqueueTime, false);
+                return;
+            }
+        }
+
+        QueuedMessage queued = new QueuedMessage(message, enqueueTime);
+        queues[message.getPriority().ordinal()].add(queued);
+        size++;
+        index(queued);
+    }
+
+    /**
+     * Removes the first message of the highest priority. Must be called with the lock held.
+     */
+    private QueuedMessage poll() {
+        for(ArrayDeque<QueuedMessage> queue : queues) {
+            QueuedMessage queued = queue.poll();
+            if(queued != null && queued == pendingSummary) {
+                queued.message = new ConsoleMessage(lastDroppedSourceId,
+                        "[AMCDB] %d line(s) dropped because the message queue was full".formatted(pendingDropCount));
+                pendingSummary = null;
+                pendingDropCount = 0;
+                return queued;
+            }
+            if(queued != null) {
+                size--;
+                unindex(queued);
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the message that has been queued the longest, regardless of priority.
+     * Must be called with the lock held.
+     */
+    private QueuedMessage peekOldest() {
+        QueuedMessage oldest = null;
+        for(ArrayDeque<QueuedMessage> queue : queues) {
+            QueuedMessage head = queue.peek();
+            if(head != null && (oldest == null || head.enqueueTime - oldest.enqueueTime < 0)) {
+                oldest = head;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Records a queued message under its coalescing key, if it has one.
+     * Must be called with the lock held.
+     */
+    private void index(QueuedMessage queued) {
+        String key = queued.message.getCoalescingKey();
+        if(key != null) {
+            queuedByKey.putIfAbsent(key, queued);
+        }
+    }
+
+    /**
+     * Removes a queued message from the coalescing key index.
+     * Must be called with the lock held.
+     */
+    private void unindex(QueuedMessage queued) {
+        String key = queued.message.getCoalescingKey();
+        if(key != null) {
+            queuedByKey.remove(key, queued);
+        }
+    }
+
+    /**
+     * Replaces the most recent queued message of the same type as the provided message.
+     * Must be called with the lock held.
+     * @return True if a message was replaced.
+     */
+    private boolean replaceQueued(InternalMessage message, long enqueueTime) {
+        Iterator<QueuedMessage> iterator = queues[message.getPriority().ordinal()].descendingIterator();
+        while(iterator.hasNext()) {
+            QueuedMessage queued = iterator.next();
+            if(queued.message.getClass() == message.getClass()) {
+                unindex(queued);
+                queued.message = message;
+                queued.enqueueTime = enqueueTime;
+                index(queued);
+                replacedCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the oldest queued message with the {@link OverflowPolicy#DROP_OLDEST} policy.
+     * Must be called with the lock held.
+     * @return True if a message was dropped.
+     */
+    private boolean dropOldest() {
+        // droppable messages are usually low priority, so look there first
+        for(int i = queues.length - 1; i >= 0; i--) {
+            Iterator<QueuedMessage> iterator = queues[i].iterator();
+            while(iterator.hasNext()) {
+                QueuedMessage queued = iterator.next();
+                if(queued != pendingSummary && queued.message.getOverflowPolicy() == OverflowPolicy.DROP_OLDEST) {
+                    iterator.remove();
+                    size--;
+                    unindex(queued);
+                    recordDrop(queued.message, queued.enqueueTime, true);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts a dropped message, queueing a summary in the low priority queue if
+     * there is not one already: ahead of the other low priority messages if the
+     * dropped message was the oldest, otherwise after them.
+     * Must be called with the lock held.
+     */
+    private void recordDrop(InternalMessage message, long enqueueTime, boolean wasQueued) {
+        droppedCount++;
+        pendingDropCount++;
+        lastDroppedSourceId = message.getSourceId();
+        if(pendingSummary == null) {
+            // the message is replaced when the summary is taken
+            pendingSummary = new QueuedMessage(message, enqueueTime);
+            ArrayDeque<QueuedMessage> low = queues[MessagePriority.LOW.ordinal()];
+            if(wasQueued) {
+                low.addFirst(pendingSummary);
+            }
+            else {
+                low.addLast(pendingSummary);
+            }
+        }
+    }
+
+    /**
+     * A message waiting in the queue, along with the time it was enqueued.
+     */
+    static class QueuedMessage {
+        InternalMessage message;
+
+        long enqueueTime;
+
+        QueuedMessage(InternalMessage message, long enqueueTime) {
+            this.message = message;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+}
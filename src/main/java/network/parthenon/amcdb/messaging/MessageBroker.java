@@ -14,11 +14,18 @@ public interface MessageBroker {
      * Publishes message(s) to the queue and returns immediately.
      * Handlers are invoked on separate threads.
      * <p>
-     * This method is synchronized so that if multiple messages are
-     * supplied in a single call, they are guaranteed to be published
-     * sequentially with no gaps.
+     * If multiple messages are supplied in a single call, implementations
+     * guarantee that they are published sequentially with no gaps. Implementations
+     * may deliver waiting messages of higher {@link MessagePriority} first; messages
+     * of the same priority are always delivered in publish order.
      *
      * @param messages The message(s) to publish.
      */
     void publish(InternalMessage... messages);
+
+    /**
+     * Stops the broker's background thread(s). Messages that have not yet been
+     * delivered are discarded, and later messages are not delivered.
+     */
+    void shutdown();
 }
@@ -2,6 +2,8 @@ package network.parthenon.amcdb.messaging;
 
 import network.parthenon.amcdb.messaging.message.InternalMessage;
 
+import java.util.Set;
+
 /**
  * Receives InternalMessages published to the message broker.
  */
@@ -23,4 +25,17 @@ public interface MessageHandler {
      * @return Source ID to ignore.
      */
     public String getOwnSourceId();
+
+    /**
+     * Gets the message types this handler accepts.
+     *
+     * The message broker only calls handleMessage() with messages that are instances
+     * of at least one of these types. Handlers should override this to receive only
+     * the messages they act on.
+     *
+     * @return Accepted message types. Defaults to all messages.
+     */
+    public default Set<Class<? extends InternalMessage>> getAcceptedMessageTypes() {
+        return Set.of(InternalMessage.class);
+    }
 }
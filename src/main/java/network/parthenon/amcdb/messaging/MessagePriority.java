@@ -0,0 +1,21 @@
+package network.parthenon.amcdb.messaging;
+
+/**
+ * Determines the order in which queued messages are handled. Queued messages
+ * of higher priority are handled before those of lower priority; messages of
+ * the same priority are handled in publish order.
+ */
+public enum MessagePriority {
+    /**
+     * Interactive traffic (e.g. chat), which should never wait behind bulk traffic.
+     */
+    HIGH,
+    /**
+     * Default priority.
+     */
+    NORMAL,
+    /**
+     * Bulk traffic (e.g. console log lines).
+     */
+    LOW
+}
@@ -0,0 +1,21 @@
+package network.parthenon.amcdb.messaging;
+
+/**
+ * Determines what a bounded message queue does with a message when it is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The message is never dropped. It is queued even if the queue is over capacity,
+     * after making room by dropping a droppable message if possible.
+     */
+    NEVER_DROP,
+    /**
+     * Only the most recent message of this type is needed. A queued message of
+     * the same type is replaced by the newer one.
+     */
+    KEEP_LATEST,
+    /**
+     * Bulk traffic. The oldest queued message with this policy is dropped to make room.
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,283 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import network.parthenon.amcdb.util.ThreadSupport;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Message broker that passes messages to a background dispatcher thread through
+ * a preallocated multi-producer ring buffer.
+ *
+ * Publishing does not take a lock while the ring buffer has room: producers claim
+ * a contiguous range of sequence numbers with a single compare-and-set, so multiple
+ * messages supplied in one call are still dispatched sequentially with no gaps. The
+ * set of handlers is kept as a copy-on-write snapshot, so dispatching never allocates.
+ *
+ * Messages in the ring buffer are dispatched strictly in publish order;
+ * {@link MessagePriority} is not applied.
+ *
+ * Publishing never blocks. When the ring buffer is full, messages go to a bounded
+ * overflow queue instead, which applies each message's {@link OverflowPolicy} (see
+ * {@link LaneQueue}), and later messages follow them there until it has drained.
+ * The overflow queue is dispatched, in priority order, once the messages already
+ * in the ring buffer have been dispatched.
+ */
+public class RingBufferMessageBroker implements MessageBroker {
+
+    /**
+     * Default number of slots in the ring buffer. Must be a power of two.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final String THREAD_NAME = "AMCDB Dispatcher";
+
+    /**
+     * Maximum time the dispatcher parks while idle before re-checking the buffer.
+     * Producers unpark it as soon as they publish, so this is only a safety net.
+     */
+    private static final long DISPATCHER_IDLE_PARK_NANOS = 100_000_000L;
+
+    /**
+     * Message slots. Slot for sequence n is at index (n & mask).
+     */
+    private final InternalMessage[] slots;
+
+    private final int mask;
+
+    private final int indexShift;
+
+    /**
+     * For each slot, the "lap" number (sequence >>> indexShift) of the message most
+     * recently written to it. The dispatcher uses this to determine whether a slot
+     * has been published, which allows producers to fill their claimed ranges
+     * concurrently.
+     */
+    private final AtomicIntegerArray availableLaps;
+
+    /**
+     * Highest sequence number claimed by any producer.
+     */
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+
+    /**
+     * Highest sequence number taken by the dispatcher.
+     */
+    private volatile long dispatchSequence = -1;
+
+    /**
+     * Whether the dispatcher is (about to be) parked waiting for messages.
+     */
+    private volatile boolean dispatcherWaiting = false;
+
+    /**
+     * Copy-on-write table of subscribed handlers by message type.
+     */
+    private final HandlerRegistry<MessageHandler> handlers = new HandlerRegistry<>(h -> h, MessageHandler[]::new);
+
+    private final CoalescingSlots coalescingSlots = new CoalescingSlots();
+
+    /**
+     * Messages published while the ring buffer was full.
+     */
+    private final LaneQueue overflow;
+
+    /**
+     * Whether the overflow queue may hold messages. Only changed while holding
+     * the lock on {@link #overflow}; while set, producers publish to the overflow
+     * queue, so that each producer's messages stay in order.
+     */
+    private volatile boolean overflowing = false;
+
+    private final Thread dispatcher;
+
+    /**
+     * Creates a RingBufferMessageBroker with {@link #DEFAULT_CAPACITY} slots.
+     */
+    public RingBufferMessageBroker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Gets the smallest valid capacity (a power of two) of at least the specified number of slots.
+     * @param minimum Minimum number of slots. Must be positive.
+     */
+    public static int capacityFor(int minimum) {
+        if(minimum < 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive (was %d)".formatted(minimum));
+        }
+        if(minimum == 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(Math.min(minimum - 1, (1 << 30) - 1)) << 1;
+    }
+
+    /**
+     * Creates a RingBufferMessageBroker with the specified number of slots.
+     * The overflow queue holds up to the same number of messages.
+     * @param capacity Number of slots. Must be a power of two.
+     */
+    public RingBufferMessageBroker(int capacity) {
+        if(capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two (was %d)".formatted(capacity));
+        }
+
+        this.slots = new InternalMessage[capacity];
+        this.mask = capacity - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(capacity);
+        this.availableLaps = new AtomicIntegerArray(capacity);
+        for(int i = 0; i < capacity; i++) {
+            availableLaps.set(i, -1);
+        }
+        this.overflow = new LaneQueue(capacity);
+
+        this.dispatcher = ThreadSupport.newThread(THREAD_NAME, this::runDispatcher);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public void subscribe(MessageHandler handler) {
+        handlers.add(handler);
+    }
+
+    @Override
+    public void publish(InternalMessage... messages) {
+        int count = messages.length;
+        if(count == 0) {
+            return;
+        }
+
+        // claim a contiguous range of sequence numbers
+        long first;
+        long last;
+        while(true) {
+            long current = claimSequence.get();
+            last = current + count;
+            if(overflowing || last - slots.length > dispatchSequence) {
+                // buffer is full (or was, and has not caught up yet); don't wait for the dispatcher
+                publishOverflow(messages);
+                return;
+            }
+            if(claimSequence.compareAndSet(current, last)) {
+                first = current + 1;
+                break;
+            }
+        }
+
+        for(long sequence = first; sequence <= last; sequence++) {
+            int index = (int) sequence & mask;
+            InternalMessage message = messages[(int) (sequence - first)];
+            coalescingSlots.offer(message);
+            slots[index] = message;
+            availableLaps.set(index, (int) (sequence >>> indexShift));
+        }
+
+        if(dispatcherWaiting) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        dispatcher.interrupt();
+    }
+
+    /**
+     * Gets the total number of messages dropped because the overflow queue was full.
+     */
+    public long getDroppedCount() {
+        return overflow.getDroppedCount();
+    }
+
+    /**
+     * Adds messages to the overflow queue, applying their overflow policies.
+     */
+    private void publishOverflow(InternalMessage[] messages) {
+        synchronized(overflow) {
+            overflowing = true;
+            overflow.offer(messages, System.nanoTime());
+        }
+        if(dispatcherWaiting) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Dispatches the overflow queue until it is empty, then returns producers to the ring buffer.
+     */
+    private void drainOverflow() {
+        while(!Thread.currentThread().isInterrupted()) {
+            LaneQueue.QueuedMessage queued;
+            synchronized(overflow) {
+                queued = overflow.tryTake();
+                if(queued == null) {
+                    overflowing = false;
+                    return;
+                }
+            }
+            dispatchToHandlers(queued.message);
+        }
+    }
+
+    /**
+     * Dispatcher loop. Takes messages from the ring buffer in sequence order
+     * and hands each to the current snapshot of handlers.
+     */
+    private void runDispatcher() {
+        long next = 0;
+        while(!Thread.currentThread().isInterrupted()) {
+            int index = (int) next & mask;
+            int lap = (int) (next >>> indexShift);
+
+            if(availableLaps.get(index) != lap) {
+                if(overflowing && next > claimSequence.get()) {
+                    // everything published to the ring buffer has been dispatched
+                    drainOverflow();
+                    continue;
+                }
+                dispatcherWaiting = true;
+                // re-check after announcing we're waiting so that we can't miss an unpark
+                if(availableLaps.get(index) != lap && !overflowing) {
+                    LockSupport.parkNanos(this, DISPATCHER_IDLE_PARK_NANOS);
+                }
+                dispatcherWaiting = false;
+                continue;
+            }
+
+            InternalMessage message = coalescingSlots.resolve(slots[index]);
+            slots[index] = null;
+            // release the slot to producers before running the (possibly slow) handlers
+            dispatchSequence = next;
+            next++;
+
+            if(message == null) {
+                // a newer message with the same key was already dispatched
+                continue;
+            }
+
+            dispatchToHandlers(message);
+        }
+    }
+
+    /**
+     * Dispatches a message to handlers, skipping handler(s) for the source that published it.
+     */
+    private void dispatchToHandlers(InternalMessage message) {
+        for(MessageHandler handler : handlers.get(message.getClass())) {
+            // Skip the handler for the source that published this message.
+            if(BackgroundMessageBroker.isOwnMessage(handler, message)) {
+                continue;
+            }
+
+            try {
+                handler.handleMessage(message);
+            }
+            catch(Exception e) {
+                AMCDB.LOGGER.error("Exception in message handler %s".formatted(handler.getClass().getName()), e);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package network.parthenon.amcdb.messaging.message;
 
+import network.parthenon.amcdb.messaging.MessagePriority;
 import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 
 import java.util.List;
@@ -16,4 +17,12 @@ public class BroadcastMessage extends InternalMessage {
     public BroadcastMessage(String sourceId, List<? extends InternalMessageComponent> components) {
         super(sourceId, components);
     }
+
+    /**
+     * Broadcasts appear in chat alongside chat messages, so they share its priority.
+     */
+    @Override
+    public MessagePriority getPriority() {
+        return MessagePriority.HIGH;
+    }
 }
@@ -1,5 +1,6 @@
 package network.parthenon.amcdb.messaging.message;
 
+import network.parthenon.amcdb.messaging.MessagePriority;
 import network.parthenon.amcdb.messaging.component.EntityReference;
 import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 import network.parthenon.amcdb.messaging.component.TextComponent;
@@ -61,4 +62,12 @@ public class ChatMessage extends InternalMessage {
     public EntityReference getAuthor() {
         return author;
     }
+
+    /**
+     * Chat is interactive, so it is handled ahead of bulk traffic.
+     */
+    @Override
+    public MessagePriority getPriority() {
+        return MessagePriority.HIGH;
+    }
 }
@@ -1,5 +1,7 @@
 package network.parthenon.amcdb.messaging.message;
 
+import network.parthenon.amcdb.messaging.MessagePriority;
+import network.parthenon.amcdb.messaging.OverflowPolicy;
 import network.parthenon.amcdb.messaging.component.EntityReference;
 import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 
@@ -15,6 +17,32 @@ public class ConsoleMessage extends InternalMessage {
      */
     private final EntityReference author;
 
+    /**
+     * Log level (e.g. INFO) of the log line, or null if unknown.
+     */
+    private final String level;
+
+    /**
+     * Name of the logger that logged the line, or null if unknown.
+     */
+    private final String loggerName;
+
+    /**
+     * Name of the thread that logged the line, or null if unknown.
+     */
+    private final String threadName;
+
+    /**
+     * Time the line was logged (milliseconds since the epoch), or 0 if unknown.
+     */
+    private final long timestamp;
+
+    /**
+     * Name of the log stream (e.g. an additional log file) the line came from,
+     * or null for the main server log.
+     */
+    private final String stream;
+
     /**
      * Creates an unformatted ConsoleMessage with the specified source ID and text,
      * and no author.
@@ -22,8 +50,7 @@ public class ConsoleMessage extends InternalMessage {
      * @param text     Message content
      */
     public ConsoleMessage(String sourceId, String text) {
-        super(sourceId, text);
-        author = null;
+        this(sourceId, (EntityReference) null, text);
     }
 
     /**
@@ -33,8 +60,7 @@ public class ConsoleMessage extends InternalMessage {
      * @param components Message content
      */
     public ConsoleMessage(String sourceId, List<? extends InternalMessageComponent> components) {
-        super(sourceId, components);
-        author = null;
+        this(sourceId, (EntityReference) null, components);
     }
 
     /**
@@ -46,6 +72,11 @@ public class ConsoleMessage extends InternalMessage {
     public ConsoleMessage(String sourceId, EntityReference author, String text) {
         super(sourceId, text);
         this.author = author;
+        this.level = null;
+        this.loggerName = null;
+        this.threadName = null;
+        this.timestamp = 0;
+        this.stream = null;
     }
 
     /**
@@ -57,6 +88,44 @@ public class ConsoleMessage extends InternalMessage {
     public ConsoleMessage(String sourceId, EntityReference author, List<? extends InternalMessageComponent> components) {
         super(sourceId, components);
         this.author = author;
+        this.level = null;
+        this.loggerName = null;
+        this.threadName = null;
+        this.timestamp = 0;
+        this.stream = null;
+    }
+
+    /**
+     * Creates an unformatted ConsoleMessage for a log line, with no author.
+     * @param sourceId   Message source ID
+     * @param text       Message content
+     * @param level      Log level (e.g. INFO), or null if unknown
+     * @param loggerName Name of the logger that logged the line, or null if unknown
+     * @param threadName Name of the thread that logged the line, or null if unknown
+     * @param timestamp  Time the line was logged (milliseconds since the epoch), or 0 if unknown
+     */
+    public ConsoleMessage(String sourceId, String text, String level, String loggerName, String threadName, long timestamp) {
+        this(sourceId, text, level, loggerName, threadName, timestamp, null);
+    }
+
+    /**
+     * Creates an unformatted ConsoleMessage for a line from a particular log stream, with no author.
+     * @param sourceId   Message source ID
+     * @param text       Message content
+     * @param level      Log level (e.g. INFO), or null if unknown
+     * @param loggerName Name of the logger that logged the line, or null if unknown
+     * @param threadName Name of the thread that logged the line, or null if unknown
+     * @param timestamp  Time the line was logged (milliseconds since the epoch), or 0 if unknown
+     * @param stream     Name of the log stream the line came from, or null for the main server log
+     */
+    public ConsoleMessage(String sourceId, String text, String level, String loggerName, String threadName, long timestamp, String stream) {
+        super(sourceId, text);
+        this.author = null;
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = threadName;
+        this.timestamp = timestamp;
+        this.stream = stream;
     }
 
     /**
@@ -69,4 +138,58 @@ public class ConsoleMessage extends InternalMessage {
     public EntityReference getAuthor() {
         return author;
     }
+
+    /**
+     * Gets the log level (e.g. INFO) of the log line, or null if unknown.
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the name of the logger that logged the line, or null if unknown.
+     */
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    /**
+     * Gets the name of the thread that logged the line, or null if unknown.
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Gets the time the line was logged (milliseconds since the epoch), or 0 if unknown.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the name of the log stream (e.g. an additional log file) the line came
+     * from, or null for the main server log.
+     */
+    public String getStream() {
+        return stream;
+    }
+
+    /**
+     * Log lines (messages without an author) may be dropped under load.
+     * Console commands sent by a user are never dropped.
+     */
+    @Override
+    public OverflowPolicy getOverflowPolicy() {
+        return author == null ? OverflowPolicy.DROP_OLDEST : OverflowPolicy.NEVER_DROP;
+    }
+
+    /**
+     * Log lines are bulk traffic and yield to other messages.
+     * Console commands sent by a user keep the default priority.
+     */
+    @Override
+    public MessagePriority getPriority() {
+        return author == null ? MessagePriority.LOW : MessagePriority.NORMAL;
+    }
 }
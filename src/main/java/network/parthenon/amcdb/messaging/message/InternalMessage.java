@@ -1,5 +1,7 @@
 package network.parthenon.amcdb.messaging.message;
 
+import network.parthenon.amcdb.messaging.MessagePriority;
+import network.parthenon.amcdb.messaging.OverflowPolicy;
 import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 import network.parthenon.amcdb.messaging.component.SplittableInternalMessageComponent;
 import network.parthenon.amcdb.messaging.component.TextComponent;
@@ -66,6 +68,32 @@ public abstract class InternalMessage {
         return components;
     }
 
+    /**
+     * What a bounded message queue should do with this message when it is full.
+     * Defaults to {@link OverflowPolicy#NEVER_DROP}; bulk message types override this.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return OverflowPolicy.NEVER_DROP;
+    }
+
+    /**
+     * Order in which a message queue should handle this message relative to others.
+     * Defaults to {@link MessagePriority#NORMAL}.
+     */
+    public MessagePriority getPriority() {
+        return MessagePriority.NORMAL;
+    }
+
+    /**
+     * Key identifying messages that supersede one another. If a message with a
+     * non-null key is published while an older message with the same key is still
+     * waiting to be handled, the newer message takes its place. Defaults to null
+     * (no coalescing).
+     */
+    public String getCoalescingKey() {
+        return null;
+    }
+
     public String getUnformattedContents() {
         return components.stream()
                 .map(InternalMessageComponent::getText)
@@ -1,5 +1,6 @@
 package network.parthenon.amcdb.messaging.message;
 
+import network.parthenon.amcdb.messaging.OverflowPolicy;
 import network.parthenon.amcdb.messaging.component.DateComponent;
 import network.parthenon.amcdb.messaging.component.InternalMessageComponent;
 import network.parthenon.amcdb.messaging.component.TextComponent;
@@ -13,6 +14,8 @@ import java.util.function.Supplier;
  */
 public class ServerStatusMessage extends InternalMessage {
 
+    private static final String COALESCING_KEY = "ServerStatus";
+
     /**
      * Milliseconds per tick (MSPT).
      */
@@ -111,6 +114,24 @@ public class ServerStatusMessage extends InternalMessage {
         return null;
     }
 
+    /**
+     * Only the most recent status is relevant, so older queued statuses
+     * are replaced when the queue is full.
+     */
+    @Override
+    public OverflowPolicy getOverflowPolicy() {
+        return OverflowPolicy.KEEP_LATEST;
+    }
+
+    /**
+     * Handlers only care about the freshest status, so a newer status
+     * replaces one that has not yet been handled.
+     */
+    @Override
+    public String getCoalescingKey() {
+        return COALESCING_KEY;
+    }
+
     /**
      * Gets the average milliseconds per tick (MSPT).
      * @return
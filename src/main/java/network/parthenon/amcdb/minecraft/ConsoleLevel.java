@@ -0,0 +1,50 @@
+package network.parthenon.amcdb.minecraft;
+
+/**
+ * Severity of a server log line, from least to most severe.
+ */
+public enum ConsoleLevel {
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    FATAL;
+
+    private static final ConsoleLevel[] VALUES = values();
+
+    /**
+     * Returns whether this level is at least as severe as the other.
+     */
+    public boolean isAtLeast(ConsoleLevel other) {
+        return compareTo(other) >= 0;
+    }
+
+    /**
+     * Gets the level whose name occupies the specified region of a string, without
+     * allocating.
+     * @param source The string.
+     * @param start  Start of the region (inclusive).
+     * @param end    End of the region (exclusive).
+     * @return The level, or null if the region is not a level name.
+     */
+    public static ConsoleLevel parse(String source, int start, int end) {
+        int length = end - start;
+        for(ConsoleLevel level : VALUES) {
+            String name = level.name();
+            if(name.length() == length && source.regionMatches(start, name, 0, length)) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the level with the specified name.
+     * @param name The level name, e.g. "INFO".
+     * @return The level, or null if the name is not a level name.
+     */
+    public static ConsoleLevel parse(String name) {
+        return parse(name, 0, name.length());
+    }
+}
@@ -0,0 +1,168 @@
+package network.parthenon.amcdb.minecraft;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Groups continuation lines in a log (e.g. stack trace frames) with the line
+ * that started them, so that one log event is published as one message.
+ *
+ * A line is a continuation if it is indented, starts with "Caused by:" or
+ * "Suppressed:", or names an exception (e.g. "java.lang.IllegalStateException: ...").
+ * Since the end of an event is only known when the next event starts, a pending
+ * event is also emitted once it has waited {@link #MAX_WAIT_NANOS}, or once it
+ * reaches {@link #MAX_LINES} lines or {@link #MAX_CHARS} characters.
+ *
+ * An optional filter is applied to the first line of each event; if it rejects
+ * the line, the whole event (including e.g. its stack trace) is discarded.
+ */
+class ConsoleLineAggregator {
+
+    /**
+     * Maximum time an event is held waiting for further continuation lines.
+     */
+    static final long MAX_WAIT_NANOS = 250_000_000L;
+
+    /**
+     * Maximum number of lines grouped into one event.
+     */
+    static final int MAX_LINES = 200;
+
+    /**
+     * Maximum number of characters grouped into one event.
+     */
+    static final int MAX_CHARS = 16_000;
+
+    /**
+     * First line of a stack trace, when logged without a log record header.
+     */
+    private static final Pattern EXCEPTION_HEADER =
+            Pattern.compile("^(?:[a-zA-Z_$][\\w$]*\\.)+[\\w$]*(?:Exception|Error|Throwable)(?::.*)?$");
+
+    private final Predicate<String> filter;
+
+    private final Consumer<String> sink;
+
+    private final StringBuilder pending = new StringBuilder();
+
+    private int pendingLines = 0;
+
+    /**
+     * Whether the current event was rejected by the filter, so its continuation
+     * lines should be discarded too.
+     */
+    private boolean discarding = false;
+
+    /**
+     * Time (System.nanoTime()) at which the pending event's first line was received.
+     */
+    private long pendingSince;
+
+    /**
+     * Creates a ConsoleLineAggregator that emits every event.
+     * @param sink Receives each complete event, with lines separated by "\n".
+     */
+    ConsoleLineAggregator(Consumer<String> sink) {
+        this(line -> true, sink);
+    }
+
+    /**
+     * Creates a ConsoleLineAggregator.
+     * @param filter Tests the first line of each event; events it rejects are discarded.
+     * @param sink   Receives each complete event, with lines separated by "\n".
+     */
+    ConsoleLineAggregator(Predicate<String> filter, Consumer<String> sink) {
+        this.filter = filter;
+        this.sink = sink;
+    }
+
+    /**
+     * Adds a line to the current event, or emits the current event and starts
+     * a new one.
+     * @param line The line.
+     * @param now  Current time (System.nanoTime()).
+     */
+    void accept(String line, long now) {
+        if(discarding) {
+            if(isContinuation(line)) {
+                return;
+            }
+            discarding = false;
+        }
+
+        if(pendingLines > 0
+                && pendingLines < MAX_LINES
+                && pending.length() + line.length() + 1 <= MAX_CHARS
+                && isContinuation(line)) {
+            pending.append('\n').append(line);
+            pendingLines++;
+            return;
+        }
+
+        flush();
+        if(!filter.test(line)) {
+            discarding = true;
+            return;
+        }
+        pending.append(line);
+        pendingLines = 1;
+        pendingSince = now;
+    }
+
+    /**
+     * Emits the pending event if it has waited long enough.
+     * @param now Current time (System.nanoTime()).
+     * @return Nanoseconds until the pending event should be emitted,
+     *         or -1 if no event is pending.
+     */
+    long flushIfExpired(long now) {
+        if(pendingLines == 0) {
+            return -1;
+        }
+        long remaining = pendingSince + MAX_WAIT_NANOS - now;
+        if(remaining <= 0) {
+            flush();
+            return -1;
+        }
+        return remaining;
+    }
+
+    /**
+     * Emits the pending event, if any.
+     */
+    void flush() {
+        if(pendingLines > 0) {
+            sink.accept(pending.toString());
+            pending.setLength(0);
+            pendingLines = 0;
+        }
+    }
+
+    /**
+     * Gets the number of lines in the pending event, or 0 if no event is pending.
+     */
+    int getPendingLines() {
+        return pendingLines;
+    }
+
+    /**
+     * Returns whether the line continues the previous log event.
+     */
+    static boolean isContinuation(String line) {
+        if(line.isEmpty()) {
+            return false;
+        }
+        char first = line.charAt(0);
+        if(first == ' ' || first == '\t') {
+            return true;
+        }
+        if(first == '[') {
+            // start of a log record, e.g. "[12:34:56] [Server thread/INFO]: ..."
+            return false;
+        }
+        return line.startsWith("Caused by:")
+                || line.startsWith("Suppressed:")
+                || EXCEPTION_HEADER.matcher(line).matches();
+    }
+}
@@ -0,0 +1,165 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.config.MinecraftConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which server log events are mirrored to the console channel, based on
+ * their level, logger and thread. Checks are made against the raw log line (or
+ * log event fields) without allocating, so unwanted lines are dropped before a
+ * ConsoleMessage is created.
+ *
+ * A name in any of the lists matches a log event if it is equal to the event's
+ * thread name, its logger name, or the last part of a dot-separated logger name
+ * (e.g. "MinecraftServer" matches "net.minecraft.server.MinecraftServer").
+ */
+public class ConsoleLineFilter {
+
+    /**
+     * Least severe level mirrored for events without a per-name level.
+     */
+    private final ConsoleLevel minLevel;
+
+    /**
+     * Names with their own minimum levels. The first matching name applies.
+     */
+    private final String[] levelNames;
+
+    private final ConsoleLevel[] levels;
+
+    /**
+     * If non-null, only events matching one of these names are mirrored.
+     */
+    private final String[] include;
+
+    /**
+     * Events matching one of these names are not mirrored.
+     */
+    private final String[] exclude;
+
+    /**
+     * Creates a ConsoleLineFilter.
+     * @param minLevel Least severe level mirrored.
+     * @param levels   Minimum levels for particular loggers or threads, overriding minLevel.
+     * @param include  If non-null, only events from these loggers or threads are mirrored.
+     * @param exclude  Events from these loggers or threads are not mirrored.
+     */
+    public ConsoleLineFilter(ConsoleLevel minLevel, Map<String, ConsoleLevel> levels, List<String> include, List<String> exclude) {
+        this(minLevel,
+                levels.keySet().toArray(new String[0]),
+                levels.values().toArray(new ConsoleLevel[0]),
+                include == null ? null : include.toArray(new String[0]),
+                exclude.toArray(new String[0]));
+    }
+
+    private ConsoleLineFilter(ConsoleLevel minLevel, String[] levelNames, ConsoleLevel[] levels, String[] include, String[] exclude) {
+        this.minLevel = minLevel;
+        this.levelNames = levelNames;
+        this.levels = levels;
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    /**
+     * Creates a copy of this filter with a different minimum level.
+     */
+    public ConsoleLineFilter withMinLevel(ConsoleLevel minLevel) {
+        return new ConsoleLineFilter(minLevel, levelNames, levels, include, exclude);
+    }
+
+    /**
+     * Returns whether the most recently parsed log line should be mirrored.
+     * Lines without a recognized header are treated as INFO lines with no
+     * logger or thread.
+     * @param parsed Parser holding the line.
+     */
+    public boolean accepts(LogLineParser parsed) {
+        if(!parsed.isParsed()) {
+            return accepts(ConsoleLevel.INFO, null, -1, -1, null, -1, -1);
+        }
+        String line = parsed.getLine();
+        return accepts(parsed.getLevel(),
+                line, parsed.getThreadStart(), parsed.getThreadEnd(),
+                line, parsed.getLoggerStart(), parsed.getLoggerEnd());
+    }
+
+    /**
+     * Returns whether a log event should be mirrored.
+     * @param level      The event's level.
+     * @param loggerName The event's logger name, or null if unknown.
+     * @param threadName The event's thread name, or null if unknown.
+     */
+    public boolean accepts(ConsoleLevel level, String loggerName, String threadName) {
+        return accepts(level,
+                threadName, 0, threadName == null ? -1 : threadName.length(),
+                loggerName, 0, loggerName == null ? -1 : loggerName.length());
+    }
+
+    private boolean accepts(ConsoleLevel level,
+                            String thread, int threadStart, int threadEnd,
+                            String logger, int loggerStart, int loggerEnd) {
+        ConsoleLevel required = minLevel;
+        for(int i = 0; i < levelNames.length; i++) {
+            if(matches(levelNames[i], thread, threadStart, threadEnd, logger, loggerStart, loggerEnd)) {
+                required = levels[i];
+                break;
+            }
+        }
+        if(!level.isAtLeast(required)) {
+            return false;
+        }
+
+        if(include != null && !matchesAny(include, thread, threadStart, threadEnd, logger, loggerStart, loggerEnd)) {
+            return false;
+        }
+        return !matchesAny(exclude, thread, threadStart, threadEnd, logger, loggerStart, loggerEnd);
+    }
+
+    private static boolean matchesAny(String[] names,
+                                      String thread, int threadStart, int threadEnd,
+                                      String logger, int loggerStart, int loggerEnd) {
+        for(String name : names) {
+            if(matches(name, thread, threadStart, threadEnd, logger, loggerStart, loggerEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String name,
+                                   String thread, int threadStart, int threadEnd,
+                                   String logger, int loggerStart, int loggerEnd) {
+        int length = name.length();
+        if(threadStart >= 0 && threadEnd - threadStart == length
+                && thread.regionMatches(threadStart, name, 0, length)) {
+            return true;
+        }
+        if(loggerStart < 0) {
+            return false;
+        }
+        int loggerLength = loggerEnd - loggerStart;
+        if(loggerLength == length) {
+            return logger.regionMatches(loggerStart, name, 0, length);
+        }
+        // match the last part of a dot-separated logger name
+        return loggerLength > length
+                && logger.charAt(loggerEnd - length - 1) == '.'
+                && logger.regionMatches(loggerEnd - length, name, 0, length);
+    }
+
+    /**
+     * Creates a ConsoleLineFilter from the Minecraft configuration.
+     */
+    public static ConsoleLineFilter fromConfig(MinecraftConfig config) {
+        Map<String, ConsoleLevel> levels = new LinkedHashMap<>();
+        config.getMinecraftConsoleLevels().forEach((name, level) -> levels.put(name, ConsoleLevel.valueOf(level)));
+        return new ConsoleLineFilter(
+                ConsoleLevel.valueOf(config.getMinecraftConsoleMinLevel()),
+                levels,
+                config.getMinecraftConsoleInclude().orElse(null),
+                config.getMinecraftConsoleExclude().orElse(List.of()));
+    }
+}
@@ -0,0 +1,149 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.messaging.MessageBroker;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Property;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Log4j appender that publishes server log events as ConsoleMessages, as an
+ * alternative to following the log file with {@link LogTailer}.
+ *
+ * Lines are formatted like Fabric's console pattern (see {@link #formatLine}), so that
+ * they parse the same way as tailed lines (see {@link LogLineParser}); the level, logger, thread
+ * and timestamp are also carried as structured fields on the ConsoleMessage.
+ * Events rejected by the {@link ConsoleLineFilter} are discarded before anything
+ * is allocated.
+ */
+public class ConsoleLogAppender extends AbstractAppender {
+
+    private static final String NAME = "AMCDB";
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final MessageBroker broker;
+
+    private final ConsoleLineFilter filter;
+
+    private final LoggerContext context;
+
+    private ConsoleLogAppender(MessageBroker broker, ConsoleLineFilter filter, LoggerContext context) {
+        super(NAME, null, null, true, Property.EMPTY_ARRAY);
+        this.broker = broker;
+        this.filter = filter;
+        this.context = context;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        ConsoleLevel consoleLevel = toConsoleLevel(event.getLevel());
+        if(!filter.accepts(consoleLevel, event.getLoggerName(), event.getThreadName())) {
+            return;
+        }
+
+        String level = event.getLevel().name();
+        String threadName = event.getThreadName();
+        long timestamp = event.getTimeMillis();
+
+        StringBuilder text = formatLine(timestamp, threadName, level, event.getLoggerName(),
+                event.getMessage().getFormattedMessage());
+        if(event.getThrown() != null) {
+            StringWriter stackTrace = new StringWriter();
+            event.getThrown().printStackTrace(new PrintWriter(stackTrace));
+            text.append('\n').append(stackTrace.toString().stripTrailing());
+        }
+
+        broker.publish(new ConsoleMessage(
+                MinecraftService.MINECRAFT_SOURCE_ID,
+                text.toString(),
+                level,
+                event.getLoggerName(),
+                threadName,
+                timestamp));
+    }
+
+    /**
+     * Formats a log line like Fabric's console pattern:
+     * <pre>[%d{HH:mm:ss}] [%t/%level] (%logger{1}) %msg</pre>
+     * If the logger has no name, the vanilla pattern is used instead:
+     * <pre>[%d{HH:mm:ss}] [%t/%level]: %msg</pre>
+     */
+    static StringBuilder formatLine(long timestamp, String threadName, String level, String loggerName, String message) {
+        StringBuilder text = new StringBuilder()
+                .append('[').append(TIME_FORMAT.format(Instant.ofEpochMilli(timestamp))).append("] [")
+                .append(threadName).append('/').append(level).append(']');
+        if(loggerName == null || loggerName.isEmpty()) {
+            text.append(": ");
+        }
+        else {
+            // %logger{1}: the last component of the logger name
+            text.append(" (").append(loggerName, loggerName.lastIndexOf('.') + 1, loggerName.length()).append(") ");
+        }
+        return text.append(message);
+    }
+
+    /**
+     * Maps a Log4j level onto the nearest console level. Custom levels are mapped
+     * by severity.
+     */
+    private static ConsoleLevel toConsoleLevel(Level level) {
+        int intLevel = level.intLevel();
+        if(intLevel <= Level.FATAL.intLevel()) {
+            return ConsoleLevel.FATAL;
+        }
+        if(intLevel <= Level.ERROR.intLevel()) {
+            return ConsoleLevel.ERROR;
+        }
+        if(intLevel <= Level.WARN.intLevel()) {
+            return ConsoleLevel.WARN;
+        }
+        if(intLevel <= Level.INFO.intLevel()) {
+            return ConsoleLevel.INFO;
+        }
+        if(intLevel <= Level.DEBUG.intLevel()) {
+            return ConsoleLevel.DEBUG;
+        }
+        return ConsoleLevel.TRACE;
+    }
+
+    /**
+     * Stops publishing log events and removes this appender from the logger configuration.
+     */
+    public void detach() {
+        Configuration configuration = context.getConfiguration();
+        configuration.getRootLogger().removeAppender(NAME);
+        context.updateLoggers();
+        stop();
+    }
+
+    /**
+     * Creates a ConsoleLogAppender and attaches it to the server's root logger.
+     *
+     * @param broker Broker to which log lines are published.
+     * @param filter Decides which log events are published.
+     * @return The attached appender.
+     */
+    public static ConsoleLogAppender attach(MessageBroker broker, ConsoleLineFilter filter) {
+        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        Configuration configuration = context.getConfiguration();
+
+        ConsoleLogAppender appender = new ConsoleLogAppender(broker, filter, context);
+        appender.start();
+        configuration.addAppender(appender);
+        configuration.getRootLogger().addAppender(appender, null, null);
+        context.updateLoggers();
+        return appender;
+    }
+}
@@ -0,0 +1,159 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.AMCDB;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Records how far a log file has been read, so that following can resume from
+ * the same place after a restart.
+ *
+ * A log file is identified by its file key (or creation time where the platform
+ * provides no file key) and a checksum of its first bytes. The checksum also
+ * identifies the file after it has been rotated to an archive, where its file
+ * key and creation time no longer apply.
+ */
+class LogCheckpoint {
+
+    /**
+     * Number of bytes at the start of the file covered by the head checksum.
+     */
+    static final int HEAD_LENGTH = 1024;
+
+    /**
+     * File key or creation time of the file, as returned by {@link Object#toString()}.
+     */
+    final String fileIdentity;
+
+    /**
+     * Size of the file when the checkpoint was taken.
+     */
+    final long size;
+
+    /**
+     * Offset just past the last line read.
+     */
+    final long offset;
+
+    /**
+     * Checksum of the first {@link #headLength} bytes of the file.
+     */
+    final long headChecksum;
+
+    /**
+     * Number of bytes covered by the head checksum; less than {@link #HEAD_LENGTH}
+     * if the file was shorter when the checkpoint was taken.
+     */
+    final int headLength;
+
+    /**
+     * Time (epoch milliseconds) at which the checkpoint was taken.
+     */
+    final long savedAt;
+
+    LogCheckpoint(String fileIdentity, long size, long offset, long headChecksum, int headLength, long savedAt) {
+        this.fileIdentity = fileIdentity;
+        this.size = size;
+        this.offset = offset;
+        this.headChecksum = headChecksum;
+        this.headLength = headLength;
+        this.savedAt = savedAt;
+    }
+
+    /**
+     * Returns whether the checkpoint refers to the open file, and the file has
+     * not been truncated since.
+     * @param identity Identity of the open file.
+     * @param channel  The open file.
+     */
+    boolean matches(String identity, FileChannel channel) throws IOException {
+        if(!identity.equals(fileIdentity) || channel.size() < size) {
+            return false;
+        }
+        ByteBuffer head = ByteBuffer.allocate(headLength);
+        while(head.hasRemaining()) {
+            if(channel.read(head, head.position()) <= 0) {
+                break;
+            }
+        }
+        return !head.hasRemaining() && checksum(head.array(), headLength) == headChecksum;
+    }
+
+    /**
+     * Returns whether the stream starts with the bytes covered by the head checksum.
+     * Consumes {@link #headLength} bytes from the stream. A checkpoint taken while
+     * the file was empty matches no stream.
+     */
+    boolean matchesHead(InputStream in) throws IOException {
+        if(headLength == 0) {
+            return false;
+        }
+        byte[] head = in.readNBytes(headLength);
+        return head.length == headLength && checksum(head, headLength) == headChecksum;
+    }
+
+    /**
+     * Writes the checkpoint, replacing any previous checkpoint atomically where possible.
+     */
+    void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("fileIdentity", fileIdentity);
+        properties.setProperty("size", Long.toString(size));
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("headChecksum", Long.toString(headChecksum));
+        properties.setProperty("headLength", Integer.toString(headLength));
+        properties.setProperty("savedAt", Long.toString(savedAt));
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try(OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "AMCDB log tailer checkpoint");
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a checkpoint.
+     * @return The checkpoint, or null if there is none or it cannot be read.
+     */
+    static LogCheckpoint load(Path path) {
+        if(Files.notExists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try(InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+            return new LogCheckpoint(
+                    properties.getProperty("fileIdentity"),
+                    Long.parseLong(properties.getProperty("size")),
+                    Long.parseLong(properties.getProperty("offset")),
+                    Long.parseLong(properties.getProperty("headChecksum")),
+                    Integer.parseInt(properties.getProperty("headLength")),
+                    Long.parseLong(properties.getProperty("savedAt")));
+        }
+        catch(IOException | RuntimeException e) {
+            AMCDB.LOGGER.warn("Could not read log checkpoint '%s'; reading the log from the beginning.".formatted(path));
+            return null;
+        }
+    }
+
+    /**
+     * Computes the head checksum of the first length bytes of the array.
+     */
+    static long checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,159 @@
+package network.parthenon.amcdb.minecraft;
+
+/**
+ * Parses the header of a server log line without allocating. Recognizes the
+ * vanilla pattern
+ * <pre>[HH:mm:ss] [thread/LEVEL]: message</pre>
+ * and Fabric's pattern, which adds the logger name:
+ * <pre>[HH:mm:ss] [thread/LEVEL] (logger) message</pre>
+ *
+ * The parser records the positions of each part of the most recently parsed
+ * line; strings are only created when requested. Instances are reused and are
+ * not thread-safe.
+ */
+public class LogLineParser {
+
+    private String line;
+
+    private boolean parsed;
+
+    private ConsoleLevel level;
+
+    private int threadStart;
+
+    private int threadEnd;
+
+    private int loggerStart;
+
+    private int loggerEnd;
+
+    private int messageStart;
+
+    /**
+     * Parses the header of a log line.
+     * @param line The line.
+     * @return True if the line has a recognized header.
+     */
+    public boolean parse(String line) {
+        this.line = line;
+        parsed = false;
+        level = null;
+        threadStart = threadEnd = loggerStart = loggerEnd = -1;
+        messageStart = 0;
+
+        if(line.isEmpty() || line.charAt(0) != '[') {
+            return false;
+        }
+        int timeEnd = line.indexOf(']', 1);
+        if(timeEnd < 0 || !line.startsWith(" [", timeEnd + 1)) {
+            return false;
+        }
+        int thread = timeEnd + 3;
+        int headerEnd = line.indexOf(']', thread);
+        if(headerEnd < 0) {
+            return false;
+        }
+        // thread names may contain slashes; the level follows the last one
+        int slash = line.lastIndexOf('/', headerEnd);
+        if(slash < thread) {
+            return false;
+        }
+        ConsoleLevel lineLevel = ConsoleLevel.parse(line, slash + 1, headerEnd);
+        if(lineLevel == null) {
+            return false;
+        }
+
+        int position = headerEnd + 1;
+        if(line.startsWith(" (", position)) {
+            int loggerClose = line.indexOf(')', position + 2);
+            if(loggerClose >= 0) {
+                loggerStart = position + 2;
+                loggerEnd = loggerClose;
+                position = loggerClose + 1;
+            }
+        }
+        if(line.startsWith(":", position)) {
+            position++;
+        }
+        if(line.startsWith(" ", position)) {
+            position++;
+        }
+
+        parsed = true;
+        level = lineLevel;
+        threadStart = thread;
+        threadEnd = slash;
+        messageStart = position;
+        return true;
+    }
+
+    /**
+     * Returns whether the most recently parsed line had a recognized header.
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
+    /**
+     * Gets the most recently parsed line.
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the level of the most recently parsed line, or null if it had no header.
+     */
+    public ConsoleLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the start (inclusive) of the thread name in the line, or -1 if there is none.
+     */
+    public int getThreadStart() {
+        return threadStart;
+    }
+
+    /**
+     * Gets the end (exclusive) of the thread name in the line, or -1 if there is none.
+     */
+    public int getThreadEnd() {
+        return threadEnd;
+    }
+
+    /**
+     * Gets the start (inclusive) of the logger name in the line, or -1 if there is none.
+     */
+    public int getLoggerStart() {
+        return loggerStart;
+    }
+
+    /**
+     * Gets the end (exclusive) of the logger name in the line, or -1 if there is none.
+     */
+    public int getLoggerEnd() {
+        return loggerEnd;
+    }
+
+    /**
+     * Gets the position at which the message follows the header (0 if there is no header).
+     */
+    public int getMessageStart() {
+        return messageStart;
+    }
+
+    /**
+     * Gets the thread name, or null if the line had no header.
+     */
+    public String getThreadName() {
+        return threadStart < 0 ? null : line.substring(threadStart, threadEnd);
+    }
+
+    /**
+     * Gets the logger name, or null if the line did not include one.
+     */
+    public String getLoggerName() {
+        return loggerStart < 0 ? null : line.substring(loggerStart, loggerEnd);
+    }
+}
@@ -3,59 +3,621 @@ package network.parthenon.amcdb.minecraft;
 import network.parthenon.amcdb.AMCDB;
 import network.parthenon.amcdb.messaging.message.ConsoleMessage;
 import network.parthenon.amcdb.messaging.MessageBroker;
-import org.apache.commons.io.input.Tailer;
-import org.apache.commons.io.input.TailerListener;
 
-import java.io.File;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
-public class LogTailer implements TailerListener {
+/**
+ * Follows a log file and publishes each log event as a ConsoleMessage. Tailers
+ * are run by a {@link LogTailerService}, which serves any number of files on one
+ * thread.
+ * Continuation lines such as stack trace frames are published together with the
+ * line that started them (see {@link ConsoleLineAggregator}).
+ *
+ * Appended bytes are read through a FileChannel into a reusable direct buffer.
+ * Lines are split at their '\n' bytes before they are decoded (in UTF-8, that byte
+ * only ever encodes a line feed), so multibyte characters split across reads are
+ * handled correctly and the file offset of each line is known exactly, even if
+ * the file contains malformed input.
+ *
+ * If the file is replaced (e.g. log rotation), the remainder of the old file is read
+ * and the new file is followed from the beginning. If the file is truncated, it is
+ * followed from the beginning.
+ *
+ * If a checkpoint file is configured, the read position is saved to it (see
+ * {@link LogCheckpoint}) and following resumes from there on the next start. The
+ * saved position is the end of the last line published or discarded; lines of
+ * an event still held by the aggregator are read again on the next start. If
+ * the file was rotated in the meantime (e.g. to a .log.gz archive when the server
+ * restarted), the rest of the archived file is read first. At most
+ * maxReplayBytes of backlog are read from each file when resuming.
+ */
+public class LogTailer {
 
-    private static int threadNum = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
-    private Tailer tailer;
+    /**
+     * Minimum time between checkpoint saves while the file is being read.
+     */
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 5000;
+
+    /**
+     * Maximum number of recently modified log files checked when looking for
+     * the archive of the checkpointed file.
+     */
+    private static final int MAX_ARCHIVE_CANDIDATES = 5;
+
+    private final Path path;
+
+    /**
+     * Name of the log stream published by this tailer, or null for the main server log.
+     */
+    private final String stream;
 
     private final MessageBroker broker;
 
-    private LogTailer(MessageBroker broker) {
+    private final ConsoleLineFilter filter;
+
+    /**
+     * File in which the read position is saved, or null if it is not saved.
+     */
+    private final Path checkpointPath;
+
+    /**
+     * Maximum number of bytes of backlog read from each file when resuming from a checkpoint.
+     */
+    private final long maxReplayBytes;
+
+    /**
+     * Parses log line headers, both to filter events and to fill in their fields.
+     */
+    private final LogLineParser parser = new LogLineParser();
+
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Characters of the current line decoded so far.
+     */
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * Groups complete lines into log events.
+     */
+    private final ConsoleLineAggregator aggregator = new ConsoleLineAggregator(this::accepts, this::publish);
+
+    /**
+     * Channel for the file currently being followed, or null if it is not open.
+     */
+    private FileChannel channel;
+
+    /**
+     * Identity of the file currently being followed, used to detect rotation.
+     */
+    private Object fileIdentity;
+
+    /**
+     * Position up to which the current file has been read.
+     */
+    private long position;
+
+    /**
+     * File offset of the start of the current line, i.e. the end of the last complete line.
+     */
+    private long lineStart;
+
+    /**
+     * File offset of the first line of the event held by the aggregator, if any.
+     */
+    private long heldEventStart;
+
+    /**
+     * Whether the file was found on the last attempt to open it.
+     */
+    private boolean fileFound = true;
+
+    /**
+     * Checkpoint to resume from when the file is next opened, or null.
+     */
+    private LogCheckpoint resumeFrom;
+
+    /**
+     * Whether to discard characters up to the next line break, after skipping
+     * part of the backlog.
+     */
+    private boolean skipToLineStart = false;
+
+    /**
+     * Checksum of the first bytes of the current file, and the number of bytes it covers.
+     */
+    private long headChecksum;
+
+    private int headLength;
+
+    /**
+     * Offset recorded by the most recent checkpoint save, or -1.
+     */
+    private long savedOffset = -1;
+
+    private long lastSaveMillis = 0;
+
+    /**
+     * Whether the checkpoint has been loaded.
+     */
+    private boolean checkpointLoaded = false;
+
+    /**
+     * Creates a LogTailer. The file is not read until the tailer is polled by a
+     * {@link LogTailerService}.
+     * @param path           The file to follow.
+     * @param stream         Name of the log stream published, or null for the main server log.
+     * @param broker         Broker to which log events are published.
+     * @param filter         Decides which log events are published.
+     * @param checkpointPath File in which the read position is saved, or null to always
+     *                       read the file from the beginning.
+     * @param maxReplayBytes Maximum number of bytes of backlog read from each file
+     *                       when resuming from the checkpoint.
+     */
+    LogTailer(Path path, String stream, MessageBroker broker, ConsoleLineFilter filter, Path checkpointPath, long maxReplayBytes) {
+        this.path = path;
+        this.stream = stream;
         this.broker = broker;
+        this.filter = filter;
+        this.checkpointPath = checkpointPath;
+        this.maxReplayBytes = maxReplayBytes;
+    }
+
+    /**
+     * Gets the file followed by this tailer.
+     */
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Reads and publishes anything appended to the file since the last poll.
+     * @param now Current time (System.nanoTime()).
+     * @return Nanoseconds until the tailer should be polled again to publish a
+     *         pending log event, or -1 if it only needs polling when the file changes.
+     */
+    long poll(long now) {
+        if(!checkpointLoaded) {
+            checkpointLoaded = true;
+            if(checkpointPath != null) {
+                resumeFrom = LogCheckpoint.load(checkpointPath);
+            }
+        }
+        try {
+            follow();
+        }
+        catch(IOException e) {
+            AMCDB.LOGGER.error("Minecraft log tailer encountered an error reading '%s'".formatted(path), e);
+            closeChannel();
+        }
+        saveCheckpoint(false);
+        return aggregator.flushIfExpired(now);
+    }
+
+    /**
+     * Publishes any pending log event, saves the checkpoint, and closes the file.
+     */
+    void close() {
+        aggregator.flush();
+        saveCheckpoint(true);
+        closeChannel();
+    }
+
+    /**
+     * Reads everything appended to the file since the last call,
+     * handling rotation and truncation.
+     */
+    private void follow() throws IOException {
+        if(channel == null && !open()) {
+            return;
+        }
+
+        readToEnd();
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        }
+        catch(NoSuchFileException e) {
+            // the file was moved away and a new one has not been created yet
+            return;
+        }
+
+        if(!identityOf(attributes).equals(fileIdentity)) {
+            AMCDB.LOGGER.info("New log file detected at '%s'.".formatted(path));
+            // anything written to the old file before it was replaced was read above
+            flushPartialLine();
+            closeChannel();
+            if(open()) {
+                readToEnd();
+            }
+        }
+        else if(attributes.size() < position) {
+            AMCDB.LOGGER.info("Log file '%s' was truncated; reading from the beginning.".formatted(path));
+            // lines of the old content still held by the aggregator are published as they are
+            aggregator.flush();
+            resetDecoder();
+            position = 0;
+            lineStart = 0;
+            channel.position(0);
+            readToEnd();
+        }
+    }
+
+    /**
+     * Opens the file, if it exists.
+     * @return True if the file was opened.
+     */
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        catch(NoSuchFileException e) {
+            if(fileFound) {
+                AMCDB.LOGGER.warn("Minecraft log file '" + path + "' was not found!");
+                fileFound = false;
+            }
+            return false;
+        }
+        fileFound = true;
+        fileIdentity = identityOf(Files.readAttributes(path, BasicFileAttributes.class));
+        position = 0;
+        lineStart = 0;
+        headLength = 0;
+        savedOffset = -1;
+        resetDecoder();
+
+        if(resumeFrom != null) {
+            LogCheckpoint checkpoint = resumeFrom;
+            resumeFrom = null;
+            resume(checkpoint);
+        }
+        return true;
+    }
+
+    /**
+     * Continues from where a previous run stopped: from the checkpoint's offset if
+     * it refers to the newly opened file, otherwise by first reading the rest of
+     * the archived file it refers to.
+     */
+    private void resume(LogCheckpoint checkpoint) throws IOException {
+        if(checkpoint.matches(fileIdentity.toString(), channel)) {
+            long start = Math.max(checkpoint.offset, channel.size() - maxReplayBytes);
+            if(start > checkpoint.offset) {
+                logSkippedBacklog(start - checkpoint.offset);
+                skipToLineStart = true;
+            }
+            position = start;
+            lineStart = start;
+            channel.position(start);
+            return;
+        }
+
+        if(checkpoint.headLength == 0) {
+            // the previous file was empty, so there is nothing to catch up on (and nothing to identify it by)
+            return;
+        }
+        Path archive = findArchive(checkpoint);
+        if(archive == null) {
+            return;
+        }
+        try {
+            catchUp(archive, checkpoint);
+        }
+        catch(IOException e) {
+            AMCDB.LOGGER.warn("Could not read the rest of the previous log file '%s'".formatted(archive), e);
+        }
+    }
+
+    /**
+     * Finds the file the checkpoint refers to among recently modified archives of
+     * the followed file in the same directory (see {@link #archivePattern(String)}).
+     * @return The file, or null if it was not found.
+     */
+    private Path findArchive(LogCheckpoint checkpoint) throws IOException {
+        Pattern archiveName = archivePattern(path.getFileName().toString());
+        List<Path> candidates;
+        try(Stream<Path> files = Files.list(path.toAbsolutePath().getParent())) {
+            candidates = files
+                    .filter(file -> archiveName.matcher(file.getFileName().toString()).matches())
+                    // the file was last written after the checkpoint was taken (or at about the same time)
+                    .filter(file -> file.toFile().lastModified() >= checkpoint.savedAt - CHECKPOINT_INTERVAL_MILLIS)
+                    .sorted(Comparator.comparingLong((Path file) -> file.toFile().lastModified()).reversed())
+                    .limit(MAX_ARCHIVE_CANDIDATES)
+                    .toList();
+        }
+
+        for(Path candidate : candidates) {
+            try(InputStream in = openArchive(candidate)) {
+                if(checkpoint.matchesHead(in)) {
+                    return candidate;
+                }
+            }
+            catch(IOException e) {
+                // unreadable or not a valid archive; try the next one
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the lines of an archived file written after the checkpoint.
+     */
+    private void catchUp(Path archive, LogCheckpoint checkpoint) throws IOException {
+        long length;
+        try(InputStream in = openArchive(archive)) {
+            length = in.transferTo(OutputStream.nullOutputStream());
+        }
+        if(length <= checkpoint.offset) {
+            return;
+        }
+
+        long start = Math.max(checkpoint.offset, length - maxReplayBytes);
+        if(start > checkpoint.offset) {
+            logSkippedBacklog(start - checkpoint.offset);
+        }
+        AMCDB.LOGGER.info("Reading %d bytes written to '%s' since the last run.".formatted(length - start, archive.getFileName()));
+
+        InputStream in = openArchive(archive);
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            in.skipNBytes(start);
+            // when part of the backlog was skipped, the first line is incomplete
+            boolean skipFirstLine = start > checkpoint.offset;
+            String archivedLine;
+            while((archivedLine = reader.readLine()) != null) {
+                if(skipFirstLine) {
+                    skipFirstLine = false;
+                    continue;
+                }
+                aggregator.accept(archivedLine, System.nanoTime());
+            }
+        }
+        aggregator.flush();
+    }
+
+    /**
+     * Gets the pattern matching the names of rotated archives of a log file:
+     * {@code <date>-N.log.gz} for latest.log, and {@code <name>-N.log.gz} or
+     * {@code <name>-<date>-N.log.gz} for other files (such as debug.log). Archives
+     * may also be uncompressed. Other live log files in the directory never match.
+     * @param fileName Name of the followed file.
+     */
+    static Pattern archivePattern(String fileName) {
+        String name = fileName.endsWith(".log") ? fileName.substring(0, fileName.length() - ".log".length()) : fileName;
+        String date = "\\d{4}-\\d{2}-\\d{2}-";
+        String prefix = name.equals("latest") ? date : Pattern.quote(name) + "-(" + date + ")?";
+        return Pattern.compile(prefix + "\\d+\\.log(\\.gz)?");
+    }
+
+    private static InputStream openArchive(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in) : in;
+    }
+
+    private void logSkippedBacklog(long skippedBytes) {
+        AMCDB.LOGGER.info("Skipping %d bytes of log backlog (more than amcdb.minecraft.logCheckpoint.maxReplay)."
+                .formatted(skippedBytes));
+    }
+
+    /**
+     * Reads and publishes complete lines until the end of the current file.
+     */
+    private void readToEnd() throws IOException {
+        int read;
+        while((read = channel.read(bytes)) > 0) {
+            position += read;
+            bytes.flip();
+            publishLines();
+            bytes.compact();
+        }
+    }
+
+    /**
+     * Publishes each complete line in the byte buffer, keeping any incomplete line
+     * in the buffer for the next read. If an incomplete line fills the buffer, the
+     * part of it that can be decoded is moved to {@link #line} to make room.
+     */
+    private void publishLines() {
+        // file offset of the start of the buffer
+        long bufferStart = position - bytes.limit();
+        int lineFeed;
+        while((lineFeed = indexOfLineFeed()) >= 0) {
+            int limit = bytes.limit();
+            bytes.limit(lineFeed);
+            decodeLine(true);
+            bytes.limit(limit);
+            // the line feed itself
+            bytes.get();
+
+            if(skipToLineStart) {
+                skipToLineStart = false;
+            }
+            else {
+                int end = line.length();
+                if(end > 0 && line.charAt(end - 1) == '\r') {
+                    line.setLength(end - 1);
+                }
+                acceptLine(line.toString());
+            }
+            line.setLength(0);
+            lineStart = bufferStart + bytes.position();
+        }
+
+        if(bytes.position() == 0 && bytes.limit() == bytes.capacity()) {
+            decodeLine(false);
+            if(skipToLineStart) {
+                line.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the next '\n' byte in the buffer, or -1 if there is none.
+     */
+    private int indexOfLineFeed() {
+        for(int i = bytes.position(); i < bytes.limit(); i++) {
+            if(bytes.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the remaining bytes in the buffer and appends them to {@link #line}.
+     * @param endOfLine Whether the bytes end the line. If false, an incomplete
+     *                  character at the end is left in the buffer.
+     */
+    private void decodeLine(boolean endOfLine) {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfLine);
+            chars.flip();
+            line.append(chars);
+            chars.clear();
+        } while(result.isOverflow());
+        if(endOfLine) {
+            decoder.reset();
+        }
+    }
+
+    /**
+     * Passes a complete line to the aggregator, recording where the event it
+     * belongs to started.
+     */
+    private void acceptLine(String text) {
+        aggregator.accept(text, System.nanoTime());
+        if(aggregator.getPendingLines() == 1) {
+            // this line started the held event
+            heldEventStart = lineStart;
+        }
     }
 
-    @Override
-    public void init(Tailer tailer) {
-        this.tailer = tailer;
+    /**
+     * Publishes the incomplete line at the end of the file, and any held event.
+     */
+    private void flushPartialLine() {
+        bytes.flip();
+        decodeLine(true);
+        bytes.clear();
+        if(line.length() > 0 && !skipToLineStart) {
+            aggregator.accept(line.toString(), System.nanoTime());
+        }
+        line.setLength(0);
+        aggregator.flush();
     }
 
-    @Override
-    public void fileNotFound() {
-        AMCDB.LOGGER.warn("Minecraft log file '" + tailer.getFile().toString() + "' was not found!");
+    /**
+     * Returns whether the event starting with this line should be published.
+     */
+    private boolean accepts(String firstLine) {
+        parser.parse(firstLine);
+        return filter.accepts(parser);
     }
 
-    @Override
-    public void fileRotated() {
-        AMCDB.LOGGER.info("New log file detected.");
+    private void publish(String text) {
+        if(!parser.parse(text)) {
+            broker.publish(new ConsoleMessage(MinecraftService.MINECRAFT_SOURCE_ID, text, null, null, null, 0, stream));
+            return;
+        }
+        broker.publish(new ConsoleMessage(
+                MinecraftService.MINECRAFT_SOURCE_ID,
+                text,
+                parser.getLevel().name(),
+                parser.getLoggerName(),
+                parser.getThreadName(),
+                0,
+                stream));
+    }
+
+    /**
+     * Saves the position up to the end of the last line published or discarded.
+     * @param force Save even if the last save was recent.
+     */
+    private void saveCheckpoint(boolean force) {
+        if(checkpointPath == null || channel == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if(!force && now - lastSaveMillis < CHECKPOINT_INTERVAL_MILLIS) {
+            return;
+        }
+        // the event held by the aggregator has not been published yet
+        long offset = aggregator.getPendingLines() > 0 ? heldEventStart : lineStart;
+        if(offset == savedOffset) {
+            return;
+        }
+
+        try {
+            long size = channel.size();
+            if(headLength < LogCheckpoint.HEAD_LENGTH && size > headLength) {
+                ByteBuffer head = ByteBuffer.allocate((int) Math.min(LogCheckpoint.HEAD_LENGTH, size));
+                while(head.hasRemaining()) {
+                    if(channel.read(head, head.position()) <= 0) {
+                        break;
+                    }
+                }
+                headLength = head.position();
+                headChecksum = LogCheckpoint.checksum(head.array(), headLength);
+            }
+            new LogCheckpoint(fileIdentity.toString(), size, offset, headChecksum, headLength, now).save(checkpointPath);
+            savedOffset = offset;
+            lastSaveMillis = now;
+        }
+        catch(IOException e) {
+            AMCDB.LOGGER.warn("Could not save log checkpoint '%s'".formatted(checkpointPath), e);
+            lastSaveMillis = now;
+        }
     }
 
-    @Override
-    public void handle(String line) {
-        broker.publish(new ConsoleMessage(MinecraftService.MINECRAFT_SOURCE_ID, line));
+    private void resetDecoder() {
+        decoder.reset();
+        bytes.clear();
+        chars.clear();
+        line.setLength(0);
+        skipToLineStart = false;
     }
 
-    @Override
-    public void handle(Exception ex) {
-        AMCDB.LOGGER.error("Minecraft log tailer encountered an error", ex);
+    private void closeChannel() {
+        if(channel != null) {
+            try {
+                channel.close();
+            }
+            catch(IOException e) {
+                // nothing useful to do
+            }
+            channel = null;
+        }
     }
 
     /**
-     * Configures a LogTailer to watch the specified file on a new thread.
-     *
-     * @param file The file to watch.
+     * Gets a value identifying the file itself (rather than its name). Uses the
+     * file key where the platform provides one, or the creation time otherwise.
      */
-    public static void watchFile(File file, MessageBroker broker) {
-        TailerListener listener = new LogTailer(broker);
-        Tailer tailer = new Tailer(file, listener);
-        Thread tailerThread = new Thread(tailer);
-        tailerThread.setDaemon(true);
-        tailerThread.setName("amcdb-tail-%s-%d".formatted(file.getName(), threadNum++));
-        tailerThread.start();
+    private static Object identityOf(BasicFileAttributes attributes) {
+        Object fileKey = attributes.fileKey();
+        return fileKey != null ? fileKey : attributes.creationTime();
     }
 }
@@ -0,0 +1,228 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.AMCDB;
+import network.parthenon.amcdb.messaging.MessageBroker;
+import network.parthenon.amcdb.util.ThreadSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows any number of log files on a single thread.
+ *
+ * The thread sleeps until one of the files' directories reports a change (via a
+ * shared WatchService), then polls every {@link LogTailer}. It re-checks at least
+ * every {@link #POLL_INTERVAL_MILLIS} in case change notifications are slow or
+ * unavailable, and sooner if a tailer is holding a log event (see
+ * {@link ConsoleLineAggregator}).
+ */
+public class LogTailerService implements Runnable {
+
+    /**
+     * Maximum time to wait for a change notification before checking the files anyway.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final List<LogTailer> tailers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Directories registered with the WatchService.
+     */
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    private WatchService watchService;
+
+    /**
+     * Whether change notifications are unavailable, so the files are polled instead.
+     */
+    private boolean pollOnly = false;
+
+    private Thread thread;
+
+    /**
+     * Whether {@link #start()} has been called.
+     */
+    private boolean started = false;
+
+    private volatile boolean running = true;
+
+    /**
+     * Adds a file to be followed. Files may be added before or after the service is started.
+     *
+     * @param file           The file to follow.
+     * @param stream         Name of the log stream published, or null for the main server log.
+     * @param broker         Broker to which log events are published.
+     * @param filter         Decides which log events are published.
+     * @param checkpointFile File in which the read position is saved, or null to always
+     *                       read the file from the beginning.
+     * @param maxReplayBytes Maximum number of bytes of backlog read from each file
+     *                       when resuming from the checkpoint.
+     * @return The LogTailer following the file.
+     */
+    public LogTailer watchFile(File file, String stream, MessageBroker broker, ConsoleLineFilter filter,
+                               Path checkpointFile, long maxReplayBytes) {
+        LogTailer tailer = new LogTailer(file.toPath(), stream, broker, filter, checkpointFile, maxReplayBytes);
+        watchDirectory(tailer.getPath());
+        tailers.add(tailer);
+        synchronized(this) {
+            if(started && thread == null) {
+                startThread();
+            }
+        }
+        return tailer;
+    }
+
+    /**
+     * Starts following the files on a new thread. If no files have been added,
+     * the thread is started when the first one is.
+     */
+    public synchronized void start() {
+        if(started) {
+            throw new IllegalStateException("LogTailerService is already started!");
+        }
+        started = true;
+        if(!tailers.isEmpty()) {
+            startThread();
+        }
+    }
+
+    private void startThread() {
+        thread = ThreadSupport.newThread("amcdb-tail", this);
+        thread.start();
+    }
+
+    /**
+     * Stops following the files. Pending log events are published and checkpoints
+     * are saved before the thread exits.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Waits for the thread to exit after {@link #stop()}.
+     * @param timeoutMillis Maximum time to wait (in ms).
+     * @return True if the thread has exited or was never started.
+     */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        Thread thread;
+        synchronized(this) {
+            thread = this.thread;
+        }
+        if(thread == null) {
+            return true;
+        }
+        thread.join(timeoutMillis);
+        return !thread.isAlive();
+    }
+
+    /**
+     * Tailer loop. Do not call this method; it is run by the tailer thread.
+     */
+    @Override
+    public void run() {
+        try {
+            while(running) {
+                long waitMillis = POLL_INTERVAL_MILLIS;
+                for(LogTailer tailer : tailers) {
+                    long eventWaitNanos = tailer.poll(System.nanoTime());
+                    if(eventWaitNanos >= 0) {
+                        waitMillis = Math.min(waitMillis, TimeUnit.NANOSECONDS.toMillis(eventWaitNanos) + 1);
+                    }
+                }
+                if(!awaitChange(waitMillis)) {
+                    return;
+                }
+            }
+        }
+        finally {
+            for(LogTailer tailer : tailers) {
+                tailer.close();
+            }
+            synchronized(watchedDirectories) {
+                if(watchService != null) {
+                    try {
+                        watchService.close();
+                    }
+                    catch(IOException e) {
+                        // nothing useful to do
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until a watched directory reports a change, or the timeout elapses.
+     * @param timeoutMillis Maximum time to wait.
+     * @return False if the service has been interrupted.
+     */
+    private boolean awaitChange(long timeoutMillis) {
+        WatchService service;
+        synchronized(watchedDirectories) {
+            service = watchService;
+        }
+        try {
+            if(service == null) {
+                Thread.sleep(timeoutMillis);
+                return true;
+            }
+            WatchKey key = service.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            // any change in a watched directory is reason enough to check the files;
+            // drain the other keys so that one change does not cause several polls
+            while(key != null) {
+                key.pollEvents();
+                key.reset();
+                key = service.poll();
+            }
+            return true;
+        }
+        catch(InterruptedException e) {
+            return false;
+        }
+        catch(ClosedWatchServiceException e) {
+            // change notifications failed for a newly added directory; poll from now on
+            return true;
+        }
+    }
+
+    /**
+     * Registers the file's directory for change notifications, if it is not already.
+     */
+    private void watchDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        synchronized(watchedDirectories) {
+            if(pollOnly || !watchedDirectories.add(directory)) {
+                return;
+            }
+            try {
+                if(watchService == null) {
+                    watchService = directory.getFileSystem().newWatchService();
+                }
+                directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            catch(IOException | UnsupportedOperationException e) {
+                AMCDB.LOGGER.info("File change notifications are unavailable for '%s'; polling for log changes instead."
+                        .formatted(directory));
+                pollOnly = true;
+                if(watchService != null) {
+                    try {
+                        watchService.close();
+                    }
+                    catch(IOException closeException) {
+                        // nothing useful to do
+                    }
+                    watchService = null;
+                }
+            }
+        }
+    }
+}
@@ -8,13 +8,17 @@ import network.parthenon.amcdb.messaging.message.BroadcastMessage;
 import network.parthenon.amcdb.messaging.message.ChatMessage;
 import network.parthenon.amcdb.messaging.message.ConsoleMessage;
 import network.parthenon.amcdb.messaging.message.InternalMessage;
-import network.parthenon.amcdb.messaging.MessageHandler;
+import network.parthenon.amcdb.messaging.BatchMessageHandler;
 
 //#if MC<11901
 //$$ import net.minecraft.network.chat.ChatType;
 //#endif
 
-public class MinecraftPublisher implements MessageHandler {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class MinecraftPublisher implements BatchMessageHandler {
 
     private final MinecraftService minecraftService;
 
@@ -29,46 +33,70 @@ public class MinecraftPublisher implements MessageHandler {
     }
 
     @Override
-    public void handleMessage(InternalMessage message) {
+    public void handleMessages(List<InternalMessage> messages) {
         MinecraftServer server = minecraftService.getMinecraftServerInstance();
         if(server == null) {
-            // Server is not yet initialized. No use broadcasting this message anyway.
+            // Server is not yet initialized. No use broadcasting these messages anyway.
             return;
         }
 
+        // Format everything on this thread, then hand the whole batch to the server thread at once.
+        List<Runnable> actions = new ArrayList<>(messages.size());
+        for(InternalMessage message : messages) {
+            Runnable action = prepareMessage(server, message);
+            if(action != null) {
+                actions.add(action);
+            }
+        }
+
+        if(!actions.isEmpty()) {
+            server.execute(() -> actions.forEach(Runnable::run));
+        }
+    }
+
+    /**
+     * Formats the provided message and prepares the action that publishes it.
+     * @param server  The Minecraft server.
+     * @param message The message to publish.
+     * @return Action to run on the server thread, or null if the message should not be published.
+     */
+    private Runnable prepareMessage(MinecraftServer server, InternalMessage message) {
         if(message instanceof ChatMessage && !isFiltered(message)) {
             if(config.getMinecraftIgnoredExternalUsers().isPresent() &&
                     config.getMinecraftIgnoredExternalUsers().orElseThrow().contains(((ChatMessage) message).getAuthor().getAlternateName())) {
-                return;
+                return null;
             }
             Component minecraftText = formatter.toMinecraftComponent((ChatMessage) message);
             minecraftService.addRecentlyPublished(minecraftText.getString());
-            //#if MC>=11901
-            server.getPlayerList().broadcastSystemMessage(minecraftText, false);
-            //#else
-            //$$ server.getPlayerList().broadcastSystemMessage(minecraftText, ChatType.SYSTEM);
-            //#endif
+            return () -> broadcast(server, minecraftText);
         }
         if(message instanceof BroadcastMessage && !isFiltered(message)) {
             Component minecraftText = formatter.toMinecraftComponent((BroadcastMessage) message);
             minecraftService.addRecentlyPublished(minecraftText.getString());
-            //#if MC>=11901
-            server.getPlayerList().broadcastSystemMessage(minecraftText, false);
-            //#else
-            //$$ server.getPlayerList().broadcastSystemMessage(minecraftText, ChatType.SYSTEM);
-            //#endif
+            return () -> broadcast(server, minecraftText);
         }
         else if(message instanceof ConsoleMessage) {
             String command = message.getUnformattedContents();
-            AMCDB.LOGGER.info("Executing console command from %s user %s (id=%s): %s".formatted(
-                    message.getSourceId(),
-                    // Log user's tag rather than their display name, as the tag is more permanent
-                    ((ConsoleMessage) message).getAuthor().getAlternateName(),
-                    ((ConsoleMessage) message).getAuthor().getEntityId(),
-                    command
-            ));
-            server.getCommands().performPrefixedCommand(server.createCommandSourceStack(), command);
+            return () -> {
+                AMCDB.LOGGER.info("Executing console command from %s user %s (id=%s): %s".formatted(
+                        message.getSourceId(),
+                        // Log user's tag rather than their display name, as the tag is more permanent
+                        ((ConsoleMessage) message).getAuthor().getAlternateName(),
+                        ((ConsoleMessage) message).getAuthor().getEntityId(),
+                        command
+                ));
+                server.getCommands().performPrefixedCommand(server.createCommandSourceStack(), command);
+            };
         }
+        return null;
+    }
+
+    private void broadcast(MinecraftServer server, Component minecraftText) {
+        //#if MC>=11901
+        server.getPlayerList().broadcastSystemMessage(minecraftText, false);
+        //#else
+        //$$ server.getPlayerList().broadcastSystemMessage(minecraftText, ChatType.SYSTEM);
+        //#endif
     }
 
     private boolean isFiltered(InternalMessage message) {
@@ -81,4 +109,9 @@ public class MinecraftPublisher implements MessageHandler {
     public String getOwnSourceId() {
         return MinecraftService.MINECRAFT_SOURCE_ID;
     }
+
+    @Override
+    public Set<Class<? extends InternalMessage>> getAcceptedMessageTypes() {
+        return Set.of(ChatMessage.class, BroadcastMessage.class, ConsoleMessage.class);
+    }
 }
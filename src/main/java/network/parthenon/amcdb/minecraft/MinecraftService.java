@@ -3,12 +3,15 @@ package network.parthenon.amcdb.minecraft;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.message.v1.ServerMessageEvents;
 import net.minecraft.server.MinecraftServer;
+import network.parthenon.amcdb.AMCDB;
 import network.parthenon.amcdb.config.AMCDBPropertiesConfig;
 import network.parthenon.amcdb.config.MinecraftConfig;
 import network.parthenon.amcdb.messaging.MessageBroker;
 import network.parthenon.amcdb.messaging.message.ServerLifecycleMessage;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -17,6 +20,11 @@ public class MinecraftService {
 
     public static final String MINECRAFT_SOURCE_ID = "Minecraft";
 
+    /**
+     * Maximum time (in ms) to wait for the log tailer to stop on shutdown.
+     */
+    private static final long TAILER_STOP_TIMEOUT = 5000;
+
     private final MinecraftConfig config;
 
     private final MessageBroker broker;
@@ -25,6 +33,12 @@ public class MinecraftService {
 
     private MinecraftServer minecraftServerInstance;
 
+    private LogTailerService logTailerService;
+
+    private ConsoleLogAppender consoleLogAppender;
+
+    private RepeatedLineSuppressor repeatedLineSuppressor;
+
     /**
      * Creates and initializes the MinecraftService.
      * @param broker
@@ -48,7 +62,35 @@ public class MinecraftService {
         // This will ensure that all message handlers are ready
         ServerLifecycleEvents.SERVER_STARTING.register(e -> {
             // Subscribe to console logs
-            LogTailer.watchFile(new File(config.getMinecraftLogFile()), broker);
+            ConsoleLineFilter consoleFilter = ConsoleLineFilter.fromConfig(config);
+            MessageBroker consoleBroker = broker;
+            if(config.getMinecraftConsoleRepeatWindow() > 0) {
+                repeatedLineSuppressor = new RepeatedLineSuppressor(broker, config.getMinecraftConsoleRepeatWindow() * 1000);
+                repeatedLineSuppressor.start(1000);
+                consoleBroker = repeatedLineSuppressor;
+            }
+            Path checkpointFile = config.getMinecraftLogCheckpointFile().map(Path::of).orElse(null);
+            long maxReplay = config.getMinecraftLogCheckpointMaxReplay();
+
+            // all log files are followed on one thread
+            logTailerService = new LogTailerService();
+            if("appender".equals(config.getMinecraftConsoleSource())) {
+                consoleLogAppender = ConsoleLogAppender.attach(consoleBroker, consoleFilter);
+            }
+            else {
+                logTailerService.watchFile(new File(config.getMinecraftLogFile()), null, consoleBroker,
+                        consoleFilter, checkpointFile, maxReplay);
+            }
+
+            // additional log files are mirrored at every level; the other console filters still apply
+            ConsoleLineFilter extraFilter = consoleFilter.withMinLevel(ConsoleLevel.TRACE);
+            for(Map.Entry<String, String> extraLog : config.getMinecraftExtraLogFiles().entrySet()) {
+                String stream = extraLog.getKey();
+                logTailerService.watchFile(new File(extraLog.getValue()), stream, consoleBroker, extraFilter,
+                        checkpointFile == null ? null : checkpointFile.resolveSibling(checkpointFile.getFileName() + "." + stream),
+                        maxReplay);
+            }
+            logTailerService.start();
         });
 
         // Defer starting status watcher until server is done loading
@@ -106,7 +148,24 @@ public class MinecraftService {
     }
 
     public void shutdown() {
-        // Do nothing
+        if(logTailerService != null) {
+            logTailerService.stop();
+            try {
+                // the tailer publishes its held log events through the suppressor as it exits
+                if(!logTailerService.awaitTermination(TAILER_STOP_TIMEOUT)) {
+                    AMCDB.LOGGER.warn("Timed out waiting for the log tailer to stop");
+                }
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(consoleLogAppender != null) {
+            consoleLogAppender.detach();
+        }
+        if(repeatedLineSuppressor != null) {
+            repeatedLineSuppressor.stop();
+        }
     }
 
     /**
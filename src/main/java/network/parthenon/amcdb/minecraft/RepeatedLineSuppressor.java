@@ -0,0 +1,262 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.messaging.MessageBroker;
+import network.parthenon.amcdb.messaging.MessageHandler;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import network.parthenon.amcdb.util.IntervalRunnable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses repeated server log lines before they are published.
+ *
+ * The first occurrence of a line is published immediately. Further occurrences
+ * of the same line (ignoring its timestamp) within the window are held back and
+ * counted; when the window ends, a single line is published in their place, e.g.
+ * "Can't keep up! ... (×137 in 60s)". Lines are tracked by a 64-bit fingerprint
+ * in a table of at most {@link #MAX_ENTRIES} recently seen lines; evicting a line
+ * publishes its summary early.
+ *
+ * Messages other than log lines (e.g. command feedback with an author) are passed
+ * through unchanged. Windows are closed by {@link #run()}, which should be scheduled
+ * with {@link #start(long)}.
+ */
+public class RepeatedLineSuppressor extends IntervalRunnable implements MessageBroker {
+
+    /**
+     * Maximum number of distinct lines tracked.
+     */
+    static final int MAX_ENTRIES = 1024;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final MessageBroker broker;
+
+    private final long windowMillis;
+
+    /**
+     * Recently seen lines by fingerprint, least recently seen first.
+     */
+    private final LinkedHashMap<Long, Repeat> repeats = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Repeat> eldest) {
+            if(size() <= MAX_ENTRIES) {
+                return false;
+            }
+            if(eldest.getValue().suppressed > 0) {
+                pendingSummaries.add(eldest.getValue().summarize());
+            }
+            return true;
+        }
+    };
+
+    /**
+     * Summaries of evicted lines, published with the message that caused the eviction.
+     */
+    private final List<InternalMessage> pendingSummaries = new ArrayList<>();
+
+    /**
+     * Creates a RepeatedLineSuppressor.
+     * @param broker       Broker to which lines are published.
+     * @param windowMillis Length of the window in which repeats are collapsed.
+     */
+    public RepeatedLineSuppressor(MessageBroker broker, long windowMillis) {
+        super("AMCDB Repeated Line Suppressor");
+        this.broker = broker;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public void subscribe(MessageHandler handler) {
+        broker.subscribe(handler);
+    }
+
+    @Override
+    public void publish(InternalMessage... messages) {
+        publish(messages, System.currentTimeMillis());
+    }
+
+    /**
+     * Publishes summaries for windows that have ended.
+     */
+    @Override
+    public void run() {
+        sweep(System.currentTimeMillis());
+    }
+
+    /**
+     * Stops closing windows and publishes summaries for all lines still held back.
+     */
+    public void stop() {
+        if(executorService != null) {
+            executorService.shutdown();
+        }
+        sweep(Long.MAX_VALUE);
+    }
+
+    /**
+     * Stops closing windows and publishes summaries for all lines still held back.
+     * Does not shut down the broker to which lines are published.
+     */
+    @Override
+    public void shutdown() {
+        stop();
+    }
+
+    void publish(InternalMessage[] messages, long now) {
+        List<InternalMessage> toPublish = new ArrayList<>(messages.length);
+        synchronized(repeats) {
+            for(InternalMessage message : messages) {
+                if(!(message instanceof ConsoleMessage consoleMessage)
+                        || consoleMessage.getAuthor() != null
+                        || !suppress(consoleMessage, now, toPublish)) {
+                    toPublish.add(message);
+                }
+                toPublish.addAll(pendingSummaries);
+                pendingSummaries.clear();
+            }
+            // publish while holding the lock, so that lines and summaries from
+            // publish() and sweep() reach the broker in the order they were decided
+            if(!toPublish.isEmpty()) {
+                broker.publish(toPublish.toArray(new InternalMessage[0]));
+            }
+        }
+    }
+
+    void sweep(long now) {
+        List<InternalMessage> summaries = new ArrayList<>();
+        synchronized(repeats) {
+            Iterator<Repeat> iterator = repeats.values().iterator();
+            while(iterator.hasNext()) {
+                Repeat repeat = iterator.next();
+                if(now - repeat.windowStart >= windowMillis) {
+                    if(repeat.suppressed > 0) {
+                        summaries.add(repeat.summarize());
+                    }
+                    iterator.remove();
+                }
+            }
+            // see publish()
+            if(!summaries.isEmpty()) {
+                broker.publish(summaries.toArray(new InternalMessage[0]));
+            }
+        }
+    }
+
+    /**
+     * Records an occurrence of a log line.
+     * @param message   The log line.
+     * @param now       Current time (epoch milliseconds).
+     * @param toPublish Receives the summary of the line's previous window, if it has ended.
+     * @return True if the line is a repeat and should be held back.
+     */
+    private boolean suppress(ConsoleMessage message, long now, List<InternalMessage> toPublish) {
+        Long key = fingerprint(message.getStream(), message.getUnformattedContents());
+        Repeat repeat = repeats.get(key);
+        if(repeat != null && now - repeat.windowStart < windowMillis) {
+            repeat.suppressed++;
+            repeat.lastSeen = now;
+            repeat.last = message;
+            return true;
+        }
+        if(repeat != null && repeat.suppressed > 0) {
+            toPublish.add(repeat.summarize());
+        }
+        repeats.put(key, new Repeat(message, now));
+        return false;
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a fingerprint of a line, ignoring a leading
+     * timestamp such as "[12:34:56] ".
+     * @param stream Log stream of the line, or null for the main server log.
+     * @param text   The line.
+     */
+    static long fingerprint(String stream, String text) {
+        long hash = FNV_OFFSET_BASIS;
+        if(stream != null) {
+            for(int i = 0; i < stream.length(); i++) {
+                hash ^= stream.charAt(i);
+                hash *= FNV_PRIME;
+            }
+            // separate the stream from the line
+            hash *= FNV_PRIME;
+        }
+        for(int i = timestampEnd(text); i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the position following a leading bracketed timestamp and a space,
+     * or 0 if the text does not start with one.
+     */
+    private static int timestampEnd(String text) {
+        if(text.isEmpty() || text.charAt(0) != '[') {
+            return 0;
+        }
+        int i = 1;
+        while(i < text.length()) {
+            char c = text.charAt(i);
+            if((c < '0' || c > '9') && c != ':' && c != '.') {
+                break;
+            }
+            i++;
+        }
+        if(i == 1 || i >= text.length() || text.charAt(i) != ']') {
+            return 0;
+        }
+        i++;
+        return i < text.length() && text.charAt(i) == ' ' ? i + 1 : i;
+    }
+
+    /**
+     * Occurrences of a line within a window.
+     */
+    private static class Repeat {
+
+        final long windowStart;
+
+        long lastSeen;
+
+        /**
+         * Number of occurrences held back since the first.
+         */
+        int suppressed = 0;
+
+        /**
+         * Most recent occurrence.
+         */
+        ConsoleMessage last;
+
+        Repeat(ConsoleMessage first, long now) {
+            this.windowStart = now;
+            this.lastSeen = now;
+            this.last = first;
+        }
+
+        /**
+         * Creates a line standing in for the held back occurrences.
+         */
+        ConsoleMessage summarize() {
+            long seconds = Math.max(1, (lastSeen - windowStart + 999) / 1000);
+            return new ConsoleMessage(
+                    last.getSourceId(),
+                    "%s (×%d in %ds)".formatted(last.getUnformattedContents(), suppressed, seconds),
+                    last.getLevel(),
+                    last.getLoggerName(),
+                    last.getThreadName(),
+                    last.getTimestamp(),
+                    last.getStream());
+        }
+    }
+}
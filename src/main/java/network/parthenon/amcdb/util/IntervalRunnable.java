@@ -1,7 +1,7 @@
 package network.parthenon.amcdb.util;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public abstract class IntervalRunnable implements Runnable {
@@ -34,15 +34,32 @@ public abstract class IntervalRunnable implements Runnable {
             throw new IllegalStateException("IntervalRunnable is already started!");
         }
 
-        executorService = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = Executors.defaultThreadFactory().newThread(r);
-            thread.setName(threadName);
-            thread.setDaemon(true);
-            return thread;
-        });
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, ThreadSupport.namedFactory(threadName));
+        // once stopped, runs scheduled for later are not needed
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executorService = executor;
 
         executorService.scheduleWithFixedDelay(this, 0, intervalMillis, TimeUnit.MILLISECONDS);
 
         return executorService;
     }
+
+    /**
+     * Stops the schedule and waits for a run in progress to finish.
+     * @param timeoutMillis Maximum time to wait (in ms).
+     * @return True if no run is in progress.
+     */
+    public boolean stop(long timeoutMillis) {
+        if(executorService == null) {
+            return true;
+        }
+        executorService.shutdown();
+        try {
+            return executorService.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package network.parthenon.amcdb.util;
+
+import network.parthenon.amcdb.AMCDB;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads AMCDB uses for background work.
+ *
+ * By default, these are daemon platform threads. On Java 21+, AMCDB can instead
+ * run its background work on virtual threads, so that work blocked waiting on
+ * I/O (e.g. Discord API requests) does not tie up an OS thread. Virtual threads
+ * are looked up reflectively because AMCDB is compiled for Java 17.
+ */
+public class ThreadSupport {
+
+    /**
+     * Thread.ofVirtual(), or null if virtual threads are unavailable.
+     */
+    private static final Method OF_VIRTUAL;
+
+    /**
+     * Thread.Builder.name(String)
+     */
+    private static final Method BUILDER_NAME;
+
+    /**
+     * Thread.Builder.unstarted(Runnable)
+     */
+    private static final Method BUILDER_UNSTARTED;
+
+    private static volatile boolean useVirtualThreads = false;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderUnstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderName = builderClass.getMethod("name", String.class);
+            builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+            // Java 19 and 20 have the methods, but throw unless preview features are enabled
+            ofVirtual.invoke(null);
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_UNSTARTED = builderUnstarted;
+    }
+
+    /**
+     * Returns whether the running JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Sets whether threads created from now on should be virtual threads.
+     *
+     * If virtual threads are requested but not supported by the running JVM,
+     * logs a warning and continues to use platform threads.
+     *
+     * @param enabled Whether to use virtual threads.
+     * @return Whether virtual threads are actually in use.
+     */
+    public static boolean setUseVirtualThreads(boolean enabled) {
+        if(enabled && !isVirtualThreadSupported()) {
+            AMCDB.LOGGER.warn("Virtual threads were requested, but are not supported by this Java version (%s). Using platform threads instead."
+                    .formatted(System.getProperty("java.version")));
+            enabled = false;
+        }
+        useVirtualThreads = enabled;
+        return enabled;
+    }
+
+    /**
+     * Returns whether new threads are created as virtual threads.
+     */
+    public static boolean isUsingVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    /**
+     * Creates a new, unstarted thread to run the specified task.
+     *
+     * The thread is a virtual thread if virtual threads are enabled;
+     * otherwise it is a daemon platform thread.
+     *
+     * @param name Thread name.
+     * @param task Task to run on the thread.
+     * @return Unstarted thread.
+     */
+    public static Thread newThread(String name, Runnable task) {
+        if(useVirtualThreads) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+            }
+            catch(IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Failed to create virtual thread", e);
+            }
+        }
+
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Gets a ThreadFactory that creates threads with the specified name
+     * using {@link #newThread(String, Runnable)}.
+     *
+     * @param name Name for all threads created by the factory.
+     * @return ThreadFactory.
+     */
+    public static ThreadFactory namedFactory(String name) {
+        return runnable -> newThread(name, runnable);
+    }
+}
@@ -0,0 +1,271 @@
+package network.parthenon.amcdb.discord;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import network.parthenon.amcdb.discord.JDAMocks.MockTextChannel;
+import network.parthenon.amcdb.messaging.MessagePriority;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batching rounds are run directly rather than on the sender's executor,
+ * so the tests control when each round runs and when each request completes.
+ */
+class BatchingSenderTest {
+
+    /**
+     * Tests that chat is handed to JDA ahead of console output that was queued before it.
+     */
+    @Test
+    public void testChatOvertakesConsole() {
+        List<MockTextChannel.Request> requests = new ArrayList<>();
+        MockTextChannel chatChannel = new MockTextChannel(1, requests);
+        MockTextChannel consoleChannel = new MockTextChannel(2, requests);
+        SendPriorityGate gate = new SendPriorityGate();
+        BatchingSender chat = chatSender(chatChannel, gate);
+        BatchingSender console = consoleSender(consoleChannel, gate);
+
+        console.enqueueMessage("console 1");
+        console.run();
+        console.enqueueMessage("console 2");
+        console.enqueueMessage("console 3");
+        chat.enqueueMessage("chat");
+        chat.run();
+
+        // the console batch completes, but the queued lines wait for the chat message
+        requests.get(0).succeed();
+        console.run();
+        assertEquals(List.of("console 1", "chat"), contents(requests));
+
+        requests.get(1).succeed();
+        console.run();
+        assertEquals(List.of("console 1", "chat", "console 2\nconsole 3"), contents(requests));
+    }
+
+    /**
+     * Tests that console output proceeds once it has waited for the gate's maximum wait,
+     * even though chat is still in flight.
+     */
+    @Test
+    public void testConsoleMaxWait() {
+        List<MockTextChannel.Request> requests = new ArrayList<>();
+        SendPriorityGate gate = new SendPriorityGate(0);
+        BatchingSender chat = chatSender(new MockTextChannel(1, requests), gate);
+        BatchingSender console = consoleSender(new MockTextChannel(2, requests), gate);
+
+        chat.enqueueMessage("chat");
+        chat.run();
+        console.enqueueMessage("console");
+        console.run();
+
+        assertEquals(List.of("chat", "console"), contents(requests));
+    }
+
+    /**
+     * Tests that a burst arriving with one request left above the reserve is coalesced
+     * once that request is in flight, rather than sent one message at a time.
+     */
+    @Test
+    public void testBurstCoalescesAtReserve() {
+        MockTextChannel channel = new MockTextChannel(1);
+        RateLimitTracker rateLimits = new RateLimitTracker();
+        BatchingSender chat = chatSender(channel, new SendPriorityGate(), rateLimits);
+        rateLimits.update(1, 200, Integer.toString(RateLimitTracker.RESERVE + 1), "60", null, System.currentTimeMillis());
+
+        for(int i = 1; i <= 4; i++) {
+            chat.enqueueMessage(Integer.toString(i));
+            chat.run();
+        }
+        assertEquals(List.of("1"), contents(channel.getRequests()));
+
+        // the bucket resets
+        rateLimits.update(1, 200, "5", "60", null, System.currentTimeMillis());
+        channel.getLastRequest().succeed();
+        chat.run();
+        assertEquals(List.of("1", "2\n3\n4"), contents(channel.getRequests()));
+    }
+
+    /**
+     * Tests that a backlog above the spill threshold is sent as exactly one file upload.
+     */
+    @Test
+    public void testSpillAboveThreshold() {
+        MockTextChannel channel = new MockTextChannel(1);
+        BatchingSender console = consoleSender(channel, new SendPriorityGate(), 100, false);
+
+        for(int i = 0; i < 20; i++) {
+            console.enqueueMessage("line %02d...".formatted(i));
+        }
+        console.run();
+        channel.getLastRequest().succeed();
+        console.run();
+
+        List<MockTextChannel.Request> requests = channel.getRequests();
+        assertEquals(1, requests.size());
+        assertEquals("20 lines of backlog attached.", requests.get(0).content);
+        assertEquals(1, requests.get(0).files.size());
+    }
+
+    /**
+     * Tests that a backlog below the spill threshold is sent as normal messages.
+     */
+    @Test
+    public void testNoSpillBelowThreshold() {
+        MockTextChannel channel = new MockTextChannel(1);
+        BatchingSender console = consoleSender(channel, new SendPriorityGate(), 100, false);
+
+        console.enqueueMessage("line 1");
+        console.enqueueMessage("line 2");
+        console.run();
+
+        List<MockTextChannel.Request> requests = channel.getRequests();
+        assertEquals(List.of("line 1\nline 2"), contents(requests));
+        assertEquals(List.of(), requests.get(0).files);
+    }
+
+    /**
+     * Tests that lines arriving while an edit is in flight are combined into the next edit.
+     */
+    @Test
+    public void testEditInPlaceCoalesces() {
+        MockTextChannel channel = new MockTextChannel(1);
+        BatchingSender console = consoleSender(channel, new SendPriorityGate(), 0, true);
+
+        console.enqueueMessage("line 1");
+        console.run();
+        long messageId = channel.getLastRequest().succeed();
+        console.enqueueMessage("line 2");
+        console.run();
+        console.enqueueMessage("line 3");
+        console.run();
+        console.enqueueMessage("line 4");
+        console.run();
+        // only one edit is in flight
+        assertEquals(2, channel.getRequests().size());
+
+        channel.getLastRequest().succeed();
+        console.run();
+        List<MockTextChannel.Request> requests = channel.getRequests();
+        assertEquals(List.of("line 1", "line 1\nline 2", "line 1\nline 2\nline 3\nline 4"), contents(requests));
+        assertEquals(messageId, requests.get(1).editedMessageId);
+        assertEquals(messageId, requests.get(2).editedMessageId);
+    }
+
+    /**
+     * Tests that a new message is started once the last message is no longer the latest in the channel.
+     */
+    @Test
+    public void testEditInPlaceNewMessageWhenNotLatest() {
+        MockTextChannel channel = new MockTextChannel(1);
+        BatchingSender console = consoleSender(channel, new SendPriorityGate(), 0, true);
+
+        console.enqueueMessage("line 1");
+        console.run();
+        channel.getLastRequest().succeed();
+        channel.postOtherMessage();
+        console.enqueueMessage("line 2");
+        console.run();
+
+        assertEquals(List.of("line 1", "line 2"), contents(channel.getRequests()));
+        assertFalse(channel.getLastRequest().isEdit());
+    }
+
+    /**
+     * Tests that lines whose edit fails are posted as a new message, which later lines are appended to.
+     */
+    @Test
+    public void testEditInPlaceFallback() {
+        MockTextChannel channel = new MockTextChannel(1);
+        BatchingSender console = consoleSender(channel, new SendPriorityGate(), 0, true);
+
+        console.enqueueMessage("line 1");
+        console.run();
+        channel.getLastRequest().succeed();
+        console.enqueueMessage("line 2");
+        console.run();
+        // e.g. the message was deleted
+        channel.getLastRequest().fail(Mockito.mock(ErrorResponseException.class));
+
+        MockTextChannel.Request fallback = channel.getLastRequest();
+        assertFalse(fallback.isEdit());
+        assertEquals("line 2", fallback.content);
+
+        long messageId = fallback.succeed();
+        console.enqueueMessage("line 3");
+        console.run();
+        assertEquals(messageId, channel.getLastRequest().editedMessageId);
+        assertEquals("line 2\nline 3", channel.getLastRequest().content);
+    }
+
+    /**
+     * Tests that replaying the journal keeps queued messages that were not journaled,
+     * in their original place among the replayed messages.
+     */
+    @Test
+    public void testReplayKeepsUnjournaledMessages() throws IOException {
+        Path directory = Files.createTempDirectory("amcdb-sender-test");
+        try(MessageJournal journal = new MessageJournal(directory, 1L << 30)) {
+            MockTextChannel channel = new MockTextChannel(1);
+            BatchingSender console = new BatchingSender(channel.getChannel(), false, MessagePriority.LOW,
+                    new SendPriorityGate(), new RateLimitTracker(), journal, 0, false);
+            // too long for the journal
+            String unjournaled = "x".repeat(MessageJournal.SEGMENT_SIZE);
+
+            // skipped while disconnected, so replayed when the connection returns
+            channel.setStatus(JDA.Status.DISCONNECTED);
+            console.enqueueMessage("line 1");
+            console.run();
+            console.enqueueMessage(unjournaled);
+            console.enqueueMessage("line 2");
+            channel.setStatus(JDA.Status.CONNECTED);
+
+            for(int i = 0; i < 3; i++) {
+                console.run();
+                channel.getLastRequest().succeed();
+            }
+            List<String> sent = contents(channel.getRequests());
+            assertEquals("line 1", sent.get(0));
+            assertEquals(unjournaled, sent.get(1));
+            assertTrue(sent.get(2).startsWith("line 2"));
+        }
+        finally {
+            try(var paths = Files.walk(directory)) {
+                for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static BatchingSender chatSender(MockTextChannel channel, SendPriorityGate gate) {
+        return chatSender(channel, gate, new RateLimitTracker());
+    }
+
+    private static BatchingSender chatSender(MockTextChannel channel, SendPriorityGate gate, RateLimitTracker rateLimits) {
+        return new BatchingSender(channel.getChannel(), true, MessagePriority.HIGH, gate,
+                rateLimits, null, 0, false);
+    }
+
+    private static BatchingSender consoleSender(MockTextChannel channel, SendPriorityGate gate) {
+        return consoleSender(channel, gate, 0, false);
+    }
+
+    private static BatchingSender consoleSender(MockTextChannel channel, SendPriorityGate gate,
+                                                long spillThreshold, boolean editInPlace) {
+        return new BatchingSender(channel.getChannel(), false, MessagePriority.LOW, gate,
+                new RateLimitTracker(), null, spillThreshold, editInPlace);
+    }
+
+    private static List<String> contents(List<MockTextChannel.Request> requests) {
+        return requests.stream().map(request -> request.content).toList();
+    }
+}
@@ -17,7 +17,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -95,6 +102,41 @@ class DiscordListenerTest {
         Mockito.verify(mockDiscordService).sendToConsoleChannel(Mockito.anyString());
     }
 
+    /**
+     * Tests that with a message executor, received messages are processed off the
+     * JDA event thread, in the order they were received.
+     */
+    @Test
+    public void messageExecutorKeepsOrder() throws InterruptedException {
+        DiscordConfig config = Mockito.mock(DiscordConfig.class);
+        Mockito.when(config.getDiscordChatChannel()).thenReturn(OptionalLong.of(1234));
+        Mockito.when(config.getDiscordConsoleChannel()).thenReturn(OptionalLong.of(2345));
+        List<String> received = new ArrayList<>();
+        Set<Thread> threads = new HashSet<>();
+        Mockito.doAnswer(invocation -> {
+            synchronized(received) {
+                received.add(((InternalMessage) invocation.getArgument(0)).getUnformattedContents());
+                threads.add(Thread.currentThread());
+            }
+            return null;
+        }).when(mockBroker).publish(Mockito.any(InternalMessage.class));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        DiscordListener listener = new DiscordListener(mockDiscordService, config, mockBroker, executor);
+        List<String> sent = new ArrayList<>();
+        for(int i = 0; i < 50; i++) {
+            sent.add("message " + i);
+            listener.onMessageReceived(mockMessageReceivedEvent("message " + i, 1234, 555));
+        }
+        listener.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        synchronized(received) {
+            assertEquals(sent, received);
+            assertFalse(threads.contains(Thread.currentThread()));
+        }
+    }
+
     /**
      * Creates a mock JDA instance.
      * @return
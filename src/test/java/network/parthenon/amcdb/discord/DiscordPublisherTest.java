@@ -120,6 +120,50 @@ class DiscordPublisherTest {
         Mockito.verify(mockDiscordService, Mockito.never()).sendToChatWebhook(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
     }
 
+    /**
+     * Tests that consecutive console messages in a batch are packed into a single
+     * Discord message, and that other messages in the batch are still delivered in order.
+     */
+    @Test
+    public void testConsoleMessageBatch() {
+        setupConfig(true, false, true);
+
+        DiscordPublisher publisher = new DiscordPublisher(mockDiscordService, mockConfig);
+
+        publisher.handleMessages(List.of(
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", null, "line 1"),
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", null, "line 2"),
+                new BroadcastMessage("JUNIT_TEST_SOURCE_ID", "test message"),
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", null, "line 3")));
+
+        Mockito.verify(mockDiscordService).sendToConsoleChannel("line 1\nline 2");
+        Mockito.verify(mockDiscordService).sendToConsoleChannel("line 3");
+        Mockito.verify(mockDiscordService, Mockito.times(2)).sendToConsoleChannel(Mockito.anyString());
+        Mockito.verify(mockDiscordService).sendToChatChannel("test message");
+    }
+
+    /**
+     * Tests that console messages from additional log streams are packed separately
+     * and sent to the stream's channel.
+     */
+    @Test
+    public void testConsoleMessageStreams() {
+        setupConfig(true, false, true);
+        Mockito.when(mockDiscordService.isConsoleStreamEnabled("debug")).thenReturn(true);
+
+        DiscordPublisher publisher = new DiscordPublisher(mockDiscordService, mockConfig);
+
+        publisher.handleMessages(List.of(
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", "line 1", null, null, null, 0, null),
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", "debug 1", null, null, null, 0, "debug"),
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", "debug 2", null, null, null, 0, "debug"),
+                new ConsoleMessage("JUNIT_TEST_SOURCE_ID", "line 2", null, null, null, 0, null)));
+
+        Mockito.verify(mockDiscordService).sendToConsoleChannel("line 1");
+        Mockito.verify(mockDiscordService).sendToConsoleStream("debug", "debug 1\ndebug 2");
+        Mockito.verify(mockDiscordService).sendToConsoleChannel("line 2");
+    }
+
 
     /**
      * Tests that lifecycle messages are properly published to the chat channel.
@@ -51,6 +51,38 @@ class DiscordServerStatusPublisherTest {
         Mockito.verify(mockDiscordService, Mockito.never()).setConsoleChannelTopic(Mockito.anyString());
     }
 
+    /**
+     * Tests that channel names and the bot's presence are rendered as plain text,
+     * without time placeholders.
+     */
+    @Test
+    public void testNameAndPresenceUpdate() {
+        Mockito.when(mockConfig.getDiscordChatTopicFormat()).thenReturn(Optional.empty());
+        Mockito.when(mockConfig.getDiscordConsoleTopicFormat()).thenReturn(Optional.empty());
+        Mockito.when(mockConfig.getDiscordChatNameFormat()).thenReturn(Optional.of("chat-%playersOnline%-online"));
+        Mockito.when(mockConfig.getDiscordPresenceFormat()).thenReturn(Optional.of("MSPT: %mspt% %relativeTime%"));
+        DiscordServerStatusPublisher publisher = new DiscordServerStatusPublisher(mockDiscordService, mockConfig);
+
+        publisher.handleMessage(new ServerStatusMessage("JUNIT_TEST_SOURCE_ID", 18.0, 4096, 1024, 2, 10, List.of(new TextComponent("A Minecraft Server")), System.currentTimeMillis()));
+        Mockito.verify(mockDiscordService).setChatChannelName("chat-2-online");
+        Mockito.verify(mockDiscordService).setPresence("MSPT: 18.0");
+        Mockito.verify(mockDiscordService, Mockito.never()).setConsoleChannelName(Mockito.anyString());
+    }
+
+    /**
+     * Tests that data in a server status message is published to the status dashboard.
+     */
+    @Test
+    public void testDashboardUpdate() {
+        Mockito.when(mockConfig.getDiscordChatTopicFormat()).thenReturn(Optional.empty());
+        Mockito.when(mockConfig.getDiscordConsoleTopicFormat()).thenReturn(Optional.empty());
+        Mockito.when(mockConfig.getDiscordConsoleDashboardFormat()).thenReturn(Optional.of("Players %playersOnline%/%maxPlayers%\nMSPT %mspt%"));
+        DiscordServerStatusPublisher publisher = new DiscordServerStatusPublisher(mockDiscordService, mockConfig);
+
+        publisher.handleMessage(new ServerStatusMessage("JUNIT_TEST_SOURCE_ID", 18.0, 4096, 1024, 2, 10, List.of(new TextComponent("A Minecraft Server")), System.currentTimeMillis()));
+        Mockito.verify(mockDiscordService).setConsoleDashboard("Players 2/10\nMSPT 18.0");
+    }
+
     /**
      * Tests that the MSPT alert is sent when two consecutive MSPT values are above
      * the configured threshold.
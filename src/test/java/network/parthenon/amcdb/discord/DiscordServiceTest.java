@@ -0,0 +1,89 @@
+package network.parthenon.amcdb.discord;
+
+import net.dv8tion.jda.api.JDA;
+import network.parthenon.amcdb.config.DiscordConfig;
+import network.parthenon.amcdb.discord.JDAMocks.MockTextChannel;
+import network.parthenon.amcdb.messaging.MessageBroker;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordServiceTest {
+
+    private static final long CHAT_CHANNEL_ID = 1234;
+
+    /**
+     * Number of requests completed by {@link #awaitLines(MockTextChannel, int)}.
+     */
+    private int completed = 0;
+
+    /**
+     * Tests that messages sent while connecting are held, that the oldest are
+     * discarded beyond amcdb.discord.startupBufferSize, and that the rest are
+     * sent in order once the channels are resolved, ahead of later messages.
+     */
+    @Test
+    public void testStartupBuffer() throws InterruptedException {
+        DiscordConfig config = Mockito.mock(DiscordConfig.class);
+        Mockito.when(config.getDiscordChatChannel()).thenReturn(OptionalLong.of(CHAT_CHANNEL_ID));
+        Mockito.when(config.getDiscordStartupBufferSize()).thenReturn(3L);
+        Mockito.when(config.getDiscordBatchingTimeLimit()).thenReturn(10L);
+
+        MockTextChannel channel = new MockTextChannel(CHAT_CHANNEL_ID);
+        CountDownLatch connected = new CountDownLatch(1);
+        JDA jda = Mockito.mock(JDA.class);
+        Mockito.when(jda.awaitReady()).thenAnswer(i -> {
+            connected.await();
+            return jda;
+        });
+        Mockito.when(jda.getStatus()).thenReturn(JDA.Status.CONNECTED);
+        Mockito.when(jda.getTextChannelById(CHAT_CHANNEL_ID)).thenReturn(channel.getChannel());
+
+        DiscordService service = new DiscordService(Mockito.mock(MessageBroker.class), config, s -> jda);
+        try {
+            for(int i = 1; i <= 5; i++) {
+                service.sendToChatChannel(Integer.toString(i));
+            }
+            assertEquals(List.of(), channel.getRequests());
+
+            connected.countDown();
+            assertEquals(List.of("3", "4", "5"), awaitLines(channel, 3));
+
+            service.sendToChatChannel("6");
+            assertEquals(List.of("3", "4", "5", "6"), awaitLines(channel, 4));
+        }
+        finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Completes the requests sent on the channel until the provided number of lines have been sent.
+     * @return The lines sent, in order.
+     */
+    private List<String> awaitLines(MockTextChannel channel, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<String> lines = new ArrayList<>();
+        while(System.currentTimeMillis() < deadline) {
+            List<MockTextChannel.Request> requests = channel.getRequests();
+            for(; completed < requests.size(); completed++) {
+                requests.get(completed).succeed();
+            }
+            lines.clear();
+            for(MockTextChannel.Request request : requests) {
+                lines.addAll(List.of(request.content.split("\n")));
+            }
+            if(lines.size() >= count) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        return lines;
+    }
+}
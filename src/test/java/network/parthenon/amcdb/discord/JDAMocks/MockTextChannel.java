@@ -0,0 +1,195 @@
+package network.parthenon.amcdb.discord.JDAMocks;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
+import net.dv8tion.jda.api.requests.restaction.MessageEditAction;
+import net.dv8tion.jda.api.utils.FileUpload;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A TextChannel that records the messages sent and edited on it.
+ *
+ * Requests are not completed until the test calls {@link Request#succeed()} or
+ * {@link Request#fail(Throwable)}, so tests control what is in flight.
+ */
+public class MockTextChannel {
+
+    private final TextChannel channel;
+
+    private final List<Request> requests;
+
+    private volatile JDA.Status status = JDA.Status.CONNECTED;
+
+    private volatile long latestMessageId = 0;
+
+    private long nextMessageId = 1;
+
+    public MockTextChannel(long id) {
+        this(id, new ArrayList<>());
+    }
+
+    /**
+     * Creates a MockTextChannel.
+     * @param id       ID of the channel.
+     * @param requests List to which requests are added, which may be shared
+     *                 with other channels to record their relative order.
+     */
+    public MockTextChannel(long id, List<Request> requests) {
+        this.requests = requests;
+
+        JDA jda = Mockito.mock(JDA.class);
+        Mockito.when(jda.getStatus()).thenAnswer(i -> status);
+
+        channel = Mockito.mock(TextChannel.class);
+        Mockito.when(channel.getIdLong()).thenReturn(id);
+        Mockito.when(channel.getName()).thenReturn("Channel%d".formatted(id));
+        Mockito.when(channel.getJDA()).thenReturn(jda);
+        Mockito.when(channel.getLatestMessageIdLong()).thenAnswer(i -> latestMessageId);
+        Mockito.when(channel.sendMessage(Mockito.any(CharSequence.class))).thenAnswer(i ->
+                action(MessageCreateAction.class, new Request(0, i.getArgument(0).toString())));
+        Mockito.when(channel.editMessageById(Mockito.anyLong(), Mockito.any(CharSequence.class))).thenAnswer(i ->
+                action(MessageEditAction.class, new Request(i.getArgument(0), i.getArgument(1).toString())));
+    }
+
+    public TextChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Gets the requests handed to JDA so far, in order.
+     */
+    public List<Request> getRequests() {
+        synchronized(requests) {
+            return List.copyOf(requests);
+        }
+    }
+
+    /**
+     * Gets the most recent request handed to JDA.
+     */
+    public Request getLastRequest() {
+        List<Request> all = getRequests();
+        return all.get(all.size() - 1);
+    }
+
+    public void setStatus(JDA.Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Simulates a message posted to the channel by someone else.
+     */
+    public synchronized void postOtherMessage() {
+        latestMessageId = nextMessageId++;
+    }
+
+    /**
+     * Creates a mock RestAction that records the provided request when it is queued.
+     * Builder methods return the action itself.
+     */
+    private <T> T action(Class<T> type, Request request) {
+        return Mockito.mock(type, invocation -> {
+            switch(invocation.getMethod().getName()) {
+                case "queue":
+                    request.queued(invocation);
+                    return null;
+                case "addFiles":
+                    request.addFiles(invocation);
+                    return invocation.getMock();
+            }
+            if(invocation.getMethod().getReturnType().isInstance(invocation.getMock())) {
+                return invocation.getMock();
+            }
+            return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+
+    /**
+     * A message sent or edited on the channel.
+     */
+    public class Request {
+
+        /**
+         * ID of the edited message, or 0 if this request sends a new message.
+         */
+        public final long editedMessageId;
+
+        public final String content;
+
+        public final List<FileUpload> files = new ArrayList<>();
+
+        private Consumer<Object> success;
+
+        private Consumer<Throwable> failure;
+
+        private Request(long editedMessageId, String content) {
+            this.editedMessageId = editedMessageId;
+            this.content = content;
+        }
+
+        public boolean isEdit() {
+            return editedMessageId != 0;
+        }
+
+        /**
+         * Completes the request successfully.
+         * @return The ID of the message sent or edited.
+         */
+        public long succeed() {
+            long id;
+            synchronized(MockTextChannel.this) {
+                id = isEdit() ? editedMessageId : nextMessageId++;
+                if(!isEdit()) {
+                    latestMessageId = id;
+                }
+            }
+            Message message = Mockito.mock(Message.class);
+            Mockito.when(message.getIdLong()).thenReturn(id);
+            if(success != null) {
+                success.accept(message);
+            }
+            return id;
+        }
+
+        /**
+         * Completes the request with the provided error.
+         */
+        public void fail(Throwable error) {
+            if(failure != null) {
+                failure.accept(error);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void queued(InvocationOnMock invocation) {
+            Object[] args = invocation.getArguments();
+            success = args.length > 0 ? (Consumer<Object>) args[0] : null;
+            failure = args.length > 1 ? (Consumer<Throwable>) args[1] : null;
+            synchronized(requests) {
+                requests.add(this);
+            }
+        }
+
+        private void addFiles(InvocationOnMock invocation) {
+            for(Object arg : invocation.getArguments()) {
+                if(arg instanceof FileUpload file) {
+                    files.add(file);
+                }
+                else if(arg instanceof FileUpload[] array) {
+                    files.addAll(List.of(array));
+                }
+                else if(arg instanceof Collection<?> collection) {
+                    collection.forEach(file -> files.add((FileUpload) file));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package network.parthenon.amcdb.discord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageJournalTest {
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("amcdb-journal-test");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try(var paths = Files.walk(directory)) {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Tests that acknowledged messages are not read back.
+     */
+    @Test
+    public void testAck() throws IOException {
+        MessageJournal journal = new MessageJournal(directory, 1L << 30);
+        long first = journal.append("line 1");
+        long second = journal.append("line 2");
+        journal.append("line 3");
+        assertEquals(first + 1, second);
+
+        journal.ack(first, second);
+
+        assertEquals(List.of("line 3"), texts(journal.readUnacked(Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Tests that batches confirmed out of order are not read back, but are only
+     * acknowledged on disk once every earlier batch has been confirmed.
+     */
+    @Test
+    public void testAckOutOfOrder() throws IOException {
+        MessageJournal journal = new MessageJournal(directory, 1L << 30);
+        long first = journal.append("line 1");
+        journal.append("line 2");
+        long third = journal.append("line 3");
+        long fourth = journal.append("line 4");
+
+        // the second batch completes before the first
+        journal.ack(third, fourth);
+        assertEquals(List.of("line 1", "line 2"), texts(journal.readUnacked(Integer.MAX_VALUE)));
+        journal.close();
+        assertEquals(List.of("line 1", "line 2", "line 3", "line 4"),
+                texts(new MessageJournal(directory, 1L << 30).readUnacked(Integer.MAX_VALUE)));
+
+        journal.ack(first, third - 1);
+        assertEquals(List.of(), journal.readUnacked(Integer.MAX_VALUE).entries());
+        journal.close();
+        assertEquals(List.of(), new MessageJournal(directory, 1L << 30).readUnacked(Integer.MAX_VALUE).entries());
+    }
+
+    /**
+     * Tests that unacknowledged messages are read back after reopening the journal,
+     * and that sequence numbers continue where they left off.
+     */
+    @Test
+    public void testReopen() throws IOException {
+        MessageJournal journal = new MessageJournal(directory, 1L << 30);
+        journal.append("line 1");
+        long second = journal.append("h\u00e9llo \u4e16\u754c");
+        journal.ack(second - 1, second - 1);
+        journal.close();
+
+        MessageJournal reopened = new MessageJournal(directory, 1L << 30);
+        assertEquals(List.of("h\u00e9llo \u4e16\u754c"), texts(reopened.readUnacked(Integer.MAX_VALUE)));
+        assertEquals(second + 1, reopened.append("line 3"));
+    }
+
+    /**
+     * Tests that only the most recent messages are read back when there are too many,
+     * and the rest are counted.
+     */
+    @Test
+    public void testReadLimit() throws IOException {
+        MessageJournal journal = new MessageJournal(directory, 1L << 30);
+        for(int i = 0; i < 10; i++) {
+            journal.append("line " + i);
+        }
+
+        MessageJournal.Replay replay = journal.readUnacked(3);
+        assertEquals(List.of("line 7", "line 8", "line 9"), texts(replay));
+        assertEquals(7, replay.skipped());
+    }
+
+    /**
+     * Tests that the oldest messages are discarded when the journal is full,
+     * and that fully acknowledged segments are deleted.
+     */
+    @Test
+    public void testSizeLimit() throws IOException {
+        MessageJournal journal = new MessageJournal(directory, 2L * MessageJournal.SEGMENT_SIZE);
+        String line = "x".repeat(1000);
+        // a little over three segments' worth
+        int count = 3 * MessageJournal.SEGMENT_SIZE / 1000 + 100;
+        long last = 0;
+        for(int i = 0; i < count; i++) {
+            last = journal.append(line);
+        }
+
+        assertEquals(2, segmentCount());
+        long dropped = journal.takeDroppedCount();
+        assertTrue(dropped > 0);
+        assertEquals(count - dropped, journal.readUnacked(Integer.MAX_VALUE).entries().size());
+        assertEquals(0, journal.takeDroppedCount());
+
+        journal.ack(1, last);
+        assertEquals(1, segmentCount());
+        assertEquals(List.of(), journal.readUnacked(Integer.MAX_VALUE).entries());
+    }
+
+    /**
+     * Tests that a partly written record at the end of a segment is ignored.
+     */
+    @Test
+    public void testTornRecord() throws IOException {
+        MessageJournal journal = new MessageJournal(directory, 1L << 30);
+        journal.append("line 1");
+        journal.close();
+
+        Path segment;
+        try(var files = Files.list(directory)) {
+            segment = files.filter(f -> f.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        // header for a 5-byte message with a wrong checksum and no contents
+        long offset = 4 + 8 + 4 + "line 1".length();
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(16).putInt(5).putLong(2).putInt(12345).flip(), offset);
+        }
+
+        MessageJournal reopened = new MessageJournal(directory, 1L << 30);
+        assertEquals(List.of("line 1"), texts(reopened.readUnacked(Integer.MAX_VALUE)));
+        reopened.append("line 2");
+        assertEquals(List.of("line 1", "line 2"), texts(reopened.readUnacked(Integer.MAX_VALUE)));
+    }
+
+    private long segmentCount() throws IOException {
+        try(var files = Files.list(directory)) {
+            return files.filter(f -> f.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static List<String> texts(MessageJournal.Replay replay) {
+        return replay.entries().stream().map(MessageJournal.Entry::text).toList();
+    }
+}
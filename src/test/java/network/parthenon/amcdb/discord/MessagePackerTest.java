@@ -0,0 +1,37 @@
+package network.parthenon.amcdb.discord;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessagePackerTest {
+
+    /**
+     * Tests that lines are joined with newlines up to the capacity, counting the separators.
+     */
+    @Test
+    public void testPacking() {
+        MessagePacker packer = new MessagePacker(11);
+        assertTrue(packer.isEmpty());
+
+        packer.append("hello");
+        assertTrue(packer.fits("world"));
+        assertFalse(packer.fits("world!"));
+        packer.append("world");
+
+        assertEquals("hello\nworld", packer.take());
+        assertTrue(packer.isEmpty());
+    }
+
+    /**
+     * Tests that the first line always fits, even if it exceeds the capacity.
+     */
+    @Test
+    public void testFirstLineFits() {
+        MessagePacker packer = new MessagePacker(3);
+        assertTrue(packer.fits("longer than three"));
+        packer.append("longer than three");
+        assertFalse(packer.fits("a"));
+        assertEquals("longer than three", packer.take());
+    }
+}
@@ -0,0 +1,134 @@
+package network.parthenon.amcdb.discord;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataUpdateSchedulerTest {
+
+    /**
+     * Tests that a value is not applied again when it has not changed.
+     */
+    @Test
+    public void testUnchangedValueSuppressed() {
+        MetadataUpdateScheduler scheduler = new MetadataUpdateScheduler();
+        List<String> applied = new ArrayList<>();
+        MetadataUpdateScheduler.Target<String> target = register(scheduler, applied, 10, 0);
+
+        target.update("2 players online");
+        scheduler.run(1000);
+        target.update("2 players online");
+        scheduler.run(2000);
+
+        assertEquals(List.of("2 players online"), applied);
+        assertEquals(9, target.getRemainingEdits(2000));
+    }
+
+    /**
+     * Tests that values differing only in their Discord timestamps are treated as unchanged.
+     */
+    @Test
+    public void testTimestampsIgnored() {
+        MetadataUpdateScheduler scheduler = new MetadataUpdateScheduler();
+        List<String> applied = new ArrayList<>();
+        MetadataUpdateScheduler.Target<String> target = register(scheduler, applied, 10, 0);
+
+        target.update("2 players online - Updated <t:1672549740:R>");
+        scheduler.run(1000);
+        target.update("2 players online - Updated <t:1672549750:R>");
+        scheduler.run(2000);
+
+        assertEquals(1, applied.size());
+    }
+
+    /**
+     * Tests that only the newest value is applied once the budget frees up.
+     */
+    @Test
+    public void testNewestValueWhenBudgetFrees() {
+        MetadataUpdateScheduler scheduler = new MetadataUpdateScheduler();
+        List<String> applied = new ArrayList<>();
+        MetadataUpdateScheduler.Target<String> target = register(scheduler, applied, 2, 0);
+
+        target.update("1");
+        scheduler.run(0);
+        target.update("2");
+        scheduler.run(1000);
+        target.update("3");
+        scheduler.run(2000);
+        target.update("4");
+        scheduler.run(3000);
+        assertEquals(List.of("1", "2"), applied);
+        assertEquals(0, target.getRemainingEdits(3000));
+        assertTrue(target.isPending());
+
+        // the first edit leaves the window
+        scheduler.run(10000);
+        assertEquals(List.of("1", "2", "4"), applied);
+        assertFalse(target.isPending());
+    }
+
+    /**
+     * Tests that edits are spaced by the minimum interval.
+     */
+    @Test
+    public void testMinInterval() {
+        MetadataUpdateScheduler scheduler = new MetadataUpdateScheduler();
+        List<String> applied = new ArrayList<>();
+        MetadataUpdateScheduler.Target<String> target = register(scheduler, applied, 10, 5000);
+
+        target.update("1");
+        scheduler.run(0);
+        target.update("2");
+        scheduler.run(4999);
+        assertEquals(List.of("1"), applied);
+
+        scheduler.run(5000);
+        assertEquals(List.of("1", "2"), applied);
+    }
+
+    /**
+     * Tests that a value which could not be applied yet uses no budget,
+     * and that a failed edit is retried.
+     */
+    @Test
+    public void testNotReadyAndFailure() {
+        MetadataUpdateScheduler scheduler = new MetadataUpdateScheduler();
+        List<String> attempts = new ArrayList<>();
+        boolean[] ready = {false};
+        MetadataUpdateScheduler.Target<String> target = scheduler.register("test", 10, 10000, 0,
+                MetadataUpdateScheduler::ignoreTimestamps, value -> {
+                    if(!ready[0]) {
+                        return null;
+                    }
+                    attempts.add(value);
+                    return attempts.size() == 1 ?
+                            CompletableFuture.failedFuture(new RuntimeException("rate limited")) :
+                            CompletableFuture.completedFuture(null);
+                });
+
+        target.update("topic");
+        scheduler.run(0);
+        assertEquals(10, target.getRemainingEdits(0));
+
+        ready[0] = true;
+        scheduler.run(1000);
+        assertTrue(target.isPending());
+        scheduler.run(2000);
+        assertEquals(List.of("topic", "topic"), attempts);
+        assertFalse(target.isPending());
+    }
+
+    private static MetadataUpdateScheduler.Target<String> register(
+            MetadataUpdateScheduler scheduler, List<String> applied, int maxEdits, long minIntervalMillis) {
+        return scheduler.register("test", maxEdits, 10000, minIntervalMillis,
+                MetadataUpdateScheduler::ignoreTimestamps, value -> {
+                    applied.add(value);
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+}
@@ -0,0 +1,80 @@
+package network.parthenon.amcdb.discord;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitTrackerTest {
+
+    private static final long CHANNEL_ID = 1234;
+
+    /**
+     * Tests that messages may be sent to a channel nothing is known about.
+     */
+    @Test
+    public void testUnknownChannel() {
+        RateLimitTracker tracker = new RateLimitTracker();
+
+        assertEquals(0, tracker.getHoldMillis(CHANNEL_ID, 1000));
+    }
+
+    /**
+     * Tests that messages are held once the bucket is down to the reserve,
+     * and only until it resets.
+     */
+    @Test
+    public void testHoldUntilReset() {
+        RateLimitTracker tracker = new RateLimitTracker();
+
+        tracker.update(CHANNEL_ID, 200, "3", "2.5", null, 1000);
+        assertEquals(0, tracker.getHoldMillis(CHANNEL_ID, 1000));
+
+        tracker.update(CHANNEL_ID, 200, Integer.toString(RateLimitTracker.RESERVE), "2.5", null, 1000);
+        assertEquals(2500, tracker.getHoldMillis(CHANNEL_ID, 1000));
+        assertEquals(500, tracker.getHoldMillis(CHANNEL_ID, 3000));
+        assertEquals(0, tracker.getHoldMillis(CHANNEL_ID, 3500));
+
+        // other channels are not affected
+        assertEquals(0, tracker.getHoldMillis(CHANNEL_ID + 1, 1000));
+    }
+
+    /**
+     * Tests that requests handed to JDA count against the budget until they complete.
+     */
+    @Test
+    public void testInFlightRequests() {
+        RateLimitTracker tracker = new RateLimitTracker();
+
+        tracker.update(CHANNEL_ID, 200, Integer.toString(RateLimitTracker.RESERVE + 2), "2.5", null, 1000);
+        tracker.beginRequest(CHANNEL_ID);
+        assertEquals(0, tracker.getHoldMillis(CHANNEL_ID, 1000));
+        tracker.beginRequest(CHANNEL_ID);
+        assertEquals(2500, tracker.getHoldMillis(CHANNEL_ID, 1000));
+
+        tracker.endRequest(CHANNEL_ID);
+        assertEquals(0, tracker.getHoldMillis(CHANNEL_ID, 1000));
+    }
+
+    /**
+     * Tests that a 429 response empties the bucket, using Retry-After if no reset is given.
+     */
+    @Test
+    public void testTooManyRequests() {
+        RateLimitTracker tracker = new RateLimitTracker();
+
+        tracker.update(CHANNEL_ID, 429, null, null, "4", 1000);
+        assertEquals(4000, tracker.getHoldMillis(CHANNEL_ID, 1000));
+    }
+
+    /**
+     * Tests that malformed headers leave the previous state in place.
+     */
+    @Test
+    public void testMalformedHeaders() {
+        RateLimitTracker tracker = new RateLimitTracker();
+
+        tracker.update(CHANNEL_ID, 200, "0", "1", null, 1000);
+        tracker.update(CHANNEL_ID, 200, "many", "1", null, 1000);
+        assertEquals(1000, tracker.getHoldMillis(CHANNEL_ID, 1000));
+    }
+}
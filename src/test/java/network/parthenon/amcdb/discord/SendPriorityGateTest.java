@@ -0,0 +1,45 @@
+package network.parthenon.amcdb.discord;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SendPriorityGateTest {
+
+    /**
+     * Tests that low priority requests wait while high priority messages are
+     * outstanding, and that the idle listeners run when the last one completes.
+     */
+    @Test
+    public void testIdle() {
+        SendPriorityGate gate = new SendPriorityGate(10000);
+        AtomicInteger idleCount = new AtomicInteger();
+        gate.onHighIdle(idleCount::incrementAndGet);
+        assertEquals(0, gate.getLowWaitMillis(1000, 1000));
+
+        gate.beginHigh(2);
+        assertFalse(gate.isHighIdle());
+        gate.endHigh(1);
+        assertEquals(0, idleCount.get());
+        gate.endHigh(1);
+
+        assertTrue(gate.isHighIdle());
+        assertEquals(1, idleCount.get());
+    }
+
+    /**
+     * Tests that a low priority request proceeds once it has waited for the maximum wait,
+     * even though high priority messages are still outstanding.
+     */
+    @Test
+    public void testMaxLowWait() {
+        SendPriorityGate gate = new SendPriorityGate(10000);
+        gate.beginHigh(1);
+
+        assertEquals(10000, gate.getLowWaitMillis(1000, 1000));
+        assertEquals(1, gate.getLowWaitMillis(1000, 10999));
+        assertEquals(0, gate.getLowWaitMillis(1000, 11000));
+    }
+}
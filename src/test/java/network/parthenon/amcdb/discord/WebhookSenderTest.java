@@ -0,0 +1,149 @@
+package network.parthenon.amcdb.discord;
+
+import net.dv8tion.jda.api.entities.IncomingWebhookClient;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookSenderTest {
+
+    private static final WebhookSender.Author ALICE = new WebhookSender.Author("Alice", "alice.png");
+
+    private static final WebhookSender.Author BOB = new WebhookSender.Author("Bob", "bob.png");
+
+    /**
+     * Tests that consecutive messages from one author are merged into one post.
+     */
+    @Test
+    public void testCoalesceSameAuthor() {
+        WebhookSender sender = newSender(new RateLimitTracker(), 1);
+
+        assertTrue(sender.add("hello", ALICE, 1000));
+        assertFalse(sender.add("anyone there?", ALICE, 1200));
+
+        assertEquals(List.of(), sender.takeDue(1400));
+        List<WebhookSender.Post> posts = sender.takeDue(1500);
+        assertEquals(1, posts.size());
+        assertEquals("hello\nanyone there?", posts.get(0).text.toString());
+        assertEquals(2, posts.get(0).count);
+    }
+
+    /**
+     * Tests that messages are not merged into a post whose window has ended,
+     * and never with a window of 0.
+     */
+    @Test
+    public void testCoalesceWindowEnded() {
+        WebhookSender sender = newSender(new RateLimitTracker(), 1);
+        assertTrue(sender.add("hello", ALICE, 1000));
+        assertTrue(sender.add("anyone there?", ALICE, 1500));
+
+        WebhookSender unwindowed = new WebhookSender(List.of(), new SendPriorityGate(), new RateLimitTracker(), 0);
+        assertTrue(unwindowed.add("hello", ALICE, 1000));
+        assertTrue(unwindowed.add("anyone there?", ALICE, 1000));
+        assertEquals(2, unwindowed.takeDue(1000).size());
+    }
+
+    /**
+     * Tests that messages from different authors are posted separately and in order.
+     */
+    @Test
+    public void testOrderAcrossAuthors() {
+        WebhookSender sender = newSender(new RateLimitTracker(), 1);
+
+        sender.add("hi", ALICE, 1000);
+        sender.add("hey", BOB, 1100);
+        // Alice's reply must not be merged ahead of Bob's message
+        assertTrue(sender.add("how are you?", ALICE, 1200));
+
+        List<WebhookSender.Post> posts = sender.takeDue(2000);
+        assertEquals(List.of("hi", "hey", "how are you?"),
+                posts.stream().map(post -> post.text.toString()).toList());
+        assertEquals(List.of(ALICE, BOB, ALICE),
+                posts.stream().map(post -> post.author).toList());
+    }
+
+    /**
+     * Tests that a message which does not fit in the current post starts a new one.
+     */
+    @Test
+    public void testCharacterLimit() {
+        WebhookSender sender = newSender(new RateLimitTracker(), 1);
+
+        sender.add("a".repeat(DiscordService.DISCORD_MESSAGE_CHAR_LIMIT - 10), ALICE, 1000);
+        assertTrue(sender.add("b".repeat(10), ALICE, 1100));
+
+        assertEquals(2, sender.takeDue(2000).size());
+    }
+
+    /**
+     * Tests that posts go to the webhook with rate limit budget left, spreading
+     * authors across webhooks.
+     */
+    @Test
+    public void testSelectByRateLimit() {
+        RateLimitTracker rateLimits = new RateLimitTracker();
+        WebhookSender sender = newSender(rateLimits, 2);
+        // webhook 0 is out of requests
+        rateLimits.update(0, 200, "0", "2", null, 1000);
+
+        assertEquals(1, sender.selectWebhook(ALICE, 1000));
+        // both have budget once webhook 0 resets; Bob goes to the idle one
+        assertEquals(0, sender.selectWebhook(BOB, 3000));
+    }
+
+    /**
+     * Tests that an author's posts stay on one webhook while any are in flight.
+     */
+    @Test
+    public void testAuthorAffinity() {
+        RateLimitTracker rateLimits = new RateLimitTracker();
+        WebhookSender sender = newSender(rateLimits, 2);
+
+        int first = sender.selectWebhook(ALICE, 1000);
+        rateLimits.update(first, 200, "0", "2", null, 1000);
+        // the other webhook has more budget, but Alice's first post has not completed
+        assertEquals(first, sender.selectWebhook(ALICE, 1000));
+
+        sender.complete(first, ALICE);
+        sender.complete(first, ALICE);
+        assertEquals(1 - first, sender.selectWebhook(ALICE, 1000));
+    }
+
+    /**
+     * Tests that posts still waiting out their window are sent when the sender stops.
+     */
+    @Test
+    public void testStopSendsPendingPosts() {
+        IncomingWebhookClient webhook = Mockito.mock(IncomingWebhookClient.class, Mockito.RETURNS_DEEP_STUBS);
+        WebhookSender sender = new WebhookSender(List.of(webhook), new SendPriorityGate(), new RateLimitTracker(), 500);
+
+        sender.send("hello", ALICE.username(), ALICE.avatarUrl());
+        sender.send("bye", ALICE.username(), ALICE.avatarUrl());
+        sender.send("hi", BOB.username(), BOB.avatarUrl());
+        assertTrue(sender.stop(1000));
+
+        InOrder order = Mockito.inOrder(webhook);
+        order.verify(webhook).sendMessage("hello\nbye");
+        order.verify(webhook).sendMessage("hi");
+    }
+
+    /**
+     * Creates a sender with a 500 ms window that is never started, using
+     * webhooks whose IDs are their indices.
+     */
+    private static WebhookSender newSender(RateLimitTracker rateLimits, int webhookCount) {
+        List<IncomingWebhookClient> webhooks = new ArrayList<>();
+        for(int i = 0; i < webhookCount; i++) {
+            IncomingWebhookClient webhook = Mockito.mock(IncomingWebhookClient.class);
+            Mockito.when(webhook.getIdLong()).thenReturn((long) i);
+            webhooks.add(webhook);
+        }
+        return new WebhookSender(webhooks, new SendPriorityGate(), rateLimits, 500);
+    }
+}
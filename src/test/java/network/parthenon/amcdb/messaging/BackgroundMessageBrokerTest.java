@@ -0,0 +1,71 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.BrokerTestSupport.RecordingHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static network.parthenon.amcdb.messaging.BrokerTestSupport.chat;
+import static network.parthenon.amcdb.messaging.BrokerTestSupport.console;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundMessageBrokerTest {
+
+    private BackgroundMessageBroker broker;
+
+    @AfterEach
+    public void tearDown() {
+        if(broker != null) {
+            broker.shutdown();
+        }
+    }
+
+    /**
+     * Tests that messages are dispatched in priority order, then publish order.
+     */
+    @Test
+    public void testPriorityOrder() throws InterruptedException {
+        broker = new BackgroundMessageBroker();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler(null, release);
+        broker.subscribe(handler);
+
+        broker.publish(console("first"));
+        assertTrue(handler.awaitStarted(), "Handler was never invoked");
+        broker.publish(console("1"), chat("chat"), console("2"));
+        release.countDown();
+
+        assertEquals(List.of("first", "chat", "1", "2"), handler.await(4));
+    }
+
+    /**
+     * Tests that the queue is bounded: when it is full, the oldest console lines
+     * are dropped and summarized, and chat messages are kept.
+     */
+    @Test
+    public void testOverflow() throws InterruptedException {
+        broker = new BackgroundMessageBroker(2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler(null, release);
+        broker.subscribe(handler);
+
+        broker.publish(console("first"));
+        assertTrue(handler.awaitStarted(), "Handler was never invoked");
+        broker.publish(console("1"), console("2"), console("3"), chat("chat"));
+        release.countDown();
+
+        assertEquals(List.of("first", "chat", "[AMCDB] 2 line(s) dropped because the message queue was full", "3"),
+                handler.await(4));
+        assertEquals(2, broker.getDroppedCount());
+    }
+
+    /**
+     * Tests that a capacity below 1 is rejected.
+     */
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BackgroundMessageBroker(0));
+    }
+}
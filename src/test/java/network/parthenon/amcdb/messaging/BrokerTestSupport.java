@@ -0,0 +1,110 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.message.BroadcastMessage;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages and handlers shared by the message broker tests.
+ */
+final class BrokerTestSupport {
+
+    static final String SOURCE_ID = "JUNIT_TEST_SOURCE_ID";
+
+    private BrokerTestSupport() {
+    }
+
+    static InternalMessage chat(String text) {
+        return new BroadcastMessage(SOURCE_ID, text);
+    }
+
+    static InternalMessage console(String text) {
+        return new ConsoleMessage(SOURCE_ID, text);
+    }
+
+    /**
+     * MessageHandler that records received message text and optionally blocks
+     * on a latch before handling each message.
+     */
+    static class RecordingHandler implements MessageHandler {
+
+        private final String ownSourceId;
+
+        private final CountDownLatch release;
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final Set<Class<? extends InternalMessage>> acceptedTypes;
+
+        private final List<String> received = new ArrayList<>();
+
+        RecordingHandler() {
+            this(null, null);
+        }
+
+        RecordingHandler(String ownSourceId, CountDownLatch release) {
+            this(ownSourceId, release, Set.of(InternalMessage.class));
+        }
+
+        RecordingHandler(String ownSourceId, CountDownLatch release, Set<Class<? extends InternalMessage>> acceptedTypes) {
+            this.ownSourceId = ownSourceId;
+            this.release = release;
+            this.acceptedTypes = acceptedTypes;
+        }
+
+        @Override
+        public void handleMessage(InternalMessage message) {
+            started.countDown();
+            if(release != null) {
+                try {
+                    release.await();
+                }
+                catch(InterruptedException e) {
+                    return;
+                }
+            }
+            synchronized(received) {
+                received.add(message.getUnformattedContents());
+                received.notifyAll();
+            }
+        }
+
+        @Override
+        public String getOwnSourceId() {
+            return ownSourceId;
+        }
+
+        @Override
+        public Set<Class<? extends InternalMessage>> getAcceptedMessageTypes() {
+            return acceptedTypes;
+        }
+
+        /**
+         * Waits up to 5 seconds for the handler to be invoked.
+         * @return True if the handler was invoked.
+         */
+        boolean awaitStarted() throws InterruptedException {
+            return started.await(5, TimeUnit.SECONDS);
+        }
+
+        /**
+         * Waits up to 5 seconds for the specified number of messages.
+         * @return The messages received.
+         */
+        List<String> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            synchronized(received) {
+                while(received.size() < count && System.currentTimeMillis() < deadline) {
+                    received.wait(100);
+                }
+                return List.copyOf(received);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.BrokerTestSupport.RecordingHandler;
+import network.parthenon.amcdb.messaging.message.BroadcastMessage;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static network.parthenon.amcdb.messaging.BrokerTestSupport.chat;
+import static network.parthenon.amcdb.messaging.BrokerTestSupport.console;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneMessageBrokerTest {
+
+    private LaneMessageBroker broker;
+
+    @AfterEach
+    public void tearDown() {
+        if(broker != null) {
+            broker.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a handler blocked in handleMessage() does not prevent
+     * other handlers from receiving messages.
+     */
+    @Test
+    public void testBlockedHandlerDoesNotStallOthers() throws InterruptedException {
+        broker = new LaneMessageBroker();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler blocked = new RecordingHandler(null, release);
+        RecordingHandler other = new RecordingHandler();
+        broker.subscribe(blocked);
+        broker.subscribe(other);
+
+        broker.publish(chat("1"), chat("2"), chat("3"));
+
+        assertEquals(List.of("1", "2", "3"), other.await(3), "Unblocked handler did not receive all messages");
+
+        release.countDown();
+        assertEquals(List.of("1", "2", "3"), blocked.await(3), "Blocked handler did not receive all messages after release");
+    }
+
+    /**
+     * Tests that each lane reports its depth while its handler is blocked.
+     */
+    @Test
+    public void testLaneDepth() throws InterruptedException {
+        broker = new LaneMessageBroker();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler blocked = new RecordingHandler(null, release);
+        broker.subscribe(blocked);
+
+        broker.publish(chat("1"), chat("2"), chat("3"));
+        // wait for the worker to pick up the first message and block
+        assertTrue(blocked.awaitStarted(), "Handler was never invoked");
+
+        HandlerLane lane = broker.getLanes().get(0);
+        assertSame(blocked, lane.getHandler());
+        assertEquals(2, lane.getDepth());
+
+        release.countDown();
+        assertEquals(3, blocked.await(3).size());
+    }
+
+    /**
+     * Tests that messages are not delivered to the handler for the source that published them.
+     */
+    @Test
+    public void testSkipsOwnSource() throws InterruptedException {
+        broker = new LaneMessageBroker();
+        RecordingHandler handler = new RecordingHandler("OWN_SOURCE", null);
+        broker.subscribe(handler);
+
+        broker.publish(new BroadcastMessage("OWN_SOURCE", "skipped"), chat("1"));
+        broker.publish(chat("2"));
+
+        assertEquals(List.of("1", "2"), handler.await(2));
+    }
+
+    /**
+     * Tests that handlers only receive the message types they accept.
+     */
+    @Test
+    public void testRoutesByMessageType() throws InterruptedException {
+        broker = new LaneMessageBroker();
+        RecordingHandler consoleHandler = new RecordingHandler(null, null, Set.of(ConsoleMessage.class));
+        RecordingHandler allHandler = new RecordingHandler();
+        broker.subscribe(consoleHandler);
+        broker.subscribe(allHandler);
+
+        broker.publish(chat("broadcast"), console("console"));
+
+        assertEquals(List.of("broadcast", "console"), allHandler.await(2));
+        assertEquals(List.of("console"), consoleHandler.await(1));
+    }
+
+    /**
+     * Tests that a BatchMessageHandler receives everything queued behind a
+     * blocked call in a single batch, in publish order.
+     */
+    @Test
+    public void testBatchHandlerDrainsQueue() throws InterruptedException {
+        broker = new LaneMessageBroker();
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<String>> batches = new ArrayList<>();
+        BatchMessageHandler handler = new BatchMessageHandler() {
+            @Override
+            public void handleMessages(List<InternalMessage> messages) {
+                try {
+                    release.await();
+                }
+                catch(InterruptedException e) {
+                    return;
+                }
+                synchronized(batches) {
+                    batches.add(messages.stream().map(InternalMessage::getUnformattedContents).toList());
+                    batches.notifyAll();
+                }
+            }
+
+            @Override
+            public String getOwnSourceId() {
+                return null;
+            }
+        };
+        broker.subscribe(handler);
+
+        broker.publish(chat("1"));
+        // wait for the worker to take the first message and block
+        HandlerLane lane = broker.getLanes().get(0);
+        long deadline = System.currentTimeMillis() + 5000;
+        while(lane.getDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        broker.publish(chat("2"), chat("3"), chat("4"));
+        release.countDown();
+
+        synchronized(batches) {
+            while(batches.size() < 2 && System.currentTimeMillis() < deadline) {
+                batches.wait(100);
+            }
+            assertEquals(List.of(List.of("1"), List.of("2", "3", "4")), batches);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.component.EntityReference;
+import network.parthenon.amcdb.messaging.message.ChatMessage;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import network.parthenon.amcdb.messaging.message.ServerStatusMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneQueueTest {
+
+    /**
+     * Tests that the oldest console lines are dropped when the queue is full,
+     * and that a summary is delivered in their place.
+     */
+    @Test
+    public void testDropOldestConsole() throws InterruptedException {
+        LaneQueue queue = new LaneQueue(2);
+
+        offer(queue, console("1"), console("2"), console("3"), console("4"));
+
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getDroppedCount());
+        InternalMessage summary = queue.take().message;
+        assertTrue(summary instanceof ConsoleMessage);
+        assertTrue(summary.getUnformattedContents().contains("2 line(s) dropped"));
+        assertEquals("3", queue.take().message.getUnformattedContents());
+        assertEquals("4", queue.take().message.getUnformattedContents());
+    }
+
+    /**
+     * Tests that chat messages are never dropped, even over capacity, that console
+     * lines are dropped to make room for them, and that the summary of dropped lines
+     * does not overtake queued chat.
+     */
+    @Test
+    public void testChatNeverDropped() throws InterruptedException {
+        LaneQueue queue = new LaneQueue(2);
+
+        offer(queue, chat("a"), chat("b"), console("1"), chat("c"));
+
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals("a", queue.take().message.getUnformattedContents());
+        assertEquals("b", queue.take().message.getUnformattedContents());
+        assertEquals("c", queue.take().message.getUnformattedContents());
+        assertTrue(queue.take().message.getUnformattedContents().contains("1 line(s) dropped"));
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * Tests that a newer status message replaces a queued one when the queue is full.
+     */
+    @Test
+    public void testKeepLatestStatus() throws InterruptedException {
+        LaneQueue queue = new LaneQueue(2);
+
+        ServerStatusMessage latest = status(30);
+        offer(queue, status(10), chat("a"), status(20), latest);
+
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.getDroppedCount());
+        assertEquals(2, queue.getReplacedCount());
+        // chat is higher priority than status
+        assertEquals("a", queue.take().message.getUnformattedContents());
+        assertSame(latest, queue.take().message);
+    }
+
+    /**
+     * Tests that chat messages are taken ahead of queued console lines,
+     * and that messages of the same priority stay in order.
+     */
+    @Test
+    public void testPriorityOrder() throws InterruptedException {
+        LaneQueue queue = new LaneQueue(100);
+
+        offer(queue, console("1"), console("2"), chat("a"), console("3"), chat("b"));
+
+        List<String> taken = queue.takeBatch(10).stream()
+                .map(queued -> queued.message.getUnformattedContents())
+                .toList();
+        assertEquals(List.of("a", "b", "1", "2", "3"), taken);
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * Tests that a newer status message replaces a queued one even when the
+     * queue is not full, keeping the queued message's position.
+     */
+    @Test
+    public void testCoalesceStatus() throws InterruptedException {
+        LaneQueue queue = new LaneQueue(100);
+
+        ServerStatusMessage latest = status(30);
+        offer(queue, status(10), console("1"), status(20), console("2"), latest);
+
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.getReplacedCount());
+        assertSame(latest, queue.take().message);
+        assertEquals("1", queue.take().message.getUnformattedContents());
+        assertEquals("2", queue.take().message.getUnformattedContents());
+
+        // once handled, the next status is queued normally
+        offer(queue, console("3"), status(40));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getReplacedCount());
+    }
+
+    /**
+     * Tests that console commands sent by a user are never dropped.
+     */
+    @Test
+    public void testConsoleCommandNeverDropped() throws InterruptedException {
+        LaneQueue queue = new LaneQueue(1);
+
+        offer(queue, chat("a"), new ConsoleMessage("JUNIT_TEST_SOURCE_ID", new EntityReference("user"), "say hi"));
+
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.getDroppedCount());
+        assertEquals("a", queue.take().message.getUnformattedContents());
+        assertEquals("say hi", queue.take().message.getUnformattedContents());
+    }
+
+    private static void offer(LaneQueue queue, InternalMessage... messages) {
+        for(InternalMessage message : messages) {
+            queue.offer(new InternalMessage[] { message }, System.nanoTime());
+        }
+    }
+
+    private static ConsoleMessage console(String text) {
+        return new ConsoleMessage("JUNIT_TEST_SOURCE_ID", text);
+    }
+
+    private static ChatMessage chat(String text) {
+        return new ChatMessage("JUNIT_TEST_SOURCE_ID", new EntityReference("author"), text);
+    }
+
+    private static ServerStatusMessage status(int playersOnline) {
+        return new ServerStatusMessage("JUNIT_TEST_SOURCE_ID", 50, 1024, 512, playersOnline, 100, List.of());
+    }
+}
@@ -0,0 +1,125 @@
+package network.parthenon.amcdb.messaging;
+
+import network.parthenon.amcdb.messaging.BrokerTestSupport.RecordingHandler;
+import network.parthenon.amcdb.messaging.message.BroadcastMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static network.parthenon.amcdb.messaging.BrokerTestSupport.chat;
+import static network.parthenon.amcdb.messaging.BrokerTestSupport.console;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferMessageBrokerTest {
+
+    private RingBufferMessageBroker broker;
+
+    @AfterEach
+    public void tearDown() {
+        if(broker != null) {
+            broker.shutdown();
+        }
+    }
+
+    /**
+     * Tests that messages from many concurrent producers are all delivered,
+     * including when the ring buffer wraps around many times, and that messages
+     * published together in one call are delivered with no gaps.
+     */
+    @Test
+    public void testConcurrentPublishNoGaps() throws InterruptedException {
+        broker = new RingBufferMessageBroker(8);
+        RecordingHandler handler = new RecordingHandler();
+        broker.subscribe(handler);
+
+        int producers = 4;
+        int pairsPerProducer = 500;
+        List<Thread> threads = new ArrayList<>();
+        for(int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                for(int i = 0; i < pairsPerProducer; i++) {
+                    broker.publish(chat("%d-%d-a".formatted(producer, i)), chat("%d-%d-b".formatted(producer, i)));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        List<String> received = handler.await(producers * pairsPerProducer * 2);
+        assertEquals(producers * pairsPerProducer * 2, received.size());
+        for(int i = 0; i < received.size(); i += 2) {
+            String first = received.get(i);
+            assertTrue(first.endsWith("-a"), "Expected first message of a pair at index %d, found %s".formatted(i, first));
+            assertEquals(first.substring(0, first.length() - 1) + "b", received.get(i + 1));
+        }
+    }
+
+    /**
+     * Tests that messages are not delivered to the handler for the source that published them.
+     */
+    @Test
+    public void testSkipsOwnSource() throws InterruptedException {
+        broker = new RingBufferMessageBroker(4);
+        RecordingHandler ownHandler = new RecordingHandler("OWN_SOURCE", null);
+        RecordingHandler otherHandler = new RecordingHandler();
+        broker.subscribe(ownHandler);
+        broker.subscribe(otherHandler);
+
+        broker.publish(new BroadcastMessage("OWN_SOURCE", "own"), chat("other"));
+
+        assertEquals(List.of("own", "other"), otherHandler.await(2));
+        assertEquals(List.of("other"), ownHandler.await(1));
+    }
+
+    /**
+     * Tests that publishing does not wait while the ring buffer is full: messages go
+     * to the overflow queue, where the oldest console lines are dropped and summarized
+     * and chat is kept.
+     */
+    @Test
+    public void testFullRingDoesNotBlock() throws InterruptedException {
+        broker = new RingBufferMessageBroker(2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler(null, release);
+        broker.subscribe(handler);
+
+        broker.publish(console("first"));
+        assertTrue(handler.awaitStarted(), "Handler was never invoked");
+        broker.publish(console("1"), console("2"));
+        Thread producer = new Thread(() -> broker.publish(console("3"), console("4"), console("5"), chat("chat")));
+        producer.start();
+        producer.join(5000);
+        assertFalse(producer.isAlive(), "Publishing blocked while the ring buffer was full");
+        release.countDown();
+
+        assertEquals(List.of("first", "1", "2", "chat", "[AMCDB] 2 line(s) dropped because the message queue was full", "5"),
+                handler.await(6));
+        assertEquals(2, broker.getDroppedCount());
+    }
+
+    /**
+     * Tests that capacities are rounded up to a power of two.
+     */
+    @Test
+    public void testCapacityFor() {
+        assertEquals(1, RingBufferMessageBroker.capacityFor(1));
+        assertEquals(2, RingBufferMessageBroker.capacityFor(2));
+        assertEquals(16384, RingBufferMessageBroker.capacityFor(10000));
+        assertEquals(1 << 30, RingBufferMessageBroker.capacityFor(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> RingBufferMessageBroker.capacityFor(0));
+    }
+
+    /**
+     * Tests that the capacity must be a power of two.
+     */
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferMessageBroker(12));
+    }
+}
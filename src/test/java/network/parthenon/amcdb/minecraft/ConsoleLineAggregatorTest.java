@@ -0,0 +1,102 @@
+package network.parthenon.amcdb.minecraft;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleLineAggregatorTest {
+
+    private List<String> events;
+
+    private ConsoleLineAggregator aggregator;
+
+    @BeforeEach
+    public void setUp() {
+        events = new ArrayList<>();
+        aggregator = new ConsoleLineAggregator(events::add);
+    }
+
+    /**
+     * Tests that a stack trace is grouped with the log line that precedes it.
+     */
+    @Test
+    public void testStackTrace() {
+        List<String> trace = List.of(
+                "[12:36:00] [Server thread/ERROR]: Encountered an unexpected exception",
+                "java.lang.IllegalStateException: Duplicate entity UUID",
+                "\tat net.minecraft.server.level.ServerLevel.addEntity(ServerLevel.java:1234)",
+                "\tat net.minecraft.server.MinecraftServer.tickServer(MinecraftServer.java:890)",
+                "Caused by: java.lang.RuntimeException: boom",
+                "\t... 12 more");
+        trace.forEach(line -> aggregator.accept(line, 0));
+        aggregator.accept("[12:36:01] [Server thread/INFO]: Steve joined the game", 0);
+
+        assertEquals(List.of(String.join("\n", trace)), events);
+    }
+
+    /**
+     * Tests that continuation lines of a rejected event are discarded with it.
+     */
+    @Test
+    public void testFilteredEvent() {
+        aggregator = new ConsoleLineAggregator(line -> !line.contains("DEBUG"), events::add);
+        aggregator.accept("[12:36:00] [Server thread/DEBUG]: Noisy exception", 0);
+        aggregator.accept("java.lang.IllegalStateException: boom", 0);
+        aggregator.accept("\tat Foo.bar(Foo.java:1)", 0);
+        aggregator.accept("[12:36:01] [Server thread/INFO]: Done", 0);
+        aggregator.flush();
+
+        assertEquals(List.of("[12:36:01] [Server thread/INFO]: Done"), events);
+    }
+
+    /**
+     * Tests that ordinary log lines are not grouped.
+     */
+    @Test
+    public void testIndependentLines() {
+        aggregator.accept("[12:34:56] [Server thread/INFO]: Steve joined the game", 0);
+        aggregator.accept("[12:34:57] [Server thread/INFO]: <Steve> hello", 0);
+        aggregator.accept("Plain line without a header", 0);
+        aggregator.flush();
+
+        assertEquals(List.of(
+                "[12:34:56] [Server thread/INFO]: Steve joined the game",
+                "[12:34:57] [Server thread/INFO]: <Steve> hello",
+                "Plain line without a header"), events);
+    }
+
+    /**
+     * Tests that a pending event is emitted once it has waited long enough.
+     */
+    @Test
+    public void testMaxWait() {
+        aggregator.accept("[12:34:56] [Server thread/INFO]: line", 1000);
+
+        assertEquals(ConsoleLineAggregator.MAX_WAIT_NANOS - 1, aggregator.flushIfExpired(1001));
+        assertTrue(events.isEmpty());
+
+        assertEquals(-1, aggregator.flushIfExpired(1000 + ConsoleLineAggregator.MAX_WAIT_NANOS));
+        assertEquals(List.of("[12:34:56] [Server thread/INFO]: line"), events);
+        assertEquals(-1, aggregator.flushIfExpired(Long.MAX_VALUE / 2));
+    }
+
+    /**
+     * Tests that an event is split once it reaches the maximum number of lines.
+     */
+    @Test
+    public void testMaxLines() {
+        aggregator.accept("[12:36:00] [Server thread/ERROR]: Exception", 0);
+        for(int i = 0; i < ConsoleLineAggregator.MAX_LINES; i++) {
+            aggregator.accept("\tat Frame.method" + i + "(Frame.java)", 0);
+        }
+        aggregator.flush();
+
+        assertEquals(2, events.size());
+        assertEquals(ConsoleLineAggregator.MAX_LINES, events.get(0).split("\n").length);
+        assertEquals("\tat Frame.method" + (ConsoleLineAggregator.MAX_LINES - 1) + "(Frame.java)", events.get(1));
+    }
+}
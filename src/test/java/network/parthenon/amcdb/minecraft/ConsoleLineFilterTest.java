@@ -0,0 +1,68 @@
+package network.parthenon.amcdb.minecraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleLineFilterTest {
+
+    private final LogLineParser parser = new LogLineParser();
+
+    /**
+     * Tests the minimum level, including for lines without a header.
+     */
+    @Test
+    public void testMinLevel() {
+        ConsoleLineFilter filter = new ConsoleLineFilter(ConsoleLevel.WARN, Map.of(), null, List.of());
+
+        assertFalse(accepts(filter, "[12:34:56] [Server thread/INFO]: Steve joined the game"));
+        assertTrue(accepts(filter, "[12:34:56] [Server thread/WARN]: Can't keep up!"));
+        assertTrue(accepts(filter, "[12:34:56] [Server thread/ERROR]: Exception"));
+        assertFalse(accepts(filter, "no header"));
+    }
+
+    /**
+     * Tests that per-name levels override the minimum level, with the first match applying.
+     */
+    @Test
+    public void testNameLevels() {
+        Map<String, ConsoleLevel> levels = new LinkedHashMap<>();
+        levels.put("ChattyMod", ConsoleLevel.ERROR);
+        levels.put("Server thread", ConsoleLevel.DEBUG);
+        ConsoleLineFilter filter = new ConsoleLineFilter(ConsoleLevel.INFO, levels, null, List.of());
+
+        assertFalse(accepts(filter, "[12:34:56] [Server thread/WARN] (ChattyMod) Something odd"));
+        assertTrue(accepts(filter, "[12:34:56] [Server thread/DEBUG] (Minecraft) Details"));
+        assertFalse(accepts(filter, "[12:34:56] [Worker-Main-1/DEBUG] (Minecraft) Details"));
+        assertFalse(filter.accepts(ConsoleLevel.WARN, "com.example.ChattyMod", "Worker-Main-1"));
+        assertTrue(filter.accepts(ConsoleLevel.WARN, "com.example.NotChattyMod", "Worker-Main-1"));
+    }
+
+    /**
+     * Tests include and exclude lists against logger and thread names.
+     */
+    @Test
+    public void testIncludeExclude() {
+        ConsoleLineFilter include = new ConsoleLineFilter(ConsoleLevel.INFO, Map.of(), List.of("Minecraft"), List.of());
+        assertTrue(accepts(include, "[12:34:56] [Server thread/INFO] (Minecraft) Steve joined the game"));
+        assertFalse(accepts(include, "[12:34:56] [Server thread/INFO] (OtherMod) Hello"));
+        assertFalse(accepts(include, "no header"));
+        assertTrue(include.accepts(ConsoleLevel.INFO, "net.minecraft.Minecraft", "Server thread"));
+
+        ConsoleLineFilter exclude = new ConsoleLineFilter(ConsoleLevel.INFO, Map.of(), null, List.of("Worker-Main-1", "OtherMod"));
+        assertTrue(accepts(exclude, "[12:34:56] [Server thread/INFO] (Minecraft) Steve joined the game"));
+        assertFalse(accepts(exclude, "[12:34:56] [Server thread/INFO] (OtherMod) Hello"));
+        assertFalse(accepts(exclude, "[12:34:56] [Worker-Main-1/INFO]: Preparing spawn area"));
+        assertTrue(accepts(exclude, "no header"));
+        assertFalse(exclude.accepts(ConsoleLevel.INFO, "com.example.OtherMod", null));
+    }
+
+    private boolean accepts(ConsoleLineFilter filter, String line) {
+        parser.parse(line);
+        return filter.accepts(parser);
+    }
+}
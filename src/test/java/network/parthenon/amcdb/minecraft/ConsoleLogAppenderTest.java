@@ -0,0 +1,41 @@
+package network.parthenon.amcdb.minecraft;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleLogAppenderTest {
+
+    private final LogLineParser parser = new LogLineParser();
+
+    /**
+     * Tests that formatted lines include the logger segment and parse back into their parts.
+     */
+    @Test
+    public void testRoundTrip() {
+        String line = ConsoleLogAppender.formatLine(0, "Server thread", "WARN",
+                "net.minecraft.server.MinecraftServer", "Can't keep up!").toString();
+
+        assertTrue(line.endsWith("] [Server thread/WARN] (MinecraftServer) Can't keep up!"), line);
+        assertTrue(parser.parse(line));
+        assertEquals(ConsoleLevel.WARN, parser.getLevel());
+        assertEquals("Server thread", parser.getThreadName());
+        assertEquals("MinecraftServer", parser.getLoggerName());
+        assertEquals("Can't keep up!", line.substring(parser.getMessageStart()));
+    }
+
+    /**
+     * Tests that a line from a logger without a name uses the vanilla pattern.
+     */
+    @Test
+    public void testRoundTripWithoutLogger() {
+        String line = ConsoleLogAppender.formatLine(0, "main", "INFO", "", "Done").toString();
+
+        assertTrue(line.endsWith("] [main/INFO]: Done"), line);
+        assertTrue(parser.parse(line));
+        assertEquals(ConsoleLevel.INFO, parser.getLevel());
+        assertEquals("main", parser.getThreadName());
+        assertNull(parser.getLoggerName());
+        assertEquals("Done", line.substring(parser.getMessageStart()));
+    }
+}
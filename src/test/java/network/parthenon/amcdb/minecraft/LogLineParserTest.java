@@ -0,0 +1,61 @@
+package network.parthenon.amcdb.minecraft;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineParserTest {
+
+    private final LogLineParser parser = new LogLineParser();
+
+    /**
+     * Tests parsing the vanilla log pattern.
+     */
+    @Test
+    public void testVanillaLine() {
+        String line = "[12:34:56] [Server thread/INFO]: Steve joined the game";
+        assertTrue(parser.parse(line));
+        assertEquals(ConsoleLevel.INFO, parser.getLevel());
+        assertEquals("Server thread", parser.getThreadName());
+        assertNull(parser.getLoggerName());
+        assertEquals("Steve joined the game", line.substring(parser.getMessageStart()));
+    }
+
+    /**
+     * Tests parsing Fabric's log pattern, which includes the logger name.
+     */
+    @Test
+    public void testFabricLine() {
+        String line = "[12:35:01] [Server thread/WARN] (Minecraft) Can't keep up!";
+        assertTrue(parser.parse(line));
+        assertEquals(ConsoleLevel.WARN, parser.getLevel());
+        assertEquals("Server thread", parser.getThreadName());
+        assertEquals("Minecraft", parser.getLoggerName());
+        assertEquals("Can't keep up!", line.substring(parser.getMessageStart()));
+    }
+
+    /**
+     * Tests that the level follows the last slash when the thread name contains one.
+     */
+    @Test
+    public void testThreadNameWithSlash() {
+        assertTrue(parser.parse("[12:35:10] [Worker/Main-3/ERROR]: Failed"));
+        assertEquals(ConsoleLevel.ERROR, parser.getLevel());
+        assertEquals("Worker/Main-3", parser.getThreadName());
+    }
+
+    /**
+     * Tests that lines without a recognized header are not parsed.
+     */
+    @Test
+    public void testUnrecognizedLines() {
+        assertFalse(parser.parse(""));
+        assertFalse(parser.parse("\tat Foo.bar(Foo.java:1)"));
+        assertFalse(parser.parse("[12:34:56] Steve joined the game"));
+        assertFalse(parser.parse("[12:34:56] [Server thread]: no level"));
+        assertFalse(parser.parse("[12:34:56] [Server thread/NOTICE]: unknown level"));
+        assertFalse(parser.isParsed());
+        assertNull(parser.getLevel());
+        assertNull(parser.getThreadName());
+    }
+}
@@ -0,0 +1,413 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.messaging.MessageBroker;
+import network.parthenon.amcdb.messaging.MessageHandler;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTailerTest {
+
+    private static final ConsoleLineFilter ACCEPT_INFO = new ConsoleLineFilter(ConsoleLevel.INFO, Map.of(), null, List.of());
+
+    private Path directory;
+
+    private Path logFile;
+
+    private RecordingBroker broker;
+
+    private LogTailerService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("amcdb-logtailer-test");
+        logFile = directory.resolve("latest.log");
+        broker = new RecordingBroker();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if(service != null) {
+            service.stop();
+        }
+        try(var paths = Files.walk(directory)) {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Tests that existing and appended lines are published, and that an incomplete
+     * line is held until it is completed.
+     */
+    @Test
+    public void testAppendedLines() throws Exception {
+        append("line 1\nline 2\r\n");
+        watch(null, 0);
+
+        assertTrue(broker.await(2));
+        append("partial");
+        append(" line\n");
+
+        assertTrue(broker.await(3));
+        assertEquals(List.of("line 1", "line 2", "partial line"), broker.getLines());
+    }
+
+    /**
+     * Tests that multibyte characters are decoded correctly.
+     */
+    @Test
+    public void testMultibyteCharacters() throws Exception {
+        watch(null, 0);
+        append("h\u00e9llo \u4e16\u754c \ud83d\ude00\n");
+
+        assertTrue(broker.await(1));
+        assertEquals(List.of("h\u00e9llo \u4e16\u754c \ud83d\ude00"), broker.getLines());
+    }
+
+    /**
+     * Tests that the new file is followed from the beginning when the log is rotated.
+     */
+    @Test
+    public void testRotation() throws Exception {
+        append("old 1\n");
+        watch(null, 0);
+        assertTrue(broker.await(1));
+
+        Files.move(logFile, directory.resolve("rotated.log"));
+        append("new 1\nnew 2\n");
+
+        assertTrue(broker.await(3));
+        assertEquals(List.of("old 1", "new 1", "new 2"), broker.getLines());
+    }
+
+    /**
+     * Tests that the file is followed from the beginning when it is truncated.
+     */
+    @Test
+    public void testTruncation() throws Exception {
+        append("a fairly long first line\n");
+        watch(null, 0);
+        assertTrue(broker.await(1));
+
+        Files.writeString(logFile, "short\n", StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertTrue(broker.await(2));
+        assertEquals(List.of("a fairly long first line", "short"), broker.getLines());
+    }
+
+    /**
+     * Tests that a stack trace is published as a single message.
+     */
+    @Test
+    public void testStackTrace() throws Exception {
+        watch(null, 0);
+        append("[12:36:00] [Server thread/ERROR]: Exception ticking world\n"
+                + "java.lang.IllegalStateException: boom\n"
+                + "\tat Foo.bar(Foo.java:1)\n"
+                + "[12:36:01] [Server thread/INFO]: Done\n");
+
+        assertTrue(broker.await(2));
+        assertEquals(List.of(
+                "[12:36:00] [Server thread/ERROR]: Exception ticking world\n"
+                        + "java.lang.IllegalStateException: boom\n"
+                        + "\tat Foo.bar(Foo.java:1)",
+                "[12:36:01] [Server thread/INFO]: Done"), broker.getLines());
+    }
+
+    /**
+     * Tests that several files are followed by one service, each with its own stream.
+     */
+    @Test
+    public void testMultipleFiles() throws Exception {
+        Path debugLog = directory.resolve("debug.log");
+        Files.writeString(debugLog, "debug 1\n", StandardCharsets.UTF_8);
+        append("main 1\n");
+
+        service = new LogTailerService();
+        service.watchFile(logFile.toFile(), null, broker, ACCEPT_INFO, null, 0);
+        service.watchFile(debugLog.toFile(), "debug", broker, ACCEPT_INFO, null, 0);
+        service.start();
+        assertTrue(broker.await(2));
+
+        Files.writeString(debugLog, "debug 2\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertTrue(broker.await(3));
+        assertEquals(List.of("debug 1", "debug 2"), broker.getLines("debug"));
+        assertEquals(List.of("main 1"), broker.getLines(null));
+    }
+
+    /**
+     * Tests that no thread is started until a file is added.
+     */
+    @Test
+    public void testFileAddedAfterStart() throws Exception {
+        service = new LogTailerService();
+        service.start();
+        // no thread to wait for
+        assertTrue(service.awaitTermination(0));
+
+        append("line 1\n");
+        service.watchFile(logFile.toFile(), null, broker, ACCEPT_INFO, null, 0);
+
+        assertTrue(broker.await(1));
+        assertEquals(List.of("line 1"), broker.getLines());
+    }
+
+    /**
+     * Tests that a restarted tailer continues from the checkpoint.
+     */
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        Path checkpoint = directory.resolve("tailer.checkpoint");
+        append("line 1\nline 2\n");
+        runUntilCheckpointed(checkpoint, 2);
+
+        append("line 3\n");
+        broker = new RecordingBroker();
+        watch(checkpoint, 1024);
+
+        assertTrue(broker.await(1));
+        // anything read again from before the checkpoint would arrive before this
+        append("line 4\n");
+        assertTrue(broker.await(2));
+        assertEquals(List.of("line 3", "line 4"), broker.getLines());
+    }
+
+    /**
+     * Tests that the checkpoint is exact when an incomplete line contains malformed
+     * UTF-8, whose replacement characters do not correspond to the bytes read.
+     */
+    @Test
+    public void testResumeAfterMalformedInput() throws Exception {
+        Path checkpoint = directory.resolve("tailer.checkpoint");
+        Files.write(logFile, new byte[] { 'o', 'k', '\n', 'b', 'a', 'd', ' ', (byte) 0xff, (byte) 0xfe, (byte) 0xe4 });
+        runUntilCheckpointed(checkpoint, 1);
+
+        append(" line\n");
+        broker = new RecordingBroker();
+        watch(checkpoint, 1024);
+
+        assertTrue(broker.await(1));
+        assertEquals(List.of("bad \ufffd\ufffd\ufffd line"), broker.getLines());
+    }
+
+    /**
+     * Tests that the rest of an archived log file is read before the new file
+     * when the log was rotated while the tailer was stopped.
+     */
+    @Test
+    public void testResumeAfterRotation() throws Exception {
+        Path checkpoint = directory.resolve("tailer.checkpoint");
+        append("old 1\n");
+        runUntilCheckpointed(checkpoint, 1);
+
+        append("old 2\n");
+        try(OutputStream out = new GZIPOutputStream(Files.newOutputStream(directory.resolve("2026-01-01-1.log.gz")))) {
+            out.write(Files.readAllBytes(logFile));
+        }
+        Files.delete(logFile);
+        append("new 1\n");
+
+        broker = new RecordingBroker();
+        watch(checkpoint, 1024);
+
+        assertTrue(broker.await(2));
+        assertEquals(List.of("old 2", "new 1"), broker.getLines());
+    }
+
+    /**
+     * Tests that other live log files in the directory are not mistaken for the
+     * archive of the followed file, even if they start with the same bytes.
+     */
+    @Test
+    public void testResumeIgnoresOtherLogs() throws Exception {
+        Path checkpoint = directory.resolve("tailer.checkpoint");
+        append("old 1\n");
+        runUntilCheckpointed(checkpoint, 1);
+
+        append("old 2\n");
+        Files.copy(logFile, directory.resolve("debug.log"));
+        Files.delete(logFile);
+        append("new 1\n");
+
+        broker = new RecordingBroker();
+        watch(checkpoint, 1024);
+
+        assertTrue(broker.await(1));
+        append("new 2\n");
+        assertTrue(broker.await(2));
+        assertEquals(List.of("new 1", "new 2"), broker.getLines());
+    }
+
+    /**
+     * Tests that nothing is caught up on when the checkpoint was taken while the
+     * file was empty, since any file would match its (empty) head.
+     */
+    @Test
+    public void testResumeFromEmptyFile() throws Exception {
+        Path checkpoint = directory.resolve("tailer.checkpoint");
+        // as saved for an empty file that has since been rotated
+        new LogCheckpoint("previous file", 0, 0, LogCheckpoint.checksum(new byte[0], 0), 0, System.currentTimeMillis())
+                .save(checkpoint);
+
+        try(OutputStream out = new GZIPOutputStream(Files.newOutputStream(directory.resolve("2026-01-01-1.log.gz")))) {
+            out.write("unrelated\n".getBytes(StandardCharsets.UTF_8));
+        }
+        append("new 1\n");
+
+        broker = new RecordingBroker();
+        watch(checkpoint, 1024);
+
+        assertTrue(broker.await(1));
+        append("new 2\n");
+        assertTrue(broker.await(2));
+        assertEquals(List.of("new 1", "new 2"), broker.getLines());
+    }
+
+    /**
+     * Tests that only rotated archives of the followed file are considered.
+     */
+    @Test
+    public void testArchivePattern() {
+        Pattern latest = LogTailer.archivePattern("latest.log");
+        assertTrue(latest.matcher("2026-01-01-1.log.gz").matches());
+        assertTrue(latest.matcher("2026-01-01-12.log").matches());
+        assertFalse(latest.matcher("debug.log").matches());
+        assertFalse(latest.matcher("debug-1.log.gz").matches());
+        assertFalse(latest.matcher("latest.log").matches());
+
+        Pattern debug = LogTailer.archivePattern("debug.log");
+        assertTrue(debug.matcher("debug-1.log.gz").matches());
+        assertTrue(debug.matcher("debug-2026-01-01-1.log.gz").matches());
+        assertFalse(debug.matcher("debug.log").matches());
+        assertFalse(debug.matcher("2026-01-01-1.log.gz").matches());
+    }
+
+    /**
+     * Tests that no more than the maximum backlog is read when resuming.
+     */
+    @Test
+    public void testMaxReplay() throws Exception {
+        Path checkpoint = directory.resolve("tailer.checkpoint");
+        append("first\n");
+        runUntilCheckpointed(checkpoint, 1);
+
+        StringBuilder backlog = new StringBuilder();
+        for(int i = 0; i < 100; i++) {
+            backlog.append("backlog line %02d\n".formatted(i));
+        }
+        append(backlog.toString());
+
+        broker = new RecordingBroker();
+        // each line is 16 bytes; 40 bytes covers the last two lines and part of the one before
+        watch(checkpoint, 40);
+
+        assertTrue(broker.await(2));
+        append("end\n");
+        assertTrue(broker.await(3));
+        assertEquals(List.of("backlog line 98", "backlog line 99", "end"), broker.getLines());
+    }
+
+    /**
+     * Runs a tailer with the checkpoint until it has published the expected number
+     * of lines and saved its position, then stops it.
+     */
+    private void runUntilCheckpointed(Path checkpoint, int lines) throws Exception {
+        watch(checkpoint, 1024);
+        assertTrue(broker.await(lines));
+        // the checkpoint is saved when the tailer thread exits
+        service.stop();
+        assertTrue(service.awaitTermination(5000));
+        assertTrue(Files.exists(checkpoint));
+        service = null;
+    }
+
+    /**
+     * Starts following the log file on a new service.
+     */
+    private void watch(Path checkpoint, long maxReplay) {
+        service = new LogTailerService();
+        service.watchFile(logFile.toFile(), null, broker, ACCEPT_INFO, checkpoint, maxReplay);
+        service.start();
+    }
+
+    private void append(String text) throws IOException {
+        Files.writeString(logFile, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * MessageBroker that records the text of published messages.
+     */
+    private static class RecordingBroker implements MessageBroker {
+
+        private final List<String> lines = new ArrayList<>();
+
+        private final List<String> streams = new ArrayList<>();
+
+        @Override
+        public void subscribe(MessageHandler handler) {
+        }
+
+        @Override
+        public void publish(InternalMessage... messages) {
+            synchronized(lines) {
+                for(InternalMessage message : messages) {
+                    lines.add(message.getUnformattedContents());
+                    streams.add(((ConsoleMessage) message).getStream());
+                }
+                lines.notifyAll();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        boolean await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            synchronized(lines) {
+                while(lines.size() < count && System.currentTimeMillis() < deadline) {
+                    lines.wait(100);
+                }
+                return lines.size() >= count;
+            }
+        }
+
+        List<String> getLines() {
+            synchronized(lines) {
+                return new ArrayList<>(lines);
+            }
+        }
+
+        List<String> getLines(String stream) {
+            synchronized(lines) {
+                List<String> streamLines = new ArrayList<>();
+                for(int i = 0; i < lines.size(); i++) {
+                    if(Objects.equals(streams.get(i), stream)) {
+                        streamLines.add(lines.get(i));
+                    }
+                }
+                return streamLines;
+            }
+        }
+    }
+}
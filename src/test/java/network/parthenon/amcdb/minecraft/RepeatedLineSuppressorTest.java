@@ -0,0 +1,132 @@
+package network.parthenon.amcdb.minecraft;
+
+import network.parthenon.amcdb.messaging.MessageBroker;
+import network.parthenon.amcdb.messaging.MessageHandler;
+import network.parthenon.amcdb.messaging.component.EntityReference;
+import network.parthenon.amcdb.messaging.message.ConsoleMessage;
+import network.parthenon.amcdb.messaging.message.InternalMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepeatedLineSuppressorTest {
+
+    private static final long WINDOW = 60000;
+
+    private List<String> published;
+
+    private RepeatedLineSuppressor suppressor;
+
+    @BeforeEach
+    public void setUp() {
+        published = new ArrayList<>();
+        MessageBroker broker = new MessageBroker() {
+            @Override
+            public void subscribe(MessageHandler handler) {
+            }
+
+            @Override
+            public void publish(InternalMessage... messages) {
+                for(InternalMessage message : messages) {
+                    published.add(message.getUnformattedContents());
+                }
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        suppressor = new RepeatedLineSuppressor(broker, WINDOW);
+    }
+
+    /**
+     * Tests that repeats within the window are replaced by a summary when the window ends.
+     */
+    @Test
+    public void testRepeatsCollapsed() {
+        publish("[12:00:00] [Server thread/WARN]: Can't keep up!", 0);
+        publish("[12:00:01] [Server thread/INFO]: Steve joined the game", 1000);
+        publish("[12:00:05] [Server thread/WARN]: Can't keep up!", 5000);
+        publish("[12:00:30] [Server thread/WARN]: Can't keep up!", 30000);
+
+        suppressor.sweep(WINDOW - 1);
+        assertEquals(List.of(
+                "[12:00:00] [Server thread/WARN]: Can't keep up!",
+                "[12:00:01] [Server thread/INFO]: Steve joined the game"), published);
+
+        suppressor.sweep(WINDOW);
+        assertEquals("[12:00:30] [Server thread/WARN]: Can't keep up! (\u00d72 in 30s)", published.get(2));
+        assertEquals(3, published.size());
+
+        // a new window starts with the next occurrence
+        publish("[12:01:10] [Server thread/WARN]: Can't keep up!", 70000);
+        assertEquals("[12:01:10] [Server thread/WARN]: Can't keep up!", published.get(3));
+    }
+
+    /**
+     * Tests that an occurrence after the window ends publishes the previous summary first.
+     */
+    @Test
+    public void testSummaryBeforeNextWindow() {
+        publish("[12:00:00] [Server thread/WARN]: Can't keep up!", 0);
+        publish("[12:00:10] [Server thread/WARN]: Can't keep up!", 10000);
+        publish("[12:01:00] [Server thread/WARN]: Can't keep up!", WINDOW);
+
+        assertEquals(List.of(
+                "[12:00:00] [Server thread/WARN]: Can't keep up!",
+                "[12:00:10] [Server thread/WARN]: Can't keep up! (\u00d71 in 10s)",
+                "[12:01:00] [Server thread/WARN]: Can't keep up!"), published);
+    }
+
+    /**
+     * Tests that messages other than log lines are never suppressed.
+     */
+    @Test
+    public void testCommandFeedbackNotSuppressed() {
+        EntityReference author = new EntityReference("Steve");
+        suppressor.publish(new InternalMessage[] { new ConsoleMessage("Minecraft", author, "list") }, 0);
+        suppressor.publish(new InternalMessage[] { new ConsoleMessage("Minecraft", author, "list") }, 1);
+
+        assertEquals(List.of("list", "list"), published);
+    }
+
+    /**
+     * Tests that evicting a line from the table publishes its summary.
+     */
+    @Test
+    public void testEviction() {
+        publish("[12:00:00] [Server thread/WARN]: repeated", 0);
+        publish("[12:00:00] [Server thread/WARN]: repeated", 1);
+        for(int i = 0; i < RepeatedLineSuppressor.MAX_ENTRIES; i++) {
+            publish("[12:00:01] [Server thread/INFO]: line " + i, 2);
+        }
+
+        assertEquals(RepeatedLineSuppressor.MAX_ENTRIES + 2, published.size());
+        assertEquals("[12:00:00] [Server thread/WARN]: repeated (\u00d71 in 1s)",
+                published.get(published.size() - 1));
+    }
+
+    /**
+     * Tests that the fingerprint ignores the timestamp but not the rest of the line or its stream.
+     */
+    @Test
+    public void testFingerprint() {
+        assertEquals(
+                RepeatedLineSuppressor.fingerprint(null, "[12:00:00] [Server thread/WARN]: Can't keep up!"),
+                RepeatedLineSuppressor.fingerprint(null, "[23:59:59] [Server thread/WARN]: Can't keep up!"));
+        assertNotEquals(
+                RepeatedLineSuppressor.fingerprint(null, "[12:00:00] [Server thread/WARN]: Can't keep up!"),
+                RepeatedLineSuppressor.fingerprint(null, "[12:00:00] [Server thread/INFO]: Can't keep up!"));
+        assertNotEquals(
+                RepeatedLineSuppressor.fingerprint(null, "[12:00:00] [Server thread/WARN]: Can't keep up!"),
+                RepeatedLineSuppressor.fingerprint("debug", "[12:00:00] [Server thread/WARN]: Can't keep up!"));
+    }
+
+    private void publish(String line, long now) {
+        suppressor.publish(new InternalMessage[] { new ConsoleMessage("Minecraft", line) }, now);
+    }
+}